@@ -21,10 +21,11 @@ import android.widget.TextView;
 
 import com.theartofdev.fastimageloader.FastImageLoader;
 import com.theartofdev.fastimageloader.ImageLoadSpec;
+import com.theartofdev.fastimageloader.target.ScrollPreloader;
 import com.theartofdev.fastimageloader.target.TargetImageView;
 import com.theartofdev.fastimageloaderdemo.zoom.ZoomActivity;
 
-public final class Adapter extends RecyclerView.Adapter<Adapter.ViewHolder> {
+public final class Adapter extends RecyclerView.Adapter<Adapter.ViewHolder> implements ScrollPreloader.Provider {
 
     private String[] mItems = new String[]{
             "http://assets.imgix.net/examples/clownfish.jpg",
@@ -38,19 +39,26 @@ public final class Adapter extends RecyclerView.Adapter<Adapter.ViewHolder> {
             "http://assets.imgix.net/examples/octopus.jpg"
     };
 
-    public Adapter() {
-        if (AppApplication.mPrefetchImages) {
-            for (String item : mItems) {
-                FastImageLoader.prefetchImage(item, Specs.IMG_IX_IMAGE);
-            }
-        }
-    }
-
     @Override
     public int getItemCount() {
         return mItems.length;
     }
 
+    @Override
+    public int getPreloadImageCount(int position) {
+        return position < mItems.length ? 1 : 0;
+    }
+
+    @Override
+    public String getPreloadImageUri(int position, int index) {
+        return mItems[position];
+    }
+
+    @Override
+    public String getPreloadImageSpecKey(int position, int index) {
+        return Specs.IMG_IX_IMAGE;
+    }
+
     // Create new views (invoked by the layout manager)
     @Override
     public Adapter.ViewHolder onCreateViewHolder(ViewGroup parent, int viewType) {
@@ -66,6 +74,11 @@ public final class Adapter extends RecyclerView.Adapter<Adapter.ViewHolder> {
         holder.mTargetImageView.loadImage(mItems[position], spec.getKey());
     }
 
+    @Override
+    public void onViewRecycled(ViewHolder holder) {
+        holder.mTargetImageView.recycle();
+    }
+
     //region: Inner class: ViewHolder
 
     /**
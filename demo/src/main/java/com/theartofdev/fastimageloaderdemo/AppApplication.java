@@ -15,6 +15,7 @@ package com.theartofdev.fastimageloaderdemo;
 import android.app.Application;
 import android.graphics.Bitmap;
 import android.preference.PreferenceManager;
+import android.text.format.DateUtils;
 import android.util.Log;
 
 import com.theartofdev.fastimageloader.FastImageLoader;
@@ -57,12 +58,15 @@ public class AppApplication extends Application {
         FastImageLoader.buildSpec(Specs.INSTA_AVATAR)
                 .setDimension(INSTAGRAM_AVATAR_SIZE)
                 .setImageServiceAdapter(identityUriEnhancer)
+                .setDiskCacheTtl(30 * DateUtils.DAY_IN_MILLIS)
                 .build();
 
         FastImageLoader.buildSpec(Specs.INSTA_IMAGE)
                 .setDimension(INSTAGRAM_IMAGE_SIZE)
                 .setPixelConfig(Bitmap.Config.RGB_565)
                 .setImageServiceAdapter(identityUriEnhancer)
+                .setDiskCacheQuota(30 * 1024 * 1024)
+                .setHonorCacheControl(true)
                 .build();
 
         FastImageLoader.buildSpec(Specs.UNBOUNDED_MAX)
@@ -20,6 +20,8 @@ import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
 
+import com.theartofdev.fastimageloader.target.ScrollPreloader;
+
 public class ImgIXFragment extends Fragment {
 
     private Adapter mAdapter;
@@ -37,6 +39,23 @@ public class ImgIXFragment extends Fragment {
         mAdapter = new Adapter();
         recyclerView.setAdapter(mAdapter);
 
+        if (AppApplication.mPrefetchImages) {
+            final LinearLayoutManager layoutManager = (LinearLayoutManager) recyclerView.getLayoutManager();
+            final ScrollPreloader preloader = new ScrollPreloader(mAdapter, 3);
+            recyclerView.setOnScrollListener(new RecyclerView.OnScrollListener() {
+                @Override
+                public void onScrollStateChanged(int newState) {
+                }
+
+                @Override
+                public void onScrolled(int dx, int dy) {
+                    int first = layoutManager.findFirstVisibleItemPosition();
+                    int last = layoutManager.findLastVisibleItemPosition();
+                    preloader.onScrolled(first, last - first + 1, layoutManager.getItemCount());
+                }
+            });
+        }
+
         return view;
     }
 }
@@ -26,10 +26,16 @@ import android.widget.Toast;
 
 import com.astuetz.PagerSlidingTabStrip;
 import com.theartofdev.fastimageloader.FastImageLoader;
+import com.theartofdev.fastimageloader.target.TargetHelper;
 import com.theartofdev.fastimageloaderdemo.instagram.InstagramFragment;
 
 public class MainActivity extends ActionBarActivity {
 
+    /**
+     * The image drawables draw count when it was last shown, to show the draws since
+     */
+    private long mLastDrawCount;
+
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
@@ -65,6 +71,11 @@ public class MainActivity extends ActionBarActivity {
             setPrefetchMenuIcon(item);
             Toast.makeText(this, AppApplication.mPrefetchImages ? R.string.toggle_use_prefetch_on : R.string.toggle_use_prefetch_off, Toast.LENGTH_LONG).show();
             return true;
+        } else if (item.getItemId() == R.id.show_draw_count) {
+            long drawCount = TargetHelper.getDrawCount();
+            Toast.makeText(this, "Image draws: " + drawCount + " (since last: " + (drawCount - mLastDrawCount) + ")", Toast.LENGTH_LONG).show();
+            mLastDrawCount = drawCount;
+            return true;
         }
         return super.onOptionsItemSelected(item);
     }
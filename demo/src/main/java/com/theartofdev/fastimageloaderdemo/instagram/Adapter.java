@@ -15,8 +15,7 @@ package com.theartofdev.fastimageloaderdemo.instagram;
 import android.support.v7.widget.RecyclerView;
 import android.view.ViewGroup;
 
-import com.theartofdev.fastimageloader.FastImageLoader;
-import com.theartofdev.fastimageloaderdemo.AppApplication;
+import com.theartofdev.fastimageloader.target.ScrollPreloader;
 import com.theartofdev.fastimageloaderdemo.Specs;
 import com.theartofdev.fastimageloaderdemo.instagram.service.Feed;
 import com.theartofdev.fastimageloaderdemo.instagram.service.InstagramService;
@@ -27,7 +26,7 @@ import retrofit.RestAdapter;
 import retrofit.RetrofitError;
 import retrofit.client.Response;
 
-public final class Adapter extends RecyclerView.Adapter<Adapter.ViewHolder> {
+public final class Adapter extends RecyclerView.Adapter<Adapter.ViewHolder> implements ScrollPreloader.Provider {
 
     private InstagramService mService;
 
@@ -45,18 +44,28 @@ public final class Adapter extends RecyclerView.Adapter<Adapter.ViewHolder> {
         return mItems.length;
     }
 
+    @Override
+    public int getPreloadImageCount(int position) {
+        return position < mItems.length ? 2 : 0;
+    }
+
+    @Override
+    public String getPreloadImageUri(int position, int index) {
+        Item item = mItems[position];
+        return index == 0 ? item.images.standard_resolution.url : item.user.profile_picture;
+    }
+
+    @Override
+    public String getPreloadImageSpecKey(int position, int index) {
+        return index == 0 ? Specs.INSTA_IMAGE : Specs.INSTA_AVATAR;
+    }
+
     public void loadData(final Callback<Feed> callback) {
         if (mItems.length < 1) {
             mService.getFeed(new Callback<Feed>() {
                 @Override
                 public void success(Feed feed, Response response) {
                     mItems = feed.data;
-                    if (AppApplication.mPrefetchImages) {
-                        for (Item item : mItems) {
-                            FastImageLoader.prefetchImage(item.user.profile_picture, Specs.INSTA_IMAGE);
-                            FastImageLoader.prefetchImage(item.images.standard_resolution.url, Specs.INSTA_IMAGE);
-                        }
-                    }
                     Adapter.this.notifyDataSetChanged();
                     callback.success(feed, response);
                 }
@@ -80,6 +89,11 @@ public final class Adapter extends RecyclerView.Adapter<Adapter.ViewHolder> {
         ((ItemView) holder.itemView).setData(mItems[position]);
     }
 
+    @Override
+    public void onViewRecycled(ViewHolder holder) {
+        ((ItemView) holder.itemView).recycle();
+    }
+
     //region: Inner class: ViewHolder
 
     /**
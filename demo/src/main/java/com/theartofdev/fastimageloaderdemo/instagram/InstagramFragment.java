@@ -21,6 +21,8 @@ import android.view.View;
 import android.view.ViewGroup;
 import android.widget.Toast;
 
+import com.theartofdev.fastimageloader.target.ScrollPreloader;
+import com.theartofdev.fastimageloaderdemo.AppApplication;
 import com.theartofdev.fastimageloaderdemo.R;
 import com.theartofdev.fastimageloaderdemo.instagram.service.Feed;
 
@@ -45,6 +47,23 @@ public class InstagramFragment extends Fragment {
         mAdapter = new Adapter();
         recyclerView.setAdapter(mAdapter);
 
+        if (AppApplication.mPrefetchImages) {
+            final LinearLayoutManager layoutManager = (LinearLayoutManager) recyclerView.getLayoutManager();
+            final ScrollPreloader preloader = new ScrollPreloader(mAdapter, 3);
+            recyclerView.setOnScrollListener(new RecyclerView.OnScrollListener() {
+                @Override
+                public void onScrollStateChanged(int newState) {
+                }
+
+                @Override
+                public void onScrolled(int dx, int dy) {
+                    int first = layoutManager.findFirstVisibleItemPosition();
+                    int last = layoutManager.findLastVisibleItemPosition();
+                    preloader.onScrolled(first, last - first + 1, layoutManager.getItemCount());
+                }
+            });
+        }
+
         loadData();
 
         return view;
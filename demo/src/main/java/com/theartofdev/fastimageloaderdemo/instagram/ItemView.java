@@ -71,6 +71,11 @@ public final class ItemView extends ViewGroup implements View.OnClickListener {
         mAuthor.setText(userName);
     }
 
+    public void recycle() {
+        mAvatar.recycle();
+        mImage.recycle();
+    }
+
     @Override
     public void onClick(View v) {
         ZoomActivity.startActivity((Activity) getContext(), mImage.getUrl(), Specs.INSTA_IMAGE, null);
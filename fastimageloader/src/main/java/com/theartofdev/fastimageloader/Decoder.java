@@ -25,4 +25,14 @@ public interface Decoder {
      * Load image from disk file on the current thread and set it in the image request object.
      */
     void decode(MemoryPool memoryPool, ImageRequest imageRequest, File file, ImageLoadSpec spec);
+
+    /**
+     * Decode inline image preview (BlurHash string or base64 data URI thumbnail) on the current thread.<br>
+     * Must be fast enough to be executed on the main thread.
+     *
+     * @param preview the compact preview data
+     * @param spec the preview spec to decode the preview by
+     * @return the decoded preview bitmap or null if failed
+     */
+    ReusableBitmap decodePreview(MemoryPool memoryPool, String preview, ImageLoadSpec spec);
 }
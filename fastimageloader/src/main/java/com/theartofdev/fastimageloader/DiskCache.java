@@ -44,10 +44,15 @@ public interface DiskCache {
 
     /**
      * Image added to disk cache, update the disk cache.<br>
-     * Called when an image was downloaded and now is part of the disk cache, disk cache will update
-     * its knowledge of the disk cache size, may trigger cleanup of the cache if limit is reached.
+     * Called when an image was downloaded and decoded and now is part of the disk cache, disk cache will update
+     * its knowledge of the disk cache size and the image spec cache policy and server expiration,
+     * may trigger cleanup of the cache if limit is reached.<br>
+     * The transformed image file written by the decode of the request is part of the disk cache as well, see
+     * {@link ImageRequest#getTransformedFileSize()}.
+     *
+     * @param imageRequest the request the image file was added for, with the file size set
      */
-    void imageAdded(long size);
+    void imageAdded(ImageRequest imageRequest);
 
     /**
      * Clear all the cached files async.
@@ -0,0 +1,147 @@
+// "Therefore those skilled at the unorthodox
+// are infinite as heaven and earth,
+// inexhaustible as the great rivers.
+// When they come to an end,
+// they begin again,
+// like the days and months;
+// they die and are reborn,
+// like the four seasons."
+//
+// - Sun Tsu,
+// "The Art of War"
+
+package com.theartofdev.fastimageloader;
+
+/**
+ * Listener for the lifecycle events of a single image load request, used for custom tracing and performance
+ * budgets.<br>
+ * A listener is created by {@link Factory} for each image load request that missed the memory cache (and for
+ * each prefetch request), override only the events of interest, all events do nothing by default.<br>
+ * Events are raised on the thread executing the stage (main, dispatcher, disk or download thread) so
+ * implementation must be thread-safe and quick.
+ */
+public abstract class EventListener {
+
+    /**
+     * Listener that does nothing, used when no factory is set.
+     */
+    public static final EventListener NONE = new EventListener() {
+    };
+
+    /**
+     * The image was not found in memory cache, the request starts loading it.
+     *
+     * @param uri the URI of the image
+     * @param spec the spec of the image load request
+     */
+    public void memoryMiss(String uri, ImageLoadSpec spec) {
+    }
+
+    /**
+     * The image was found in disk cache and queued to be read.
+     */
+    public void diskQueued() {
+    }
+
+    /**
+     * The image was loaded from disk cache.
+     *
+     * @param spec the spec of the loaded image, alternative spec if the primary was not cached
+     */
+    public void diskHit(ImageLoadSpec spec) {
+    }
+
+    /**
+     * The image (primary spec) was not found in disk cache, it will be downloaded.
+     */
+    public void diskMiss() {
+    }
+
+    /**
+     * Image download started on download thread.
+     */
+    public void downloadStart() {
+    }
+
+    /**
+     * Image download response headers received.
+     *
+     * @param responseCode the response code of the download web request
+     * @param contentLength the length of the image data, -1 if unknown
+     */
+    public void responseHeaders(int responseCode, long contentLength) {
+    }
+
+    /**
+     * Image data was read from the download response.
+     *
+     * @param downloaded the total number of bytes read so far
+     * @param contentLength the length of the image data, -1 if unknown
+     */
+    public void bytesRead(long downloaded, long contentLength) {
+    }
+
+    /**
+     * Image download finished.
+     *
+     * @param bytes the number of bytes downloaded, 0 if download failed or canceled
+     * @param error optional: if download failed will contain the error
+     */
+    public void downloadEnd(long bytes, Throwable error) {
+    }
+
+    /**
+     * Image file decode into bitmap started.
+     */
+    public void decodeStart() {
+    }
+
+    /**
+     * Image file decode into bitmap finished.
+     *
+     * @param successful was the image decoded
+     */
+    public void decodeEnd(boolean successful) {
+    }
+
+    /**
+     * The loaded image was delivered to the targets on main thread.
+     *
+     * @param from from where the image was loaded (DISK/NETWORK)
+     * @param spec the spec of the delivered image, alternative spec delivery is followed by primary delivery
+     */
+    public void delivered(LoadedFrom from, ImageLoadSpec spec) {
+    }
+
+    /**
+     * The image load failed, the failure was delivered to the targets on main thread.
+     */
+    public void failed() {
+    }
+
+    /**
+     * The request was canceled, by its request group or because no target requires it anymore.
+     */
+    public void canceled() {
+    }
+
+    //region: Inner class: Factory
+
+    /**
+     * Factory to create event listener for each image load request.
+     */
+    public interface Factory {
+
+        /**
+         * Create event listener for image load request.<br>
+         * Executed on dispatcher thread.
+         *
+         * @param uri the URI of the image
+         * @param spec the spec of the image load request
+         * @param prefetch is the request is prefetch request
+         * @return the listener to use, {@link #NONE} to not listen to the request
+         */
+        EventListener create(String uri, ImageLoadSpec spec, boolean prefetch);
+    }
+    //endregion
+}
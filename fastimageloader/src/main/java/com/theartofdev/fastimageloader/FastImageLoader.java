@@ -25,13 +25,18 @@ import com.theartofdev.fastimageloader.impl.LoaderHandler;
 import com.theartofdev.fastimageloader.impl.MemoryPoolImpl;
 import com.theartofdev.fastimageloader.impl.NativeHttpClient;
 import com.theartofdev.fastimageloader.impl.OkHttpClient;
+import com.theartofdev.fastimageloader.impl.SchedulerImpl;
 import com.theartofdev.fastimageloader.impl.util.FILLogger;
+import com.theartofdev.fastimageloader.impl.util.FILMetrics;
 import com.theartofdev.fastimageloader.impl.util.FILUtils;
 import com.theartofdev.fastimageloader.target.TargetHelper;
 
 import java.io.File;
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * TODO:a add doc
@@ -46,9 +51,9 @@ public final class FastImageLoader {
     private static final FastImageLoader INST = new FastImageLoader();
 
     /**
-     * The defined image loading specs
+     * The defined image loading specs, concurrent as it is read on the loader threads
      */
-    private final Map<String, ImageLoadSpec> mSpecs = new HashMap<>();
+    private final Map<String, ImageLoadSpec> mSpecs = new ConcurrentHashMap<>();
 
     /**
      * Handler for image loading logic
@@ -104,6 +109,36 @@ public final class FastImageLoader {
      * The HTTP client to be used to download images
      */
     private HttpClient mHttpClient;
+
+    /**
+     * if to validate downloaded images by bounds-only decode before committing them to disk cache
+     */
+    private boolean mValidateDownloadBounds;
+
+    /**
+     * Provides the executors for all the loader background work
+     */
+    private Scheduler mScheduler;
+
+    /**
+     * The max number of loaded images to deliver to targets per frame, 0 - unlimited
+     */
+    private int mMaxDeliveriesPerFrame;
+
+    /**
+     * the max bytes of bitmaps decoded by memory prefetch to hold warm
+     */
+    private long mPrefetchMemoryBudget = 8 * 1024 * 1024;
+
+    /**
+     * optional: factory of listeners for image load requests lifecycle events
+     */
+    private EventListener.Factory mEventListenerFactory;
+
+    /**
+     * the interceptors to execute image load requests through before the built-in disk cache and network
+     */
+    private final List<Interceptor> mInterceptors = new ArrayList<>();
     //endregion
 
     /**
@@ -213,6 +248,69 @@ public final class FastImageLoader {
         return INST;
     }
 
+    /**
+     * If to validate downloaded images by bounds-only decode before committing them to disk cache (Default: false).<br>
+     * Downloaded content is always checked to start with known image format bytes and to match the response
+     * Content-Length, the bounds-only decode also rejects corrupted image headers at the cost of reading the file
+     * header once more.<br>
+     * This setter is ignored if {@link #setDownloader(Downloader)} is used.
+     */
+    public FastImageLoader setValidateDownloadBounds(boolean validateDownloadBounds) {
+        mValidateDownloadBounds = validateDownloadBounds;
+        return INST;
+    }
+
+    /**
+     * Provides the executors for all the loader background work: disk, decode, network, prefetch and maintenance
+     * (Default: {@link SchedulerImpl} with default pool sizes).<br>
+     * Used to set pool sizes by device class, share threads with the app own executors or to execute
+     * deterministically in tests, see {@link Scheduler}.
+     */
+    public FastImageLoader setScheduler(Scheduler scheduler) {
+        mScheduler = scheduler;
+        return INST;
+    }
+
+    /**
+     * The max number of loaded images to deliver to targets per frame (Default: 0 - unlimited).<br>
+     * Loaded images are delivered once per frame, limiting the number of deliveries keeps the main thread
+     * work within the frame budget when many images are loaded at once, the rest are delivered on next frames.
+     */
+    public FastImageLoader setMaxDeliveriesPerFrame(int maxDeliveriesPerFrame) {
+        mMaxDeliveriesPerFrame = maxDeliveriesPerFrame;
+        return INST;
+    }
+
+    /**
+     * The max bytes of bitmaps decoded by {@link PrefetchLevel#MEMORY} prefetch to hold warm so they are not reused
+     * before they are displayed, older prefetched bitmaps are released to the pool (Default: 8MB).
+     */
+    public FastImageLoader setPrefetchMemoryBudget(long prefetchMemoryBudget) {
+        mPrefetchMemoryBudget = prefetchMemoryBudget;
+        return INST;
+    }
+
+    /**
+     * Add interceptor to the image load pipeline, executed on memory cache miss before the built-in disk cache
+     * and network interceptors, by the order added.<br>
+     * Used to plug in custom tiers (encoded bytes cache, local files source, etc.) and policies,
+     * see {@link Interceptor}.
+     */
+    public FastImageLoader addInterceptor(Interceptor interceptor) {
+        FILUtils.notNull(interceptor, "interceptor");
+        mInterceptors.add(interceptor);
+        return INST;
+    }
+
+    /**
+     * Factory of listeners for image load requests lifecycle events (Default: none).<br>
+     * Used for custom tracing and performance budgets, see {@link EventListener}.
+     */
+    public FastImageLoader setEventListenerFactory(EventListener.Factory factory) {
+        mEventListenerFactory = factory;
+        return INST;
+    }
+
     /**
      * If to write logs to logcat (Default: false).
      */
@@ -246,6 +344,16 @@ public final class FastImageLoader {
         return INST;
     }
 
+    /**
+     * Is to fade-in images loaded from disk cache (Default: false).<br>
+     * Images loaded from memory cache are never faded, images loaded from network or replacing shown inline preview
+     * are always faded.
+     */
+    public FastImageLoader setFadeFromCache(boolean enable) {
+        TargetHelper.fadeFromCache = enable;
+        return INST;
+    }
+
     /**
      * Create {@link com.theartofdev.fastimageloader.ImageLoadSpec} using
      * {@link com.theartofdev.fastimageloader.ImageLoadSpecBuilder}.<br>
@@ -284,10 +392,43 @@ public final class FastImageLoader {
      * Prefetch image (uri+spec) to be available in disk cache.<br>
      *
      * @param uri the URI of the image to prefetch
-     * @param specKey the spec to prefetch the image by
+     * @param specKey the spec to prefetch the image by, auto-size spec is prefetched by its largest size bucket
      */
     public static void prefetchImage(String uri, String specKey) {
+        prefetchImage(uri, specKey, null);
+    }
+
+    /**
+     * Prefetch image (uri+spec) to be available in disk cache.<br>
+     * The request belongs to the given request group that can be paused/resumed/canceled together.
+     *
+     * @param uri the URI of the image to prefetch
+     * @param specKey the spec to prefetch the image by
+     * @param tag optional: the tag of the request group the request belongs to
+     * @see #pause(Object)
+     */
+    public static void prefetchImage(String uri, String specKey, Object tag) {
+        prefetchImage(uri, specKey, tag, PrefetchLevel.DISK);
+    }
+
+    /**
+     * Prefetch image (uri+spec) to be available in disk cache, or also decoded in memory cache so it will show
+     * instantly without disk read and decode (next page in pager).<br>
+     * There is no target size to select the size bucket of auto-size spec by, so it is prefetched by its largest
+     * size bucket, see {@link ImageLoadSpec#getBucketSpec(int, int)}.<br>
+     * Memory prefetched bitmaps are held warm within the prefetch memory budget, see
+     * {@link #setPrefetchMemoryBudget(long)}.<br>
+     * The request belongs to the given request group that can be paused/resumed/canceled together.
+     *
+     * @param uri the URI of the image to prefetch
+     * @param specKey the spec to prefetch the image by
+     * @param tag optional: the tag of the request group the request belongs to
+     * @param level how far to prefetch the image: DISK or MEMORY
+     * @see #pause(Object)
+     */
+    public static void prefetchImage(String uri, String specKey, Object tag, PrefetchLevel level) {
         FILUtils.notNullOrEmpty(specKey, "specKey");
+        FILUtils.notNull(level, "level");
         FILUtils.verifyOnMainThread();
 
         if (!TextUtils.isEmpty(uri)) {
@@ -297,9 +438,55 @@ public final class FastImageLoader {
             if (spec == null) {
                 throw new IllegalArgumentException("Invalid spec key, no spec defined for the given key: " + specKey);
             }
+            spec = getUnsizedSpec(spec);
+
+            FILLogger.debug("Prefetch image... [{}] [{}] [{}]", uri, spec, level);
+            INST.mLoaderHandler.prefetchImage(uri, spec, tag, level);
+        }
+    }
+
+    /**
+     * Prefetch batch of images by the same spec to be available in disk cache, see
+     * {@link #prefetchImages(Collection, String, Object, PrefetchLevel)}.
+     *
+     * @param uris the URIs of the images to prefetch
+     * @param specKey the spec to prefetch the images by
+     */
+    public static void prefetchImages(Collection<String> uris, String specKey) {
+        prefetchImages(uris, specKey, null, PrefetchLevel.DISK);
+    }
+
+    /**
+     * Prefetch batch of images by the same spec (feed load).<br>
+     * Unlike calling {@link #prefetchImage(String, String, Object, PrefetchLevel)} for each image, the cache
+     * presence of all the images is checked in a single background pass and only the missing images are enqueued
+     * for prefetch as a single batch, so the main thread and the loader dispatcher are not blocked.<br>
+     * Auto-size spec is prefetched by its largest size bucket.<br>
+     * The requests belong to the given request group that can be paused/resumed/canceled together.
+     *
+     * @param uris the URIs of the images to prefetch
+     * @param specKey the spec to prefetch the images by
+     * @param tag optional: the tag of the request group the requests belong to
+     * @param level how far to prefetch the images: DISK or MEMORY
+     * @see #pause(Object)
+     */
+    public static void prefetchImages(Collection<String> uris, String specKey, Object tag, PrefetchLevel level) {
+        FILUtils.notNull(uris, "uris");
+        FILUtils.notNullOrEmpty(specKey, "specKey");
+        FILUtils.notNull(level, "level");
+        FILUtils.verifyOnMainThread();
+
+        if (!uris.isEmpty()) {
+
+            INST.finishInit();
+            ImageLoadSpec spec = INST.mSpecs.get(specKey);
+            if (spec == null) {
+                throw new IllegalArgumentException("Invalid spec key, no spec defined for the given key: " + specKey);
+            }
+            spec = getUnsizedSpec(spec);
 
-            FILLogger.debug("Prefetch image... [{}] [{}]", uri, spec);
-            INST.mLoaderHandler.prefetchImage(uri, spec);
+            FILLogger.debug("Prefetch images... [{}] [{}] [{}]", uris.size(), spec, level);
+            INST.mLoaderHandler.prefetchImages(uris.toArray(new String[uris.size()]), spec, tag, level);
         }
     }
 
@@ -308,6 +495,8 @@ public final class FastImageLoader {
      * Handle transformation on the image, image dimension specification and dimension fallback.<br>
      * If the image of the requested dimensions is not found in memory cache we try to find the fallback dimension, if
      * found it will be set to the target, and the requested dimension image will be loaded async.<br>
+     * For auto-size spec the image dimension is selected by the measured size of {@link SizedTarget}, auto-size
+     * alternative spec is used by its largest size bucket.
      * <br><br>
      * Must be initialized first using {@link #init(android.app.Application)}.
      *
@@ -317,6 +506,22 @@ public final class FastImageLoader {
      * @throws IllegalStateException NOT initialized
      */
     public static void loadImage(Target target, String altSpecKey) {
+        loadImage(target, altSpecKey, null);
+    }
+
+    /**
+     * Load image by and to the given target, see {@link #loadImage(Target, String)}.<br>
+     * The request belongs to the given request group that can be paused/resumed/canceled together, if the image is
+     * already requested by a different group the request no longer belongs to any group.
+     *
+     * @param target the target to load the image to, use it's URL and Spec
+     * @param altSpecKey optional: alternative specification to load image from cache if primary is no available in
+     * cache.
+     * @param tag optional: the tag of the request group the request belongs to
+     * @throws IllegalStateException NOT initialized
+     * @see #pause(Object)
+     */
+    public static void loadImage(Target target, String altSpecKey, Object tag) {
         FILUtils.notNull(target, "target");
         FILUtils.verifyOnMainThread();
 
@@ -329,9 +534,127 @@ public final class FastImageLoader {
         if (altSpecKey != null && altSpec == null) {
             throw new IllegalArgumentException("Invalid alternative spec key, no spec defined for the given key: " + altSpecKey);
         }
+        if (spec.isAutoSize()) {
+            spec = target instanceof SizedTarget
+                    ? spec.getBucketSpec(((SizedTarget) target).getTargetWidth(), ((SizedTarget) target).getTargetHeight())
+                    : spec.getBucketSpec(0, 0);
+        }
+        if (altSpec != null) {
+            altSpec = getUnsizedSpec(altSpec);
+        }
 
         FILLogger.debug("Load image... [{}] [{}] [{}]", target, spec, altSpecKey);
-        INST.mLoaderHandler.loadImage(target, spec, altSpec);
+        INST.mLoaderHandler.loadImage(target, spec, altSpec, tag);
+    }
+
+    /**
+     * Pause all requests of the given request group (e.g. the requests of a screen while it is in the background).<br>
+     * Queued requests are not started and executing disk/network work is stopped, the requests are resumed by
+     * {@link #resume(Object)}. New requests of a paused group are held until the group is resumed.
+     *
+     * @param tag the tag of the request group to pause
+     */
+    public static void pause(Object tag) {
+        FILUtils.notNull(tag, "tag");
+        INST.finishInit();
+        INST.mLoaderHandler.pause(tag);
+    }
+
+    /**
+     * Resume all requests of the given paused request group.
+     *
+     * @param tag the tag of the request group to resume
+     */
+    public static void resume(Object tag) {
+        FILUtils.notNull(tag, "tag");
+        INST.finishInit();
+        INST.mLoaderHandler.resume(tag);
+    }
+
+    /**
+     * Cancel all requests of the given request group, canceled requests are not delivered to their targets.
+     *
+     * @param tag the tag of the request group to cancel
+     */
+    public static void cancel(Object tag) {
+        FILUtils.notNull(tag, "tag");
+        INST.finishInit();
+        INST.mLoaderHandler.cancel(tag);
+    }
+
+    /**
+     * Cancel the image load request of the given target, the target no longer needs the image (e.g. RecyclerView
+     * holder recycled).<br>
+     * If no other target needs the image the request is canceled and its disk/decode/network work is stopped.<br>
+     * Must be called before the target uri is cleared.
+     *
+     * @param target the target to cancel its request
+     */
+    public static void cancelImage(Target target) {
+        FILUtils.notNull(target, "target");
+        FILUtils.verifyOnMainThread();
+        if (!TextUtils.isEmpty(target.getUri())) {
+            INST.finishInit();
+            INST.mLoaderHandler.cancelTarget(target, target.getUri());
+        }
+    }
+
+    /**
+     * Check if the image (uri+spec) is currently in memory cache, synchronously and without loading it.<br>
+     * Allows deciding at bind time whether the image will show immediately or a placeholder animation is needed.
+     * No allocation is done on cache hit.<br>
+     * The returned bitmap is NOT marked in-use, use {@link #loadImage(Target, String)} to set it on target.<br>
+     * Auto-size spec is checked by its largest size bucket, the same the image is prefetched by.
+     * <br><br>
+     * Must be initialized first using {@link #init(android.app.Application)}.
+     *
+     * @param uri the URI of the image to check
+     * @param specKey the spec to check the image by
+     * @return the cached bitmap or null if not in memory cache
+     * @throws IllegalStateException NOT initialized
+     */
+    public static ReusableBitmap peekImage(String uri, String specKey) {
+        FILUtils.notNullOrEmpty(specKey, "specKey");
+        FILUtils.verifyOnMainThread();
+
+        if (!TextUtils.isEmpty(uri)) {
+            INST.finishInit();
+            ImageLoadSpec spec = INST.mSpecs.get(specKey);
+            if (spec == null) {
+                throw new IllegalArgumentException("Invalid spec key, no spec defined for the given key: " + specKey);
+            }
+            return INST.mLoaderHandler.peekImage(uri, getUnsizedSpec(spec));
+        }
+        return null;
+    }
+
+    /**
+     * Load inline preview (BlurHash string or base64 data URI thumbnail) of an image synchronously.<br>
+     * The spec must define preview dimension using
+     * {@link com.theartofdev.fastimageloader.ImageLoadSpecBuilder#setPreviewDimension(int, int)}.<br>
+     * Client is responsible for calling {@link com.theartofdev.fastimageloader.ReusableBitmap#incrementInUse()}
+     * and {@link com.theartofdev.fastimageloader.ReusableBitmap#decrementInUse()} on the returned bitmap.
+     * <br><br>
+     * Must be initialized first using {@link #init(android.app.Application)}.
+     *
+     * @param preview the compact preview data
+     * @param specKey the spec of the image the preview is for
+     * @return the preview bitmap or null if not available
+     * @throws IllegalStateException NOT initialized
+     */
+    public static ReusableBitmap loadPreview(String preview, String specKey) {
+        FILUtils.notNullOrEmpty(specKey, "specKey");
+        FILUtils.verifyOnMainThread();
+
+        if (!TextUtils.isEmpty(preview)) {
+            INST.finishInit();
+            ImageLoadSpec spec = INST.mSpecs.get(specKey);
+            if (spec == null) {
+                throw new IllegalArgumentException("Invalid spec key, no spec defined for the given key: " + specKey);
+            }
+            return INST.mLoaderHandler.loadPreview(preview, spec);
+        }
+        return null;
     }
 
     /**
@@ -348,6 +671,26 @@ public final class FastImageLoader {
         INST.mLoaderHandler.clearDiskCache();
     }
 
+    /**
+     * Get snapshot of the image loader metrics for analyses and telemetry export: cache tiers hit rates by spec,
+     * decode and download latencies, queues depth and memory/disk cache bytes.
+     * <br><br>
+     * Must be initialized first using {@link #init(android.app.Application)}.
+     *
+     * @throws IllegalStateException NOT initialized.
+     */
+    public static MetricsSnapshot getMetrics() {
+        INST.finishInit();
+        return INST.mLoaderHandler.getMetrics();
+    }
+
+    /**
+     * Reset the cumulative metrics (counters and latencies), gauges are not affected.
+     */
+    public static void resetMetrics() {
+        FILMetrics.reset();
+    }
+
     /**
      * Add the given image load spec to the defined specs.
      */
@@ -358,6 +701,15 @@ public final class FastImageLoader {
 
     //region: Private methods
 
+    /**
+     * Get the spec to use for request that has no target size to select auto-size spec bucket by (prefetch, peek,
+     * alternative spec).<br>
+     * Auto-size spec is mapped to its largest size bucket so the same image is used for all such requests.
+     */
+    private static ImageLoadSpec getUnsizedSpec(ImageLoadSpec spec) {
+        return spec.isAutoSize() ? spec.getBucketSpec(0, 0) : spec;
+    }
+
     /**
      * Finish the initialization process.
      *
@@ -372,6 +724,10 @@ public final class FastImageLoader {
                     FILLogger.debug("Use default identity image service adapter...");
                     INST.mDefaultImageServiceAdapter = new IdentityAdapter();
                 }
+                if (mScheduler == null) {
+                    FILLogger.debug("Use default scheduler...");
+                    mScheduler = new SchedulerImpl();
+                }
                 if (mMemoryPool == null) {
                     FILLogger.debug("Use default memory pool...");
                     mMemoryPool = new MemoryPoolImpl();
@@ -386,17 +742,17 @@ public final class FastImageLoader {
                         mCacheFolder = new File(FILUtils.pathCombine(mApplication.getCacheDir().getPath(), "ImageCache"));
                     }
                     FILLogger.debug("Use default disk cache... [{}]", mCacheFolder);
-                    mDiskCache = new DiskCacheImpl(mApplication, mCacheFolder, mCacheMaxSize, mCacheTtl);
+                    mDiskCache = new DiskCacheImpl(mApplication, mCacheFolder, mCacheMaxSize, mCacheTtl, mScheduler);
                 }
                 if (mDownloader == null) {
                     initHttpClient();
 
                     FILLogger.debug("Use default downloader...");
-                    mDownloader = new DownloaderImpl(mHttpClient);
+                    mDownloader = new DownloaderImpl(mHttpClient, mScheduler, mValidateDownloadBounds);
                 }
 
                 FILLogger.debug("Create load handler... [{}] [{}] [{}]", mMemoryPool, mDiskCache, mDownloader);
-                INST.mLoaderHandler = new LoaderHandler(mApplication, mMemoryPool, mDiskCache, mDownloader, mDecoder);
+                INST.mLoaderHandler = new LoaderHandler(mApplication, mMemoryPool, mDiskCache, mDownloader, mDecoder, mMaxDeliveriesPerFrame, mPrefetchMemoryBudget, mEventListenerFactory, mInterceptors, mSpecs.values(), mScheduler);
             } else {
                 throw new IllegalStateException("Fast Image Loader is NOT initialized, call init(...)");
             }
@@ -50,6 +50,11 @@ public interface HttpClient {
          */
         long getContentLength();
 
+        /**
+         * The value of the given response header or null if not present.
+         */
+        String getHeader(String name);
+
         /**
          * Stream of the HTTP response body.
          */
@@ -14,6 +14,8 @@ package com.theartofdev.fastimageloader;
 
 import android.graphics.Bitmap;
 
+import java.util.Arrays;
+
 /**
  * The image loading spec data.<br>
  * <br><br>
@@ -53,6 +55,36 @@ public final class ImageLoadSpec {
      * The URI enhancer to use for this spec image loading
      */
     private final ImageServiceAdapter mImageServiceAdapter;
+
+    /**
+     * optional: the spec of the tiny inline preview bitmap shown while the image is loading
+     */
+    private final ImageLoadSpec mPreviewSpec;
+
+    /**
+     * optional: the transformation to apply on the image on decode, result is cached in memory and disk
+     */
+    private final Transformation mTransformation;
+
+    /**
+     * optional: the disk cache policy of the spec images, shared with the spec auto-size bucket specs
+     */
+    private final DiskCachePolicy mDiskCachePolicy;
+
+    /**
+     * auto-size spec: the sorted size buckets in pixels to map the target measured size to, null if not auto-size
+     */
+    private final int[] mSizeBuckets;
+
+    /**
+     * auto-size spec: the adjustment of the target measured size by the spec max density
+     */
+    private final float mDensityAdj;
+
+    /**
+     * auto-size spec: the specs created for bucketed sizes, by width bucket and height bucket index
+     */
+    private ImageLoadSpec[] mBucketSpecs;
     //endregion
 
     /**
@@ -64,14 +96,26 @@ public final class ImageLoadSpec {
      * @param format The format of the image.
      * @param pixelConfig the pixel configuration to load the image in (4 bytes per image pixel, 2 bytes, etc.)
      * @param imageServiceAdapter The URI enhancer to use for this spec image loading
+     * @param previewSpec optional: the spec of the tiny inline preview bitmap shown while the image is loading
+     * @param transformation optional: the transformation to apply on the image on decode
+     * @param diskCachePolicy optional: the disk cache policy of the spec images
+     * @param sizeBuckets optional: the sorted size buckets in pixels for auto-size spec
+     * @param densityAdj the adjustment of the target measured size by the spec max density
      */
-    ImageLoadSpec(String key, int width, int height, Format format, Bitmap.Config pixelConfig, ImageServiceAdapter imageServiceAdapter) {
+    ImageLoadSpec(String key, int width, int height, Format format, Bitmap.Config pixelConfig,
+                  ImageServiceAdapter imageServiceAdapter, ImageLoadSpec previewSpec, Transformation transformation,
+                  DiskCachePolicy diskCachePolicy, int[] sizeBuckets, float densityAdj) {
         mKey = key;
         mWidth = width;
         mHeight = height;
         mFormat = format;
         mPixelConfig = pixelConfig;
         mImageServiceAdapter = imageServiceAdapter;
+        mPreviewSpec = previewSpec;
+        mTransformation = transformation;
+        mDiskCachePolicy = diskCachePolicy;
+        mSizeBuckets = sizeBuckets;
+        mDensityAdj = densityAdj;
     }
 
     /**
@@ -116,6 +160,31 @@ public final class ImageLoadSpec {
         return mImageServiceAdapter;
     }
 
+    /**
+     * optional: the spec of the tiny inline preview bitmap shown while the image is loading.<br>
+     * null if inline preview is not supported for this spec.
+     */
+    public ImageLoadSpec getPreviewSpec() {
+        return mPreviewSpec;
+    }
+
+    /**
+     * optional: the transformation to apply on the image on decode, result is cached in memory and disk.<br>
+     * null if no transformation is applied.
+     */
+    public Transformation getTransformation() {
+        return mTransformation;
+    }
+
+    /**
+     * optional: the disk cache policy of the spec images (TTL, quota, Cache-Control), shared with the spec
+     * auto-size bucket specs.<br>
+     * null if the disk cache defaults are used.
+     */
+    public DiskCachePolicy getDiskCachePolicy() {
+        return mDiskCachePolicy;
+    }
+
     /**
      * Is the spec define specific width and height for the image.
      */
@@ -123,6 +192,55 @@ public final class ImageLoadSpec {
         return mWidth > 0 && mHeight > 0;
     }
 
+    /**
+     * Is the spec size is selected automatically by the measured size of the target, see {@link #getBucketSpec(int, int)}.
+     */
+    public boolean isAutoSize() {
+        return mSizeBuckets != null;
+    }
+
+    /**
+     * Get the spec to load image into target of the given measured size by mapping each dimension to the smallest size
+     * bucket that is not smaller than it (the largest bucket if none).<br>
+     * All targets of the same buckets share the same spec so the image service URL, disk cache and bitmaps reuse pool
+     * are shared between them.<br>
+     * The bucket specs are created on first use and registered so they can be used by key.<br>
+     * Must be called on main thread.
+     *
+     * @param width the measured width of the target in pixels, 0 - unknown (scale by height)
+     * @param height the measured height of the target in pixels, 0 - unknown (scale by width)
+     * @return the bucket spec, this spec if not auto-size
+     */
+    public ImageLoadSpec getBucketSpec(int width, int height) {
+        if (mSizeBuckets == null) {
+            return this;
+        }
+
+        int wIdx = width > 0 ? getBucketIndex(width) : -1;
+        int hIdx = height > 0 ? getBucketIndex(height) : -1;
+        if (wIdx < 0 && hIdx < 0) {
+            // nothing is known on the target, the largest bucket is the safe choice
+            wIdx = mSizeBuckets.length - 1;
+        }
+
+        int n = mSizeBuckets.length + 1;
+        if (mBucketSpecs == null) {
+            mBucketSpecs = new ImageLoadSpec[n * n];
+        }
+
+        int index = (wIdx + 1) * n + hIdx + 1;
+        ImageLoadSpec spec = mBucketSpecs[index];
+        if (spec == null) {
+            int bucketWidth = wIdx > -1 ? mSizeBuckets[wIdx] : 0;
+            int bucketHeight = hIdx > -1 ? mSizeBuckets[hIdx] : 0;
+            spec = new ImageLoadSpec(mKey + "_" + bucketWidth + "x" + bucketHeight, bucketWidth, bucketHeight,
+                    mFormat, mPixelConfig, mImageServiceAdapter, mPreviewSpec, mTransformation, mDiskCachePolicy, null, 1);
+            mBucketSpecs[index] = spec;
+            FastImageLoader.addSpec(spec);
+        }
+        return spec;
+    }
+
     @Override
     public String toString() {
         return "ImageLoadSpec{" +
@@ -132,9 +250,29 @@ public final class ImageLoadSpec {
                 ", mFormat=" + mFormat +
                 ", mPixelConfig=" + mPixelConfig +
                 ", mImageServiceAdapter=" + mImageServiceAdapter +
+                ", mPreviewSpec=" + (mPreviewSpec != null ? mPreviewSpec.getKey() : null) +
+                ", mTransformation=" + (mTransformation != null ? mTransformation.getKey() : null) +
+                ", mDiskCachePolicy=" + mDiskCachePolicy +
+                ", mSizeBuckets=" + Arrays.toString(mSizeBuckets) +
                 '}';
     }
 
+    //region: Private methods
+
+    /**
+     * Get the index of the smallest size bucket that is not smaller than the given measured size adjusted by density.
+     */
+    private int getBucketIndex(int size) {
+        int adjSize = (int) (size * mDensityAdj);
+        for (int i = 0; i < mSizeBuckets.length; i++) {
+            if (mSizeBuckets[i] >= adjSize) {
+                return i;
+            }
+        }
+        return mSizeBuckets.length - 1;
+    }
+    //endregion
+
     //region: Inner class: Format
 
     /**
@@ -147,4 +285,80 @@ public final class ImageLoadSpec {
         WEBP,
     }
     //endregion
+
+    //region: Inner class: DiskCachePolicy
+
+    /**
+     * The disk cache policy of spec images, overriding the disk cache defaults.<br>
+     * Set using {@link ImageLoadSpecBuilder#setDiskCacheTtl(long)}, {@link ImageLoadSpecBuilder#setDiskCacheQuota(long)}
+     * and {@link ImageLoadSpecBuilder#setHonorCacheControl(boolean)}.
+     */
+    public static final class DiskCachePolicy {
+
+        /**
+         * the key of the spec that owns the policy, the quota is shared by all images of the spec and its bucket specs
+         */
+        private final String mKey;
+
+        /**
+         * the max time image is cached without use before delete, 0 - use disk cache default
+         */
+        private final long mTtl;
+
+        /**
+         * the max bytes of the spec images in the disk cache, 0 - no quota (only disk cache max size)
+         */
+        private final long mQuota;
+
+        /**
+         * if to expire the images by the server Cache-Control max-age
+         */
+        private final boolean mHonorCacheControl;
+
+        DiskCachePolicy(String key, long ttl, long quota, boolean honorCacheControl) {
+            mKey = key;
+            mTtl = ttl;
+            mQuota = quota;
+            mHonorCacheControl = honorCacheControl;
+        }
+
+        /**
+         * the key of the spec that owns the policy, the quota is shared by all images of the spec and its bucket specs
+         */
+        public String getKey() {
+            return mKey;
+        }
+
+        /**
+         * the max time image is cached without use before delete, 0 - use disk cache default
+         */
+        public long getTtl() {
+            return mTtl;
+        }
+
+        /**
+         * the max bytes of the spec images in the disk cache, 0 - no quota (only disk cache max size)
+         */
+        public long getQuota() {
+            return mQuota;
+        }
+
+        /**
+         * if to expire the images by the server Cache-Control max-age
+         */
+        public boolean isHonorCacheControl() {
+            return mHonorCacheControl;
+        }
+
+        @Override
+        public String toString() {
+            return "DiskCachePolicy{" +
+                    "mKey='" + mKey + '\'' +
+                    ", mTtl=" + mTtl +
+                    ", mQuota=" + mQuota +
+                    ", mHonorCacheControl=" + mHonorCacheControl +
+                    '}';
+        }
+    }
+    //endregion
 }
\ No newline at end of file
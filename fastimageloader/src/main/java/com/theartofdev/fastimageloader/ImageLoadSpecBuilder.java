@@ -21,6 +21,8 @@ import android.view.WindowManager;
 
 import com.theartofdev.fastimageloader.impl.util.FILUtils;
 
+import java.util.Arrays;
+
 /**
  * Builder for creating {@link com.theartofdev.fastimageloader.ImageLoadSpec} instances.
  * <br><br>
@@ -72,6 +74,41 @@ public final class ImageLoadSpecBuilder {
      * The URI enhancer to use for this spec image loading
      */
     private ImageServiceAdapter mImageServiceAdapter;
+
+    /**
+     * the width of the inline preview bitmap in pixels, 0 - no inline preview
+     */
+    private int mPreviewWidth;
+
+    /**
+     * the height of the inline preview bitmap in pixels, 0 - no inline preview
+     */
+    private int mPreviewHeight;
+
+    /**
+     * optional: the transformation to apply on the image on decode
+     */
+    private Transformation mTransformation;
+
+    /**
+     * optional: the size buckets in pixels for auto-size spec
+     */
+    private int[] mSizeBuckets;
+
+    /**
+     * the max time image is cached on disk without use before delete, 0 - use disk cache default
+     */
+    private long mDiskCacheTtl;
+
+    /**
+     * the max bytes of the spec images in the disk cache, 0 - no quota
+     */
+    private long mDiskCacheQuota;
+
+    /**
+     * if to expire the spec images in disk cache by the server Cache-Control max-age
+     */
+    private boolean mHonorCacheControl;
     //endregion
 
     /**
@@ -134,6 +171,35 @@ public final class ImageLoadSpecBuilder {
         return this;
     }
 
+    /**
+     * Set the image size to be selected automatically by the measured size of the target by mapping it to one of the
+     * given size buckets, see {@link ImageLoadSpec#getBucketSpec(int, int)}.<br>
+     * The target must implement {@link SizedTarget}, {@link com.theartofdev.fastimageloader.target.TargetImageViewHandler}
+     * does using the image view size.<br>
+     * A small number of buckets keeps bitmap reuse high while the downloaded image is close to the displayed size.
+     *
+     * @param sizeBuckets the size buckets in pixels (before max density adjustment)
+     */
+    public ImageLoadSpecBuilder setAutoDimension(int... sizeBuckets) {
+        FILUtils.notNull(sizeBuckets, "sizeBuckets");
+        if (sizeBuckets.length < 1)
+            throw new IllegalArgumentException("at least one size bucket is required");
+        mSizeBuckets = sizeBuckets.clone();
+        Arrays.sort(mSizeBuckets);
+        mWidth = 0;
+        mHeight = 0;
+        return this;
+    }
+
+    /**
+     * Set the image size to be selected automatically by the measured size of the target using default size buckets
+     * of 128, 256, 512, 1024 pixels and the display size, see {@link #setAutoDimension(int...)}.
+     */
+    public ImageLoadSpecBuilder setAutoDimension() {
+        Point size = getDisplaySize();
+        return setAutoDimension(128, 256, 512, 1024, Math.max(size.x, size.y));
+    }
+
     /**
      * the width and height of the image in pixels to the same value (square).
      */
@@ -235,6 +301,57 @@ public final class ImageLoadSpecBuilder {
         return this;
     }
 
+    /**
+     * the width and height in pixels of the inline preview bitmap (BlurHash or base64 thumbnail)
+     * shown while the image is loading.<br>
+     * The preview is tiny and blurred so it is not adjusted by density, 32x32 is usually enough.
+     */
+    public ImageLoadSpecBuilder setPreviewDimension(int width, int height) {
+        mPreviewWidth = width;
+        mPreviewHeight = height;
+        return this;
+    }
+
+    /**
+     * the transformation to apply on the image on decode (circle crop, rounded corners, blur, etc.).<br>
+     * The transformed image is cached in memory and disk so it is applied only once per image, see
+     * {@link com.theartofdev.fastimageloader.transform} for built-in transformations.
+     */
+    public ImageLoadSpecBuilder setTransformation(Transformation transformation) {
+        mTransformation = transformation;
+        return this;
+    }
+
+    /**
+     * the max time image is cached on disk without use before delete (Default: 0 - the disk cache TTL).<br>
+     * Use short TTL for images that go stale quickly (news) and long for images that rarely change (avatars),
+     * images closer to their TTL are also evicted first when the disk cache is full.
+     */
+    public ImageLoadSpecBuilder setDiskCacheTtl(long diskCacheTtl) {
+        mDiskCacheTtl = diskCacheTtl;
+        return this;
+    }
+
+    /**
+     * the max bytes of the spec images in the disk cache (Default: 0 - no quota, only the disk cache max size).<br>
+     * The quota is shared by the spec auto-size bucket specs, when exceeded the spec images closer to their TTL
+     * are deleted on the next cache scan so one spec can't push the images of other specs out of the cache.
+     */
+    public ImageLoadSpecBuilder setDiskCacheQuota(long diskCacheQuota) {
+        mDiskCacheQuota = diskCacheQuota;
+        return this;
+    }
+
+    /**
+     * if to expire the spec images in disk cache by the server Cache-Control max-age (Default: false).<br>
+     * Expired image is downloaded again on next load and is evicted first from the disk cache, "no-cache" and
+     * "no-store" expire the image right away.
+     */
+    public ImageLoadSpecBuilder setHonorCacheControl(boolean honorCacheControl) {
+        mHonorCacheControl = honorCacheControl;
+        return this;
+    }
+
     /**
      * Create spec by set parameters.
      *
@@ -247,7 +364,31 @@ public final class ImageLoadSpecBuilder {
         float deviceDensity = mApplication.getResources().getDisplayMetrics().density;
         float densityAdj = deviceDensity >= mMaxDensity ? mMaxDensity / deviceDensity : 1f;
 
-        ImageLoadSpec spec = new ImageLoadSpec(mKey, (int) (mWidth * densityAdj), (int) (mHeight * densityAdj), mFormat, mPixelConfig, mImageServiceAdapter);
+        ImageLoadSpec previewSpec = null;
+        if (mPreviewWidth > 0 && mPreviewHeight > 0) {
+            previewSpec = new ImageLoadSpec(mKey + "_preview", mPreviewWidth, mPreviewHeight, ImageLoadSpec.Format.UNCHANGE, mPixelConfig, mImageServiceAdapter, null, null, null, null, 1);
+        }
+
+        int[] sizeBuckets = null;
+        if (mSizeBuckets != null) {
+            // bucket sizes in density adjusted pixels, drop buckets that are the same after adjustment
+            sizeBuckets = new int[mSizeBuckets.length];
+            int count = 0;
+            for (int bucket : mSizeBuckets) {
+                int adjBucket = (int) (bucket * densityAdj);
+                if (adjBucket > 0 && (count == 0 || sizeBuckets[count - 1] != adjBucket)) {
+                    sizeBuckets[count++] = adjBucket;
+                }
+            }
+            sizeBuckets = count > 0 ? Arrays.copyOf(sizeBuckets, count) : null;
+        }
+
+        ImageLoadSpec.DiskCachePolicy diskCachePolicy = null;
+        if (mDiskCacheTtl > 0 || mDiskCacheQuota > 0 || mHonorCacheControl) {
+            diskCachePolicy = new ImageLoadSpec.DiskCachePolicy(mKey, mDiskCacheTtl, mDiskCacheQuota, mHonorCacheControl);
+        }
+
+        ImageLoadSpec spec = new ImageLoadSpec(mKey, (int) (mWidth * densityAdj), (int) (mHeight * densityAdj), mFormat, mPixelConfig, mImageServiceAdapter, previewSpec, mTransformation, diskCachePolicy, sizeBuckets, densityAdj);
 
         FastImageLoader.addSpec(spec);
 
@@ -0,0 +1,81 @@
+// "Therefore those skilled at the unorthodox
+// are infinite as heaven and earth,
+// inexhaustible as the great rivers.
+// When they come to an end,
+// they begin again,
+// like the days and months;
+// they die and are reborn,
+// like the four seasons."
+//
+// - Sun Tsu,
+// "The Art of War"
+
+package com.theartofdev.fastimageloader;
+
+import com.theartofdev.fastimageloader.impl.ImageRequest;
+
+/**
+ * A stage of the image load pipeline (disk cache, network, custom source, etc.) executed after memory cache miss.<br>
+ * The pipeline is an ordered chain of interceptors, each either completes the request with a loaded bitmap
+ * (set on the request) or passes it to the next interceptor in the chain.<br>
+ * Interceptors added by {@link FastImageLoader#addInterceptor(Interceptor)} are executed before the built-in disk
+ * cache and network interceptors.
+ */
+public interface Interceptor {
+
+    /**
+     * Handle the image load request of the given chain.<br>
+     * Executed on the dispatcher thread, must not block, long work should be executed async.<br>
+     * Must eventually call exactly one of {@link Chain#proceed()}, {@link Chain#complete(LoadedFrom)} or
+     * {@link Chain#canceled()}, from any thread.
+     *
+     * @param chain the chain executing the request
+     */
+    void intercept(Chain chain);
+
+    //region: Inner class: Chain
+
+    /**
+     * The chain executing an image load request through the interceptors.
+     */
+    interface Chain {
+
+        /**
+         * The image load request executed.
+         */
+        ImageRequest getRequest();
+
+        /**
+         * optional: alternative spec that can be loaded and delivered until the primary spec is loaded.
+         */
+        ImageLoadSpec getAltSpec();
+
+        /**
+         * Pass the request to the next interceptor in the chain, fail the request if this is the last one.
+         */
+        void proceed();
+
+        /**
+         * Deliver the bitmap set on the request (alternative spec) to the targets as intermediate result, the
+         * interceptor must still proceed or complete the request.
+         *
+         * @param from from where the image was loaded
+         */
+        void deliver(LoadedFrom from);
+
+        /**
+         * Complete the request with the bitmap set on the request, no bitmap fails the request.<br>
+         * Prefetch requests complete without bitmap when the image is available in disk cache.
+         *
+         * @param from from where the image was loaded
+         */
+        void complete(LoadedFrom from);
+
+        /**
+         * The interceptor stopped because the request was no longer valid (paused or no targets).<br>
+         * The request is executed again from the first interceptor if it is valid again.
+         */
+        void canceled();
+    }
+    //endregion
+}
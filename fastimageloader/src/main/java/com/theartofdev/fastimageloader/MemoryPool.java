@@ -23,6 +23,15 @@ public interface MemoryPool {
      */
     ReusableBitmap get(String url, ImageLoadSpec spec, ImageLoadSpec altSpec);
 
+    /**
+     * Check if image for the specified {@code url} and {@code spec} is in the cache without
+     * affecting the cache state (LRU order, stats).<br>
+     * Must be thread-safe and not allocate on cache hit.
+     *
+     * @return the cached image or null if not in cache
+     */
+    ReusableBitmap peek(String url, ImageLoadSpec spec);
+
     /**
      * Store an image in the cache for the specified {@code key}.
      */
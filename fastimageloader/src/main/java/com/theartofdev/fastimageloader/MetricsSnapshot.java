@@ -0,0 +1,475 @@
+// "Therefore those skilled at the unorthodox
+// are infinite as heaven and earth,
+// inexhaustible as the great rivers.
+// When they come to an end,
+// they begin again,
+// like the days and months;
+// they die and are reborn,
+// like the four seasons."
+//
+// - Sun Tsu,
+// "The Art of War"
+
+package com.theartofdev.fastimageloader;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Immutable snapshot of the image loader metrics for analyses and telemetry export.<br>
+ * Counters are cumulative since init or last reset, gauges (queues, bytes) are the value at snapshot time.<br>
+ * Use {@link FastImageLoader#getMetrics()} to get it.
+ */
+public final class MetricsSnapshot {
+
+    //region: Fields and Consts
+
+    /**
+     * the cache tiers stats by spec key
+     */
+    private final Map<String, SpecStats> mSpecs;
+
+    /**
+     * the latency of decoding images into bitmaps
+     */
+    private final Latency mDecode;
+
+    /**
+     * the latency of downloading images
+     */
+    private final Latency mDownload;
+
+    /**
+     * the latency of each stage interval of delivered image load requests by interval name
+     */
+    private final Map<String, Latency> mStages;
+
+    /**
+     * the total number of bytes downloaded
+     */
+    private final long mDownloadedBytes;
+
+    /**
+     * the number of downloaded or cached image files rejected as invalid by reject reason
+     */
+    private final Map<String, Long> mRejections;
+
+    /**
+     * the number of requests currently loading
+     */
+    private final int mLoadingRequests;
+
+    /**
+     * the number of requests currently held paused
+     */
+    private final int mPausedRequests;
+
+    /**
+     * the number of loaded images waiting to be delivered to targets on main thread
+     */
+    private final int mPendingDeliveries;
+
+    /**
+     * the number of disk cache reads waiting to execute, -1 if not available
+     */
+    private final int mDiskQueue;
+
+    /**
+     * the number of downloads waiting to execute, -1 if not available
+     */
+    private final int mDownloadQueue;
+
+    /**
+     * the total bytes of the bitmaps in memory pool, -1 if not available
+     */
+    private final long mPoolBytes;
+
+    /**
+     * the bytes of the bitmaps in memory pool that are currently in use, -1 if not available
+     */
+    private final long mPoolInUseBytes;
+
+    /**
+     * the bytes of the disk cache, -1 if not available
+     */
+    private final long mDiskCacheBytes;
+    //endregion
+
+    /**
+     * Used internally to create the snapshot.
+     */
+    public MetricsSnapshot(Map<String, SpecStats> specs, Latency decode, Latency download,
+                           Map<String, Latency> stages, long downloadedBytes, Map<String, Long> rejections,
+                           int loadingRequests, int pausedRequests, int pendingDeliveries, int diskQueue,
+                           int downloadQueue, long poolBytes, long poolInUseBytes, long diskCacheBytes) {
+        mSpecs = Collections.unmodifiableMap(specs);
+        mDecode = decode;
+        mDownload = download;
+        mStages = Collections.unmodifiableMap(stages);
+        mDownloadedBytes = downloadedBytes;
+        mRejections = Collections.unmodifiableMap(rejections);
+        mLoadingRequests = loadingRequests;
+        mPausedRequests = pausedRequests;
+        mPendingDeliveries = pendingDeliveries;
+        mDiskQueue = diskQueue;
+        mDownloadQueue = downloadQueue;
+        mPoolBytes = poolBytes;
+        mPoolInUseBytes = poolInUseBytes;
+        mDiskCacheBytes = diskCacheBytes;
+    }
+
+    /**
+     * the cache tiers stats by spec key
+     */
+    public Map<String, SpecStats> getSpecs() {
+        return mSpecs;
+    }
+
+    /**
+     * the latency of decoding images into bitmaps
+     */
+    public Latency getDecode() {
+        return mDecode;
+    }
+
+    /**
+     * the latency of downloading images
+     */
+    public Latency getDownload() {
+        return mDownload;
+    }
+
+    /**
+     * the latency of each stage interval of delivered image load requests by interval name:<br>
+     * dispatch_wait - main thread request to dispatcher handling<br>
+     * disk_wait - waiting for disk cache read thread<br>
+     * disk_read - disk cache read including decode<br>
+     * download_wait - waiting for download thread<br>
+     * download_ttfb - download start to response headers received<br>
+     * download_transfer - response headers received to download finished<br>
+     * decode - decode of image file to bitmap<br>
+     * delivery_wait - loaded image waiting for main thread delivery<br>
+     * total - main thread request to main thread delivery
+     */
+    public Map<String, Latency> getStages() {
+        return mStages;
+    }
+
+    /**
+     * the total number of bytes downloaded
+     */
+    public long getDownloadedBytes() {
+        return mDownloadedBytes;
+    }
+
+    /**
+     * the number of downloaded or cached image files rejected as invalid by reject reason:<br>
+     * magic - downloaded content is not an image by its first bytes (error page, captive portal)<br>
+     * truncated - downloaded content is shorter than the response Content-Length<br>
+     * bounds - downloaded content failed bounds-only decode<br>
+     * decode - disk cached file failed to decode, removed from the cache
+     */
+    public Map<String, Long> getRejections() {
+        return mRejections;
+    }
+
+    /**
+     * the number of requests currently loading
+     */
+    public int getLoadingRequests() {
+        return mLoadingRequests;
+    }
+
+    /**
+     * the number of requests currently held paused
+     */
+    public int getPausedRequests() {
+        return mPausedRequests;
+    }
+
+    /**
+     * the number of loaded images waiting to be delivered to targets on main thread
+     */
+    public int getPendingDeliveries() {
+        return mPendingDeliveries;
+    }
+
+    /**
+     * the number of disk cache reads waiting to execute, -1 if not available
+     */
+    public int getDiskQueue() {
+        return mDiskQueue;
+    }
+
+    /**
+     * the number of downloads waiting to execute, -1 if not available
+     */
+    public int getDownloadQueue() {
+        return mDownloadQueue;
+    }
+
+    /**
+     * the total bytes of the bitmaps in memory pool, -1 if not available
+     */
+    public long getPoolBytes() {
+        return mPoolBytes;
+    }
+
+    /**
+     * the bytes of the bitmaps in memory pool that are currently in use, -1 if not available
+     */
+    public long getPoolInUseBytes() {
+        return mPoolInUseBytes;
+    }
+
+    /**
+     * the bytes of the disk cache, -1 if not available
+     */
+    public long getDiskCacheBytes() {
+        return mDiskCacheBytes;
+    }
+
+    @Override
+    public String toString() {
+        return "MetricsSnapshot{" +
+                "mSpecs=" + mSpecs +
+                ", mDecode=" + mDecode +
+                ", mDownload=" + mDownload +
+                ", mStages=" + mStages +
+                ", mDownloadedBytes=" + mDownloadedBytes +
+                ", mRejections=" + mRejections +
+                ", mLoadingRequests=" + mLoadingRequests +
+                ", mPausedRequests=" + mPausedRequests +
+                ", mPendingDeliveries=" + mPendingDeliveries +
+                ", mDiskQueue=" + mDiskQueue +
+                ", mDownloadQueue=" + mDownloadQueue +
+                ", mPoolBytes=" + mPoolBytes +
+                ", mPoolInUseBytes=" + mPoolInUseBytes +
+                ", mDiskCacheBytes=" + mDiskCacheBytes +
+                '}';
+    }
+
+    //region: Inner class: SpecStats
+
+    /**
+     * The cache tiers stats of a single spec.
+     */
+    public static final class SpecStats {
+
+        private final long mMemoryHits;
+
+        private final long mMemoryAltHits;
+
+        private final long mMemoryMisses;
+
+        private final long mDiskHits;
+
+        private final long mDiskAltHits;
+
+        private final long mDiskMisses;
+
+        private final long mNetworkLoads;
+
+        private final long mNetworkFailures;
+
+        private final long mNegativeCacheHits;
+
+        /**
+         * Used internally to create the snapshot.
+         */
+        public SpecStats(long memoryHits, long memoryAltHits, long memoryMisses, long diskHits, long diskAltHits,
+                         long diskMisses, long networkLoads, long networkFailures, long negativeCacheHits) {
+            mMemoryHits = memoryHits;
+            mMemoryAltHits = memoryAltHits;
+            mMemoryMisses = memoryMisses;
+            mDiskHits = diskHits;
+            mDiskAltHits = diskAltHits;
+            mDiskMisses = diskMisses;
+            mNetworkLoads = networkLoads;
+            mNetworkFailures = networkFailures;
+            mNegativeCacheHits = negativeCacheHits;
+        }
+
+        /**
+         * the number of image loads found in memory cache by the primary spec
+         */
+        public long getMemoryHits() {
+            return mMemoryHits;
+        }
+
+        /**
+         * the number of image loads found in memory cache only by the alternative spec
+         */
+        public long getMemoryAltHits() {
+            return mMemoryAltHits;
+        }
+
+        /**
+         * the number of image loads not found in memory cache
+         */
+        public long getMemoryMisses() {
+            return mMemoryMisses;
+        }
+
+        /**
+         * the number of image loads found in disk cache by the primary spec
+         */
+        public long getDiskHits() {
+            return mDiskHits;
+        }
+
+        /**
+         * the number of image loads found in disk cache only by the alternative spec
+         */
+        public long getDiskAltHits() {
+            return mDiskAltHits;
+        }
+
+        /**
+         * the number of image loads not found in disk cache, requested from network
+         */
+        public long getDiskMisses() {
+            return mDiskMisses;
+        }
+
+        /**
+         * the number of image loads loaded from network
+         */
+        public long getNetworkLoads() {
+            return mNetworkLoads;
+        }
+
+        /**
+         * the number of image loads failed to load from network
+         */
+        public long getNetworkFailures() {
+            return mNetworkFailures;
+        }
+
+        /**
+         * the number of image loads failed fast as the image recently failed to load
+         */
+        public long getNegativeCacheHits() {
+            return mNegativeCacheHits;
+        }
+
+        /**
+         * the ratio of image loads found in memory cache by the primary spec, 0 if no loads
+         */
+        public float getMemoryHitRate() {
+            long total = mMemoryHits + mMemoryAltHits + mMemoryMisses;
+            return total > 0 ? mMemoryHits / (float) total : 0;
+        }
+
+        /**
+         * the ratio of image loads that reached disk cache and found there by the primary spec, 0 if no loads
+         */
+        public float getDiskHitRate() {
+            long total = mDiskHits + mDiskAltHits + mDiskMisses;
+            return total > 0 ? mDiskHits / (float) total : 0;
+        }
+
+        @Override
+        public String toString() {
+            return "SpecStats{" +
+                    "mMemoryHits=" + mMemoryHits +
+                    ", mMemoryAltHits=" + mMemoryAltHits +
+                    ", mMemoryMisses=" + mMemoryMisses +
+                    ", mDiskHits=" + mDiskHits +
+                    ", mDiskAltHits=" + mDiskAltHits +
+                    ", mDiskMisses=" + mDiskMisses +
+                    ", mNetworkLoads=" + mNetworkLoads +
+                    ", mNetworkFailures=" + mNetworkFailures +
+                    ", mNegativeCacheHits=" + mNegativeCacheHits +
+                    '}';
+        }
+    }
+    //endregion
+
+    //region: Inner class: Latency
+
+    /**
+     * Latency distribution, values are in microseconds resolved to power of 2 buckets upper bound.
+     */
+    public static final class Latency {
+
+        private final long mCount;
+
+        private final long mMean;
+
+        private final long mP50;
+
+        private final long mP90;
+
+        private final long mP99;
+
+        private final long mMax;
+
+        /**
+         * Used internally to create the snapshot.
+         */
+        public Latency(long count, long mean, long p50, long p90, long p99, long max) {
+            mCount = count;
+            mMean = mean;
+            mP50 = p50;
+            mP90 = p90;
+            mP99 = p99;
+            mMax = max;
+        }
+
+        /**
+         * the number of recorded latencies
+         */
+        public long getCount() {
+            return mCount;
+        }
+
+        /**
+         * the mean latency in microseconds
+         */
+        public long getMean() {
+            return mMean;
+        }
+
+        /**
+         * the median latency in microseconds
+         */
+        public long getP50() {
+            return mP50;
+        }
+
+        /**
+         * the 90th percentile latency in microseconds
+         */
+        public long getP90() {
+            return mP90;
+        }
+
+        /**
+         * the 99th percentile latency in microseconds
+         */
+        public long getP99() {
+            return mP99;
+        }
+
+        /**
+         * the max latency in microseconds
+         */
+        public long getMax() {
+            return mMax;
+        }
+
+        @Override
+        public String toString() {
+            return "Latency{" +
+                    "mCount=" + mCount +
+                    ", mMean=" + mMean +
+                    ", mP50=" + mP50 +
+                    ", mP90=" + mP90 +
+                    ", mP99=" + mP99 +
+                    ", mMax=" + mMax +
+                    '}';
+        }
+    }
+    //endregion
+}
@@ -0,0 +1,27 @@
+// "Therefore those skilled at the unorthodox
+// are infinite as heaven and earth,
+// inexhaustible as the great rivers.
+// When they come to an end,
+// they begin again,
+// like the days and months;
+// they die and are reborn,
+// like the four seasons."
+//
+// - Sun Tsu,
+// "The Art of War"
+
+package com.theartofdev.fastimageloader;
+
+/**
+ * Describes how far the image is prefetched.
+ */
+public enum PrefetchLevel {
+    /**
+     * Download the image to disk cache only, the image is decoded when it is loaded to target.
+     */
+    DISK,
+    /**
+     * Download the image to disk cache and decode it into memory cache, kept warm within the prefetch memory budget.
+     */
+    MEMORY
+}
@@ -129,6 +129,13 @@ public class ReusableBitmap {
         mInUse.decrementAndGet();
     }
 
+    /**
+     * Is the bitmap is currently in use by loading, not real use.
+     */
+    public boolean isInLoadUse() {
+        return mInLoadUse;
+    }
+
     /**
      * Is the bitmap is currently in use by loading, not real use.
      */
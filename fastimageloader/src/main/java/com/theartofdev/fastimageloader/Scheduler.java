@@ -0,0 +1,73 @@
+// "Therefore those skilled at the unorthodox
+// are infinite as heaven and earth,
+// inexhaustible as the great rivers.
+// When they come to an end,
+// they begin again,
+// like the days and months;
+// they die and are reborn,
+// like the four seasons."
+//
+// - Sun Tsu,
+// "The Art of War"
+
+package com.theartofdev.fastimageloader;
+
+import java.util.concurrent.Executor;
+
+/**
+ * Provides the executors for all the image loader background work, allowing a single place to control the
+ * threads used by the loader: pool sizes per device class, sharing threads with the app own executors,
+ * observing utilization, or deterministic execution in tests.<br>
+ * The dispatcher thread that orchestrates the requests is not part of the scheduler as it requires a looper.
+ */
+public interface Scheduler {
+
+    /**
+     * Get the executor for the given type of work.
+     */
+    Executor getExecutor(Pool pool);
+
+    /**
+     * The number of tasks waiting to execute in the given pool, -1 if unknown.
+     */
+    int getQueueSize(Pool pool);
+
+    /**
+     * The number of tasks currently executing in the given pool, -1 if unknown.
+     */
+    int getActiveCount(Pool pool);
+
+    //region: Inner class: Pool
+
+    /**
+     * The types of background work of the image loader.
+     */
+    enum Pool {
+
+        /**
+         * Disk cache reads and decoding of cached images
+         */
+        DISK,
+
+        /**
+         * CPU bound image work (downscale of cached variants)
+         */
+        DECODE,
+
+        /**
+         * Image downloads and decoding of downloaded images
+         */
+        NETWORK,
+
+        /**
+         * Prefetch image downloads, kept separate so prefetch doesn't delay images required for display
+         */
+        PREFETCH,
+
+        /**
+         * Disk cache scan and cleanup, batch prefetch cache presence checks
+         */
+        MAINTENANCE,
+    }
+    //endregion
+}
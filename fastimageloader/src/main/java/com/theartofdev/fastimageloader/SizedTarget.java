@@ -0,0 +1,31 @@
+// "Therefore those skilled at the unorthodox
+// are infinite as heaven and earth,
+// inexhaustible as the great rivers.
+// When they come to an end,
+// they begin again,
+// like the days and months;
+// they die and are reborn,
+// like the four seasons."
+//
+// - Sun Tsu,
+// "The Art of War"
+
+package com.theartofdev.fastimageloader;
+
+/**
+ * Target that reports its measured size, used to select the image size for auto-size specs by mapping the measured
+ * size to one of the spec size buckets.<br>
+ * See {@link ImageLoadSpecBuilder#setAutoDimension(int...)}.
+ */
+public interface SizedTarget extends Target {
+
+    /**
+     * The measured width of the target in pixels, 0 if not measured yet.
+     */
+    int getTargetWidth();
+
+    /**
+     * The measured height of the target in pixels, 0 if not measured yet.
+     */
+    int getTargetHeight();
+}
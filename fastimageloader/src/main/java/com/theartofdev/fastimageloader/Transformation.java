@@ -0,0 +1,41 @@
+// "Therefore those skilled at the unorthodox
+// are infinite as heaven and earth,
+// inexhaustible as the great rivers.
+// When they come to an end,
+// they begin again,
+// like the days and months;
+// they die and are reborn,
+// like the four seasons."
+//
+// - Sun Tsu,
+// "The Art of War"
+
+package com.theartofdev.fastimageloader;
+
+import android.graphics.Bitmap;
+
+/**
+ * Transformation applied on the image once on decode (circle crop, rounded corners, blur, etc.).<br>
+ * The transformed image is stored in memory cache and in disk cache under a key that includes the
+ * transformation key, so expensive transformations run once per image instead of on every draw or load.<br>
+ * Set on spec using {@link ImageLoadSpecBuilder#setTransformation(Transformation)}.
+ */
+public interface Transformation {
+
+    /**
+     * The unique key of the transformation and its parameters, used in disk cache file name.<br>
+     * Must contain only file name safe characters.
+     */
+    String getKey();
+
+    /**
+     * Transform the given source image into the given target bitmap.<br>
+     * The target bitmap has the same size and config as the source, is taken from the reuse pool so it must
+     * be fully drawn (clear it if needed).<br>
+     * Executed on disk/download thread.
+     *
+     * @param source the decoded image to transform, must not be changed
+     * @param target the bitmap to draw the transformed image into
+     */
+    void transform(Bitmap source, Bitmap target);
+}
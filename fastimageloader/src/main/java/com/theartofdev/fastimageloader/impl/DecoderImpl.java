@@ -14,12 +14,19 @@ package com.theartofdev.fastimageloader.impl;
 
 import android.graphics.Bitmap;
 import android.graphics.BitmapFactory;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.util.Base64;
 
 import com.theartofdev.fastimageloader.Decoder;
 import com.theartofdev.fastimageloader.ImageLoadSpec;
 import com.theartofdev.fastimageloader.MemoryPool;
 import com.theartofdev.fastimageloader.ReusableBitmap;
+import com.theartofdev.fastimageloader.impl.util.BlurHash;
 import com.theartofdev.fastimageloader.impl.util.FILLogger;
+import com.theartofdev.fastimageloader.impl.util.FILUtils;
 
 import java.io.File;
 
@@ -34,22 +41,65 @@ public class DecoderImpl implements Decoder {
      * Used to reuse bitmaps on image loading from disk.
      */
     private final BitmapFactory.Options[] mOptions = new BitmapFactory.Options[2];
+
+    /**
+     * Used to draw thumbnail preview scaled to the preview spec dimensions.
+     */
+    private final Paint mPaint = new Paint(Paint.FILTER_BITMAP_FLAG);
+
+    /**
+     * Used to reuse pixels array on blur hash preview decoding.
+     */
+    private int[] mPreviewPixels;
     //endregion
 
     @Override
     public void decode(MemoryPool memoryPool, ImageRequest imageRequest, File file, ImageLoadSpec spec) {
+        // if the transformed image is cached on disk use it, no need to transform again
+        File transformedFile = FILUtils.getTransformedFile(file, spec);
+        boolean transformed = transformedFile != null && transformedFile.exists();
+
         ReusableBitmap poolBitmap = memoryPool.getUnused(spec);
 
-        FILLogger.debug("Decode image from disk... [{}] [{}]", imageRequest, poolBitmap);
-        ReusableBitmap decodedBitmap = decode(file, spec, poolBitmap);
+        FILLogger.debug("Decode image from disk... [{}] [{}] [Transformed: {}]", imageRequest, poolBitmap, transformed);
+        ReusableBitmap decodedBitmap = decode(transformed ? transformedFile : file, spec, poolBitmap);
+        if (decodedBitmap == null && transformed) {
+            FILLogger.warn("Failed to decode transformed image, decode original... [{}]", transformedFile);
+            FILUtils.deleteSafe(transformedFile);
+            transformed = false;
+            decodedBitmap = decode(file, spec, poolBitmap);
+        }
+
+        if (poolBitmap != null && poolBitmap != decodedBitmap) {
+            memoryPool.returnUnused(poolBitmap);
+        }
+
+        if (decodedBitmap != null && transformedFile != null && !transformed) {
+            decodedBitmap = transform(memoryPool, decodedBitmap, spec, transformedFile);
+            if (transformedFile.exists()) {
+                // the disk cache adds it to the cache size, see DiskCache#imageAdded
+                imageRequest.setTransformedFileSize(imageRequest.getTransformedFileSize() + transformedFile.length());
+            }
+        }
 
         if (decodedBitmap != null) {
             imageRequest.setBitmap(decodedBitmap);
         }
+    }
+
+    @Override
+    public ReusableBitmap decodePreview(MemoryPool memoryPool, String preview, ImageLoadSpec spec) {
+        ReusableBitmap poolBitmap = memoryPool.getUnused(spec);
+
+        FILLogger.debug("Decode image preview... [{}] [{}]", spec, poolBitmap);
+        ReusableBitmap decodedBitmap = preview.startsWith("data:")
+                ? decodeThumbnail(preview, spec, poolBitmap)
+                : decodeBlurHash(preview, spec, poolBitmap);
 
         if (poolBitmap != null && poolBitmap != decodedBitmap) {
             memoryPool.returnUnused(poolBitmap);
         }
+        return decodedBitmap;
     }
 
     /**
@@ -86,6 +136,124 @@ public class DecoderImpl implements Decoder {
         return null;
     }
 
+    /**
+     * Apply the spec transformation on the given decoded image into reusable bitmap from the pool and cache the
+     * transformed image on disk so it won't be transformed again.<br>
+     * The source bitmap is returned to the pool for reuse.
+     *
+     * @return the transformed image, or the source if transformation failed
+     */
+    protected ReusableBitmap transform(MemoryPool memoryPool, ReusableBitmap source, ImageLoadSpec spec, File transformedFile) {
+        Bitmap sourceBitmap = source.getBitmap();
+        int width = sourceBitmap.getWidth();
+        int height = sourceBitmap.getHeight();
+        Bitmap.Config config = sourceBitmap.getConfig() != null ? sourceBitmap.getConfig() : spec.getPixelConfig();
+
+        ReusableBitmap target = memoryPool.getUnused(spec);
+        if (target != null && (target.getBitmap().getWidth() != width || target.getBitmap().getHeight() != height || target.getBitmap().getConfig() != config)) {
+            memoryPool.returnUnused(target);
+            target = null;
+        }
+
+        try {
+            if (target == null) {
+                FILLogger.debug("Create new reusable bitmap for transformation... [{}]", spec);
+                target = new ReusableBitmap(Bitmap.createBitmap(width, height, config), spec);
+            }
+            spec.getTransformation().transform(sourceBitmap, target.getBitmap());
+        } catch (Throwable e) {
+            FILLogger.warn("Failed to transform image [{}] [{}]", e, spec, spec.getTransformation());
+            if (target != null) {
+                memoryPool.returnUnused(target);
+            }
+            return source;
+        }
+
+        // the source content is no longer of any image
+        source.setUrl(null);
+        memoryPool.returnUnused(source);
+
+        writeTransformed(target.getBitmap(), transformedFile);
+        return target;
+    }
+
+    /**
+     * Write the given transformed image to the given disk cache file, PNG if it has alpha to keep transparency.
+     */
+    protected void writeTransformed(Bitmap bitmap, File file) {
+        FILUtils.writeBitmap(bitmap, file, bitmap.hasAlpha() ? Bitmap.CompressFormat.PNG : Bitmap.CompressFormat.JPEG);
+    }
+
+    /**
+     * Decode base64 thumbnail given as data URI (data:image/jpeg;base64,...) into reusable bitmap.<br>
+     * The thumbnail is decoded at its own size and drawn scaled into the pool bitmap or new bitmap of the preview
+     * spec dimensions, so bitmaps of the preview spec in the pool always have the spec dimensions.
+     */
+    protected ReusableBitmap decodeThumbnail(String preview, ImageLoadSpec spec, ReusableBitmap poolBitmap) {
+        Bitmap thumbnail = null;
+        BitmapFactory.Options options = getOptions();
+        try {
+            byte[] data = Base64.decode(preview.substring(preview.indexOf(',') + 1), Base64.DEFAULT);
+
+            options.inBitmap = null;
+            options.inPreferredConfig = spec.getPixelConfig();
+
+            thumbnail = BitmapFactory.decodeByteArray(data, 0, data.length, options);
+            if (thumbnail != null) {
+                if (poolBitmap == null && thumbnail.getWidth() == spec.getWidth() && thumbnail.getHeight() == spec.getHeight()) {
+                    Bitmap bitmap = thumbnail;
+                    thumbnail = null;
+                    return new ReusableBitmap(bitmap, spec);
+                }
+
+                Bitmap bitmap;
+                if (poolBitmap != null) {
+                    bitmap = poolBitmap.getBitmap();
+                    bitmap.eraseColor(Color.TRANSPARENT);
+                } else {
+                    bitmap = Bitmap.createBitmap(spec.getWidth(), spec.getHeight(), spec.getPixelConfig());
+                }
+                Rect dst = new Rect(0, 0, bitmap.getWidth(), bitmap.getHeight());
+                new Canvas(bitmap).drawBitmap(thumbnail, null, dst, mPaint);
+                return poolBitmap != null ? poolBitmap : new ReusableBitmap(bitmap, spec);
+            }
+        } catch (Throwable e) {
+            FILLogger.warn("Failed to decode image preview thumbnail [{}] [{}]", e, spec, poolBitmap);
+        } finally {
+            returnOptions(options);
+            if (thumbnail != null) {
+                thumbnail.recycle();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Decode blur hash string into reusable bitmap, using the pool bitmap dimensions if given.
+     */
+    protected ReusableBitmap decodeBlurHash(String preview, ImageLoadSpec spec, ReusableBitmap poolBitmap) {
+        try {
+            Bitmap bitmap = poolBitmap != null
+                    ? poolBitmap.getBitmap()
+                    : Bitmap.createBitmap(spec.getWidth(), spec.getHeight(), spec.getPixelConfig());
+
+            int width = bitmap.getWidth();
+            int height = bitmap.getHeight();
+            synchronized (this) {
+                if (mPreviewPixels == null || mPreviewPixels.length < width * height) {
+                    mPreviewPixels = new int[width * height];
+                }
+                BlurHash.decode(preview, width, height, mPreviewPixels);
+                bitmap.setPixels(mPreviewPixels, 0, width, 0, 0, width, height);
+            }
+
+            return poolBitmap != null ? poolBitmap : new ReusableBitmap(bitmap, spec);
+        } catch (Throwable e) {
+            FILLogger.warn("Failed to decode image preview blur hash [{}] [{}] [{}]", e, preview, spec, poolBitmap);
+        }
+        return null;
+    }
+
     /**
      * Get options to be used for decoding, use existing if possible.
      */
@@ -0,0 +1,167 @@
+// "Therefore those skilled at the unorthodox
+// are infinite as heaven and earth,
+// inexhaustible as the great rivers.
+// When they come to an end,
+// they begin again,
+// like the days and months;
+// they die and are reborn,
+// like the four seasons."
+//
+// - Sun Tsu,
+// "The Art of War"
+
+package com.theartofdev.fastimageloader.impl;
+
+import android.annotation.TargetApi;
+import android.os.Build;
+import android.os.Handler;
+import android.view.Choreographer;
+
+import com.theartofdev.fastimageloader.impl.util.FILLogger;
+
+import java.util.ArrayDeque;
+
+/**
+ * Queue of image load results to deliver to targets on the main thread.<br>
+ * Results are coalesced and delivered once per frame using {@link Choreographer}, so a burst of
+ * loaded images results in a single main thread pass instead of many separate messages.<br>
+ * Delivery can be capped per frame, the remaining results are delivered on the next frames.<br>
+ * On pre-JellyBean devices results are delivered in a single main thread handler message.
+ */
+public final class DeliveryQueue implements Runnable {
+
+    //region: Fields and Consts
+
+    /**
+     * The pending deliveries to execute on main thread
+     */
+    private final ArrayDeque<Runnable> mPending = new ArrayDeque<>();
+
+    /**
+     * Used to post execution to main thread on pre-JellyBean devices.
+     */
+    private final Handler mHandler;
+
+    /**
+     * The max number of deliveries to execute per frame, 0 - unlimited
+     */
+    private final int mMaxPerFrame;
+
+    /**
+     * The main thread choreographer frame callback (JellyBean+)
+     */
+    private FrameCallback mFrameCallback;
+
+    /**
+     * Is delivery currently scheduled for the next frame
+     */
+    private boolean mScheduled;
+    //endregion
+
+    /**
+     * Must be created on the main thread.
+     *
+     * @param handler Used to post execution to main thread
+     * @param maxPerFrame the max number of deliveries to execute per frame, 0 - unlimited
+     */
+    public DeliveryQueue(Handler handler, int maxPerFrame) {
+        mHandler = handler;
+        mMaxPerFrame = maxPerFrame;
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+            mFrameCallback = new FrameCallback();
+        }
+    }
+
+    /**
+     * Add the given delivery to execute on the main thread on the next frame.<br>
+     * Thread safe, can be called from any thread.
+     */
+    public void add(Runnable delivery) {
+        boolean schedule;
+        synchronized (mPending) {
+            mPending.add(delivery);
+            schedule = !mScheduled;
+            mScheduled = true;
+        }
+        if (schedule) {
+            schedule();
+        }
+    }
+
+    /**
+     * The number of deliveries waiting to be executed.
+     */
+    public int size() {
+        synchronized (mPending) {
+            return mPending.size();
+        }
+    }
+
+    /**
+     * Execute pending deliveries, up to the max per frame, schedule next frame if some remain.<br>
+     * Executed on main thread.
+     */
+    @Override
+    public void run() {
+        int count = 0;
+        while (mMaxPerFrame < 1 || count < mMaxPerFrame) {
+            Runnable delivery;
+            synchronized (mPending) {
+                delivery = mPending.poll();
+                if (delivery == null) {
+                    mScheduled = false;
+                    return;
+                }
+            }
+            try {
+                delivery.run();
+            } catch (Exception e) {
+                FILLogger.critical("Error in image load delivery", e);
+            }
+            count++;
+        }
+        FILLogger.debug("Image delivery frame cap reached, continue on next frame... [{}]", count);
+        schedule();
+    }
+
+    //region: Private methods
+
+    /**
+     * Schedule delivery on next frame, or next main thread message for pre-JellyBean.
+     */
+    private void schedule() {
+        if (mFrameCallback != null) {
+            mFrameCallback.post();
+        } else {
+            mHandler.post(this);
+        }
+    }
+    //endregion
+
+    //region: Inner class: FrameCallback
+
+    /**
+     * Execute the deliveries on main thread choreographer frame.
+     */
+    @TargetApi(Build.VERSION_CODES.JELLY_BEAN)
+    private final class FrameCallback implements Choreographer.FrameCallback {
+
+        /**
+         * The main thread choreographer, must be kept as choreographer instance is per thread
+         */
+        private final Choreographer mChoreographer = Choreographer.getInstance();
+
+        /**
+         * Post this callback to be executed on the next frame, can be called from any thread.
+         */
+        public void post() {
+            mChoreographer.postFrameCallback(this);
+        }
+
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            run();
+        }
+    }
+    //endregion
+}
@@ -20,19 +20,36 @@ import android.text.format.DateUtils;
 import com.theartofdev.fastimageloader.Decoder;
 import com.theartofdev.fastimageloader.ImageLoadSpec;
 import com.theartofdev.fastimageloader.MemoryPool;
+import com.theartofdev.fastimageloader.ReusableBitmap;
+import com.theartofdev.fastimageloader.Scheduler;
 import com.theartofdev.fastimageloader.impl.util.FILLogger;
+import com.theartofdev.fastimageloader.impl.util.FILMetrics;
 import com.theartofdev.fastimageloader.impl.util.FILUtils;
 
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
 import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
 import java.text.NumberFormat;
-import java.util.Arrays;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Comparator;
-import java.util.concurrent.LinkedBlockingQueue;
-import java.util.concurrent.ThreadPoolExecutor;
-import java.util.concurrent.TimeUnit;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Disk cache for image handler.<br>
+ * Images are deleted when not used for the cache TTL, or the spec {@link ImageLoadSpec.DiskCachePolicy} TTL, or
+ * when expired by the server Cache-Control max-age if the spec honors it. When the cache max size or a spec quota is
+ * reached the images closest to their expiration are deleted first, for images with the default TTL it is LRU.<br>
+ * The spec policy and server expiration of cached images are kept in an index file in the cache folder.
  */
 public class DiskCacheImpl implements com.theartofdev.fastimageloader.DiskCache {
 
@@ -48,6 +65,11 @@ public class DiskCacheImpl implements com.theartofdev.fastimageloader.DiskCache
      */
     protected static final String STATS_CACHE_SIZE = "DiskImageCache_size";
 
+    /**
+     * The name of the file in the cache folder to persist the cached images policy index
+     */
+    protected static final String INDEX_FILE = ".index";
+
     /**
      * The max size of the cache (50MB)
      */
@@ -81,12 +103,22 @@ public class DiskCacheImpl implements com.theartofdev.fastimageloader.DiskCache
     /**
      * Threads service for all read operations.
      */
-    protected final ThreadPoolExecutor mReadExecutorService;
+    protected final Executor mReadExecutor;
 
     /**
      * Threads service for scan of cached folder operation.
      */
-    protected final ThreadPoolExecutor mScanExecutorService;
+    protected final Executor mScanExecutor;
+
+    /**
+     * The spec policy and server expiration of cached images that don't use the cache defaults, by file name
+     */
+    protected final ConcurrentHashMap<String, CacheEntry> mIndex = new ConcurrentHashMap<>();
+
+    /**
+     * if save of the index is scheduled and not executed yet
+     */
+    private final AtomicBoolean mIndexSaveScheduled = new AtomicBoolean();
 
     /**
      * The time of the last cache check
@@ -104,10 +136,12 @@ public class DiskCacheImpl implements com.theartofdev.fastimageloader.DiskCache
      * @param cacheFolder the folder to keep the cached image data
      * @param maxSize the max size of the disk cache in bytes
      * @param cacheTtl the max time a cached image remains in cache without use before deletion
+     * @param scheduler provides the executors for disk reads and cache scan
      */
-    public DiskCacheImpl(Context context, File cacheFolder, long maxSize, long cacheTtl) {
+    public DiskCacheImpl(Context context, File cacheFolder, long maxSize, long cacheTtl, Scheduler scheduler) {
         FILUtils.notNull(context, "context");
         FILUtils.notNull(cacheFolder, "cacheFolder");
+        FILUtils.notNull(scheduler, "scheduler");
 
         mContext = context;
         mCacheFolder = cacheFolder;
@@ -118,11 +152,15 @@ public class DiskCacheImpl implements com.theartofdev.fastimageloader.DiskCache
         //noinspection ResultOfMethodCallIgnored
         mCacheFolder.mkdirs();
 
-        mReadExecutorService = new ThreadPoolExecutor(0, 1, 60, TimeUnit.SECONDS,
-                new LinkedBlockingQueue<Runnable>(), FILUtils.threadFactory("ImageCacheRead", true));
+        mReadExecutor = scheduler.getExecutor(Scheduler.Pool.DISK);
+        mScanExecutor = scheduler.getExecutor(Scheduler.Pool.MAINTENANCE);
 
-        mScanExecutorService = new ThreadPoolExecutor(0, 1, 10, TimeUnit.SECONDS,
-                new LinkedBlockingQueue<Runnable>(), FILUtils.threadFactory("ImageCacheScan", true));
+        mScanExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                loadIndex();
+            }
+        });
     }
 
     @Override
@@ -147,7 +185,16 @@ public class DiskCacheImpl implements com.theartofdev.fastimageloader.DiskCache
                          final Callback callback) {
 
         File altFile = null;
-        boolean exists = imageRequest.getFile().exists();
+        final File transformedFile = FILUtils.getTransformedFile(imageRequest.getFile(), imageRequest.getSpec());
+        boolean exists = imageRequest.getFile().exists() || (transformedFile != null && transformedFile.exists());
+        final boolean expired = exists && isExpired(imageRequest.getFile().getName());
+        if (expired) {
+            // expired by server Cache-Control, delete on read thread before continuing so it will be downloaded again
+            FILLogger.debug("Disk cached image expired, delete... [{}]", imageRequest);
+            mIndex.remove(imageRequest.getFile().getName());
+            scheduleSaveIndex();
+            exists = false;
+        }
         if (!exists && altSpec != null) {
             // if primary spec file doesn't exist in cache but alternative does, load it
             altFile = getCacheFile(imageRequest.getUri(), altSpec);
@@ -157,33 +204,53 @@ public class DiskCacheImpl implements com.theartofdev.fastimageloader.DiskCache
             // use the primary or the alternative file and spec to decode the image
             final File file = exists ? imageRequest.getFile() : altFile;
             final ImageLoadSpec spec = exists ? imageRequest.getSpec() : altSpec;
-            mReadExecutorService.execute(new Runnable() {
+            imageRequest.markStage(FILMetrics.STAGE_DISK_QUEUED);
+            imageRequest.getEventListener().diskQueued();
+            mReadExecutor.execute(new Runnable() {
                 @Override
                 public void run() {
+                    if (expired) {
+                        deleteExpired(imageRequest.getFile(), transformedFile);
+                    }
                     loadImageFromCache(imageRequest, file, spec, decoder, memoryPool, callback);
                 }
             });
+        } else if (expired) {
+            mReadExecutor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    deleteExpired(imageRequest.getFile(), transformedFile);
+                    callback.loadImageDiskCacheCallback(imageRequest, false);
+                }
+            });
         } else {
             callback.loadImageDiskCacheCallback(imageRequest, false);
         }
     }
 
     @Override
-    public void imageAdded(long size) {
-        mCurrentCacheSize += size;
+    public void imageAdded(ImageRequest imageRequest) {
+        String name = imageRequest.getFile().getName();
+        ImageLoadSpec.DiskCachePolicy policy = imageRequest.getSpec().getDiskCachePolicy();
+        if (policy != null || imageRequest.getCacheExpires() > 0) {
+            mIndex.put(name, policy != null
+                    ? new CacheEntry(policy.getKey(), policy.getTtl(), policy.getQuota(), imageRequest.getCacheExpires())
+                    : new CacheEntry(null, 0, 0, imageRequest.getCacheExpires()));
+            scheduleSaveIndex();
+        } else if (mIndex.remove(name) != null) {
+            scheduleSaveIndex();
+        }
+
+        mCurrentCacheSize += imageRequest.getFileSize();
+        addTransformedFileSize(imageRequest);
         if (mLastCacheScanTime < 1 || mLastCacheScanTime + SCAN_INTERVAL < System.currentTimeMillis() || mCurrentCacheSize > mMaxSize) {
-            mScanExecutorService.execute(new Runnable() {
-                @Override
-                public void run() {
-                    scanCache();
-                }
-            });
+            scheduleScanCache();
         }
     }
 
     @Override
     public void clear() {
-        mReadExecutorService.execute(new Runnable() {
+        mReadExecutor.execute(new Runnable() {
             @Override
             public void run() {
                 clearCache();
@@ -191,6 +258,13 @@ public class DiskCacheImpl implements com.theartofdev.fastimageloader.DiskCache
         });
     }
 
+    /**
+     * The current size of the disk cache in bytes, as of the last scan and added images.
+     */
+    public long getCacheSize() {
+        return mCurrentCacheSize;
+    }
+
     /**
      * Populate the given string builder with report on cache status.
      */
@@ -199,6 +273,7 @@ public class DiskCacheImpl implements com.theartofdev.fastimageloader.DiskCache
         if (mLastCacheScanTime > 0) {
             sb.append("Size: ").append(NumberFormat.getInstance().format(mCurrentCacheSize / 1024)).append("K\n");
             sb.append("Since Last Scan: ").append(NumberFormat.getInstance().format((System.currentTimeMillis() - mLastCacheScanTime) / 1000 / 60)).append(" Minutes\n");
+            sb.append("Policy Entries: ").append(mIndex.size()).append('\n');
         } else {
             sb.append("Not scanned");
         }
@@ -209,13 +284,27 @@ public class DiskCacheImpl implements com.theartofdev.fastimageloader.DiskCache
         return "ImageDiskCache{" +
                 "mLastCacheScanTime=" + mLastCacheScanTime +
                 ", mCurrentCacheSize=" + mCurrentCacheSize +
+                ", mIndex=" + mIndex.size() +
                 '}';
     }
 
     //region: Private methods
 
+    /**
+     * Delete the given expired cache file and its transformed file.<br>
+     * Executed on read thread.
+     *
+     * @param transformedFile optional: the transformed file of the cache file
+     */
+    private void deleteExpired(File file, File transformedFile) {
+        FILUtils.deleteSafe(file);
+        FILUtils.deleteSafe(transformedFile);
+    }
+
     /**
      * Load the given cached image file into reusable bitmap, post result on given callback.<br>
+     * If the file failed to decode and its header is corrupted (not just out of memory) it is removed from the
+     * cache so the image is downloaded again instead of failing on every load.<br>
      * This method is executed on a dedicated separate thread.
      */
     protected void loadImageFromCache(ImageRequest imageRequest,
@@ -225,17 +314,65 @@ public class DiskCacheImpl implements com.theartofdev.fastimageloader.DiskCache
                                       MemoryPool memoryPool,
                                       Callback callback) {
 
+        imageRequest.markStage(FILMetrics.STAGE_DISK_START);
         final boolean canceled = !imageRequest.isValid();
         if (!canceled) {
             //noinspection ResultOfMethodCallIgnored
             file.setLastModified(System.currentTimeMillis());
+            long start = System.nanoTime();
+            imageRequest.markStage(FILMetrics.STAGE_DECODE_START, start);
+            imageRequest.getEventListener().decodeStart();
+            // the request may already have the alternative spec bitmap, check the result of this decode
+            ReusableBitmap prevBitmap = imageRequest.getBitmap();
             decoder.decode(memoryPool, imageRequest, file, spec);
+            ReusableBitmap bitmap = imageRequest.getBitmap();
+            boolean decoded = bitmap != null && bitmap != prevBitmap && bitmap.getSpec() == spec;
+            if (addTransformedFileSize(imageRequest) && mCurrentCacheSize > mMaxSize) {
+                scheduleScanCache();
+            }
+            imageRequest.markStage(FILMetrics.STAGE_DECODE_END);
+            imageRequest.getEventListener().decodeEnd(decoded);
+            FILMetrics.mDecode.recordSince(start);
+            if (!decoded && !FILUtils.isImageBounds(file)) {
+                FILLogger.warn("Cached image file is corrupted, removed from cache [{}]", file);
+                FILMetrics.reject(FILMetrics.REJECT_DECODE);
+                FILUtils.deleteSafe(file);
+            }
         }
+        imageRequest.markStage(FILMetrics.STAGE_DISK_END);
         callback.loadImageDiskCacheCallback(imageRequest, canceled);
     }
 
     /**
-     * Iterate over all the cached image files to delete LRU images.
+     * Add the size of the transformed image files written by the decode of the given request to the cache size.
+     *
+     * @return true - transformed file size was added, false - nothing was written
+     */
+    protected boolean addTransformedFileSize(ImageRequest imageRequest) {
+        long size = imageRequest.getTransformedFileSize();
+        if (size > 0) {
+            imageRequest.setTransformedFileSize(0);
+            mCurrentCacheSize += size;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Scan the cache on the scan thread, see {@link #scanCache()}.
+     */
+    protected void scheduleScanCache() {
+        mScanExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                scanCache();
+            }
+        });
+    }
+
+    /**
+     * Iterate over all the cached image files to delete expired images and images closest to expiration (LRU for
+     * images with the default TTL) until the spec quotas and cache max size are met.
      */
     protected void scanCache() {
         try {
@@ -248,56 +385,93 @@ public class DiskCacheImpl implements com.theartofdev.fastimageloader.DiskCache
                     long totalSize = 0;
                     long totalSizeFull = 0;
                     int deleteByTTL = 0;
+                    int deleteByQuota = 0;
                     int deleteByMaxSize = 0;
 
-                    // iterate over all cached files, delete stale and calculate current cache size
+                    // iterate over all cached files, delete expired and calculate current cache and spec quotas size
                     File[] allImages = mCacheFolder.listFiles();
-                    for (int i = 0; i < allImages.length; i++) {
-                        long fileSize = allImages[i].length();
+                    List<ScanFile> files = new ArrayList<>(allImages.length);
+                    Map<String, Long> quotaSizes = new HashMap<>();
+                    for (File image : allImages) {
+                        String name = image.getName();
+                        if (name.startsWith(".")) {
+                            continue;
+                        }
+                        long fileSize = image.length();
                         totalSizeFull += fileSize;
-                        if (allImages[i].lastModified() + mCacheTtl < System.currentTimeMillis()) {
-                            if (allImages[i].delete()) {
-                                deleteByTTL++;
-                                allImages[i] = null;
-                            }
+                        CacheEntry entry = getEntry(name);
+                        long expires = image.lastModified() + (entry != null && entry.mTtl > 0 ? entry.mTtl : mCacheTtl);
+                        if (entry != null && entry.mExpires > 0) {
+                            expires = Math.min(expires, entry.mExpires);
+                        }
+                        if (expires < startTime && image.delete()) {
+                            deleteByTTL++;
                         } else {
                             totalSize += fileSize;
+                            files.add(new ScanFile(image, fileSize, expires, entry));
+                            if (entry != null && entry.mQuota > 0) {
+                                Long quotaSize = quotaSizes.get(entry.mGroup);
+                                quotaSizes.put(entry.mGroup, (quotaSize != null ? quotaSize : 0) + fileSize);
+                            }
                         }
                     }
 
-                    // if cache max size reached, need to delete LRU images
-                    if (totalSize > mMaxSize) {
-
-                        // sort all cached files by last access date
-                        Arrays.sort(allImages, new Comparator<File>() {
-                            @Override
-                            public int compare(File lhs, File rhs) {
-                                long l = lhs != null ? lhs.lastModified() : 0;
-                                long r = rhs != null ? rhs.lastModified() : 0;
-                                return l < r ? -1 : (l == r ? 0 : 1);
-                            }
-                        });
-
-                        // delete cached images until cache size is reduced to 90% of max
-                        for (int i = 0; i < allImages.length && totalSize > mMaxSizeLowerBound; i++) {
-                            if (allImages[i] != null) {
-                                long length = allImages[i].length();
-                                if (allImages[i].delete()) {
-                                    deleteByMaxSize++;
-                                    totalSize -= length;
-                                    allImages[i] = null;
+                    // sort all cached files by expiration, for default TTL it is the last access date
+                    Collections.sort(files, new Comparator<ScanFile>() {
+                        @Override
+                        public int compare(ScanFile lhs, ScanFile rhs) {
+                            return lhs.mExpires < rhs.mExpires ? -1 : (lhs.mExpires == rhs.mExpires ? 0 : 1);
+                        }
+                    });
+
+                    // if spec quota reached, need to delete the spec images closest to expiration
+                    if (!quotaSizes.isEmpty()) {
+                        for (ScanFile file : files) {
+                            if (file.mEntry != null && file.mEntry.mQuota > 0) {
+                                long quotaSize = quotaSizes.get(file.mEntry.mGroup);
+                                if (quotaSize > file.mEntry.mQuota && file.mFile.delete()) {
+                                    deleteByQuota++;
+                                    quotaSizes.put(file.mEntry.mGroup, quotaSize - file.mSize);
+                                    totalSize -= file.mSize;
+                                    file.mDeleted = true;
                                 }
                             }
                         }
                     }
 
+                    // if cache max size reached, delete images closest to expiration until cache size is reduced to 80% of max
+                    if (totalSize > mMaxSize) {
+                        for (int i = 0; i < files.size() && totalSize > mMaxSizeLowerBound; i++) {
+                            ScanFile file = files.get(i);
+                            if (!file.mDeleted && file.mFile.delete()) {
+                                deleteByMaxSize++;
+                                totalSize -= file.mSize;
+                                file.mDeleted = true;
+                            }
+                        }
+                    }
+
+                    // remove index entries of deleted images, keep entries added during the scan
+                    Set<String> names = new HashSet<>(files.size());
+                    for (ScanFile file : files) {
+                        if (!file.mDeleted) {
+                            names.add(file.mFile.getName());
+                        }
+                    }
+                    for (String name : mIndex.keySet()) {
+                        if (!names.contains(name) && !new File(mCacheFolder, name).exists()) {
+                            mIndex.remove(name);
+                        }
+                    }
+
                     mLastCacheScanTime = System.currentTimeMillis();
                     mCurrentCacheSize = totalSize;
 
                     saveStats();
+                    saveIndex();
 
-                    FILLogger.info("Image disk cache scan complete [Before: {} / {}K] [After: {} / {}K] [Delete TTL: {}] [Delete size: {}]",
-                            allImages.length, totalSizeFull / 1024, allImages.length - deleteByTTL - deleteByMaxSize, totalSize / 1024, deleteByTTL, deleteByMaxSize);
+                    FILLogger.info("Image disk cache scan complete [Before: {} / {}K] [After: {} / {}K] [Delete TTL: {}] [Delete quota: {}] [Delete size: {}]",
+                            allImages.length, totalSizeFull / 1024, names.size(), totalSize / 1024, deleteByTTL, deleteByQuota, deleteByMaxSize);
                 } finally {
                     FILLogger.info("ImageCacheScan [{}]", System.currentTimeMillis() - startTime);
                 }
@@ -321,11 +495,114 @@ public class DiskCacheImpl implements com.theartofdev.fastimageloader.DiskCache
                 FILLogger.warn("Failed to delete disk cached image", e);
             }
         }
+        mIndex.clear();
         mCurrentCacheSize = 0;
         mLastCacheScanTime = System.currentTimeMillis();
         saveStats();
     }
 
+    /**
+     * Is the cached image of the given file name expired by the server Cache-Control max-age.
+     */
+    protected boolean isExpired(String name) {
+        CacheEntry entry = mIndex.get(name);
+        return entry != null && entry.mExpires > 0 && entry.mExpires < System.currentTimeMillis();
+    }
+
+    /**
+     * Get the index entry of the cached image of the given file name, for transformed and temp files it is the entry
+     * of the image file they are created for.
+     *
+     * @return the entry or null if the image uses the cache defaults
+     */
+    protected CacheEntry getEntry(String name) {
+        CacheEntry entry = mIndex.get(name);
+        if (entry == null) {
+            int idx = name.lastIndexOf('_');
+            if (idx > 0) {
+                entry = mIndex.get(name.substring(0, idx));
+            }
+        }
+        return entry;
+    }
+
+    /**
+     * Schedule save of the index on the scan thread, multiple updates are saved once.
+     */
+    protected void scheduleSaveIndex() {
+        if (mIndexSaveScheduled.compareAndSet(false, true)) {
+            mScanExecutor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    mIndexSaveScheduled.set(false);
+                    saveIndex();
+                }
+            });
+        }
+    }
+
+    /**
+     * Load the cached images policy index from the index file, entries added before load are kept.<br>
+     * Each line is: file name, policy key, TTL, quota, expires separated by tab.
+     */
+    protected void loadIndex() {
+        File indexFile = new File(mCacheFolder, INDEX_FILE);
+        if (indexFile.exists()) {
+            BufferedReader reader = null;
+            try {
+                reader = new BufferedReader(new FileReader(indexFile));
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    String[] parts = line.split("\t");
+                    if (parts.length == 5) {
+                        mIndex.putIfAbsent(parts[0], new CacheEntry(parts[1].length() > 0 ? parts[1] : null,
+                                FILUtils.parseLong(parts[2], 0), FILUtils.parseLong(parts[3], 0), FILUtils.parseLong(parts[4], 0)));
+                    }
+                }
+            } catch (Exception e) {
+                FILLogger.warn("Failed to load disk cache index", e);
+            } finally {
+                FILUtils.closeSafe(reader);
+            }
+        }
+    }
+
+    /**
+     * Save the cached images policy index to the index file.<br>
+     * Write to temp file so if error occurred it won't result in corrupted index.
+     */
+    protected void saveIndex() {
+        File indexFile = new File(mCacheFolder, INDEX_FILE);
+        File tmpFile = new File(mCacheFolder, INDEX_FILE + "_tmp");
+        BufferedWriter writer = null;
+        try {
+            writer = new BufferedWriter(new FileWriter(tmpFile));
+            for (Map.Entry<String, CacheEntry> entry : mIndex.entrySet()) {
+                CacheEntry value = entry.getValue();
+                writer.write(entry.getKey());
+                writer.write('\t');
+                writer.write(value.mGroup != null ? value.mGroup : "");
+                writer.write('\t');
+                writer.write(Long.toString(value.mTtl));
+                writer.write('\t');
+                writer.write(Long.toString(value.mQuota));
+                writer.write('\t');
+                writer.write(Long.toString(value.mExpires));
+                writer.write('\n');
+            }
+            writer.close();
+            writer = null;
+            if (!tmpFile.renameTo(indexFile)) {
+                FILLogger.warn("Failed to rename temp disk cache index file");
+            }
+        } catch (Exception e) {
+            FILLogger.warn("Failed to save disk cache index", e);
+        } finally {
+            FILUtils.closeSafe(writer);
+            FILUtils.deleteSafe(tmpFile);
+        }
+    }
+
     /**
      * Load stats used for cache operation: last cache scan, total cache size.<br>
      * The states are persisted so cache scan won't happen unless really required.
@@ -348,5 +625,69 @@ public class DiskCacheImpl implements com.theartofdev.fastimageloader.DiskCache
         editor.apply();
     }
     //endregion
-}
 
+    //region: Inner class: CacheEntry
+
+    /**
+     * The spec policy and server expiration of a cached image.
+     */
+    protected static final class CacheEntry {
+
+        /**
+         * the key of the spec policy, the group of images sharing the quota, null if no policy
+         */
+        final String mGroup;
+
+        /**
+         * the max time image is cached without use before delete, 0 - use cache default
+         */
+        final long mTtl;
+
+        /**
+         * the max bytes of the group images in the cache, 0 - no quota
+         */
+        final long mQuota;
+
+        /**
+         * the time the image expires by the server Cache-Control max-age, 0 if not set
+         */
+        final long mExpires;
+
+        CacheEntry(String group, long ttl, long quota, long expires) {
+            mGroup = group;
+            mTtl = ttl;
+            mQuota = quota;
+            mExpires = expires;
+        }
+    }
+    //endregion
+
+    //region: Inner class: ScanFile
+
+    /**
+     * Cached image file data read once during cache scan.
+     */
+    private static final class ScanFile {
+
+        final File mFile;
+
+        final long mSize;
+
+        /**
+         * the time the image expires by TTL since last access or server expiration
+         */
+        final long mExpires;
+
+        final CacheEntry mEntry;
+
+        boolean mDeleted;
+
+        ScanFile(File file, long size, long expires, CacheEntry entry) {
+            mFile = file;
+            mSize = size;
+            mExpires = expires;
+            mEntry = entry;
+        }
+    }
+    //endregion
+}
@@ -0,0 +1,115 @@
+// "Therefore those skilled at the unorthodox
+// are infinite as heaven and earth,
+// inexhaustible as the great rivers.
+// When they come to an end,
+// they begin again,
+// like the days and months;
+// they die and are reborn,
+// like the four seasons."
+//
+// - Sun Tsu,
+// "The Art of War"
+
+package com.theartofdev.fastimageloader.impl;
+
+import com.theartofdev.fastimageloader.Decoder;
+import com.theartofdev.fastimageloader.DiskCache;
+import com.theartofdev.fastimageloader.Interceptor;
+import com.theartofdev.fastimageloader.LoadedFrom;
+import com.theartofdev.fastimageloader.MemoryPool;
+import com.theartofdev.fastimageloader.impl.util.FILLogger;
+import com.theartofdev.fastimageloader.impl.util.FILMetrics;
+
+/**
+ * Built-in interceptor to load the image from disk cache.<br>
+ * Hit - complete the request with the loaded image.<br>
+ * Alternative spec hit - deliver the alternative image and proceed to load the primary.<br>
+ * Miss - proceed to next interceptor (network).
+ */
+public final class DiskCacheInterceptor implements Interceptor {
+
+    //region: Fields and Consts
+
+    /**
+     * Used to load images from the disk cache.
+     */
+    private final DiskCache mDiskCache;
+
+    /**
+     * Used to decode images from the disk to bitmap.
+     */
+    private final Decoder mDecoder;
+
+    /**
+     * Used to provide reusable bitmaps for image decoding into.
+     */
+    private final MemoryPool mMemoryPool;
+    //endregion
+
+    /**
+     * @param diskCache Used to load images from the disk cache.
+     * @param decoder Used to decode images from the disk to bitmap.
+     * @param memoryPool Used to provide reusable bitmaps for image decoding into.
+     */
+    public DiskCacheInterceptor(DiskCache diskCache, Decoder decoder, MemoryPool memoryPool) {
+        mDiskCache = diskCache;
+        mDecoder = decoder;
+        mMemoryPool = memoryPool;
+    }
+
+    @Override
+    public void intercept(final Chain chain) {
+        ImageRequest imageRequest = chain.getRequest();
+        if (imageRequest.isDiskPrefetch()) {
+            // prefetch only requires the image in disk cache, no need to load it
+            if (imageRequest.getFile().exists()) {
+                chain.complete(LoadedFrom.DISK);
+            } else {
+                chain.proceed();
+            }
+        } else {
+            mDiskCache.getAsync(imageRequest, chain.getAltSpec(), mDecoder, mMemoryPool, new DiskCache.Callback() {
+                @Override
+                public void loadImageDiskCacheCallback(ImageRequest imageRequest, boolean canceled) {
+                    onDiskCacheCallback(chain, imageRequest, canceled);
+                }
+            });
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "DiskCacheInterceptor";
+    }
+
+    //region: Private methods
+
+    /**
+     * Callback after the disk cache loaded the image or returned cache miss.
+     */
+    private void onDiskCacheCallback(Chain chain, ImageRequest imageRequest, boolean canceled) {
+        boolean loaded = imageRequest.getBitmap() != null;
+        boolean loadedAlt = loaded && imageRequest.getBitmap().getSpec() != imageRequest.getSpec();
+        FILLogger.debug("Get image from disk cache callback... [Loaded: {}, Alt:{}] [Canceled: {}] [{}]", loaded, loadedAlt, canceled, imageRequest);
+
+        if (loaded) {
+            FILMetrics.diskHit(imageRequest.getSpec(), loadedAlt);
+            imageRequest.getEventListener().diskHit(imageRequest.getBitmap().getSpec());
+        }
+        if (loaded && !loadedAlt) {
+            chain.complete(LoadedFrom.DISK);
+        } else {
+            if (loaded) {
+                chain.deliver(LoadedFrom.DISK);
+            }
+            if (canceled) {
+                chain.canceled();
+            } else {
+                FILMetrics.diskMiss(imageRequest.getSpec());
+                imageRequest.getEventListener().diskMiss();
+                chain.proceed();
+            }
+        }
+    }
+    //endregion
+}
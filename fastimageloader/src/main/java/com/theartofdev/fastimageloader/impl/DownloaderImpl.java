@@ -13,7 +13,10 @@
 package com.theartofdev.fastimageloader.impl;
 
 import com.theartofdev.fastimageloader.HttpClient;
+import com.theartofdev.fastimageloader.ImageLoadSpec;
+import com.theartofdev.fastimageloader.Scheduler;
 import com.theartofdev.fastimageloader.impl.util.FILLogger;
+import com.theartofdev.fastimageloader.impl.util.FILMetrics;
 import com.theartofdev.fastimageloader.impl.util.FILUtils;
 
 import java.io.File;
@@ -22,10 +25,8 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.ConnectException;
+import java.util.Locale;
 import java.util.concurrent.Executor;
-import java.util.concurrent.LinkedBlockingQueue;
-import java.util.concurrent.ThreadPoolExecutor;
-import java.util.concurrent.TimeUnit;
 
 /**
  * TODO:a add doc
@@ -34,6 +35,11 @@ public final class DownloaderImpl implements com.theartofdev.fastimageloader.Dow
 
     //region: Fields and Consts
 
+    /**
+     * The number of first bytes of downloaded content required to check it is of a known image format
+     */
+    static final int HEADER_SIZE = 12;
+
     /**
      * The HTTP client used to execute download image requests
      */
@@ -42,43 +48,51 @@ public final class DownloaderImpl implements com.theartofdev.fastimageloader.Dow
     /**
      * Threads service for download operations.
      */
-    private final ThreadPoolExecutor mExecutor;
+    private final Executor mExecutor;
 
     /**
      * Threads service for pre-fetch download operations.
      */
-    private final ThreadPoolExecutor mPrefetchExecutor;
+    private final Executor mPrefetchExecutor;
 
     /**
-     * the buffers used to download image
+     * the buffers used to download image, more buffers than concurrent downloads are allocated on demand
      */
-    private final byte[][] mBuffers;
+    private final byte[][] mBuffers = new byte[4][];
 
-    private int mExecutorThreads = 2;
+    /**
+     * if to validate downloaded images by bounds-only decode before committing them to disk cache
+     */
+    private final boolean mValidateBounds;
     //endregion
 
     /**
      * @param client the OkHttp client to use to download the images.
+     * @param scheduler provides the executors for regular and prefetch downloads
+     */
+    public DownloaderImpl(HttpClient client, Scheduler scheduler) {
+        this(client, scheduler, false);
+    }
+
+    /**
+     * @param client the OkHttp client to use to download the images.
+     * @param scheduler provides the executors for regular and prefetch downloads
+     * @param validateBounds if to validate downloaded images by bounds-only decode before committing them to disk cache
      */
-    public DownloaderImpl(HttpClient client) {
+    public DownloaderImpl(HttpClient client, Scheduler scheduler, boolean validateBounds) {
         FILUtils.notNull(client, "client");
+        FILUtils.notNull(scheduler, "scheduler");
 
         mClient = client;
-
-        mBuffers = new byte[mExecutorThreads + 1][];
-
-        mExecutor = new ThreadPoolExecutor(mExecutorThreads, mExecutorThreads, 30, TimeUnit.SECONDS,
-                new LinkedBlockingQueue<Runnable>(), FILUtils.threadFactory("ImageDownloader", true));
-        mExecutor.allowCoreThreadTimeOut(true);
-
-        mPrefetchExecutor = new ThreadPoolExecutor(1, 1, 30, TimeUnit.SECONDS,
-                new LinkedBlockingQueue<Runnable>(), FILUtils.threadFactory("ImagePrefetchDownloader", true));
-        mPrefetchExecutor.allowCoreThreadTimeOut(true);
+        mValidateBounds = validateBounds;
+        mExecutor = scheduler.getExecutor(Scheduler.Pool.NETWORK);
+        mPrefetchExecutor = scheduler.getExecutor(Scheduler.Pool.PREFETCH);
     }
 
     @Override
     public void downloadAsync(final ImageRequest imageRequest, final boolean prefetch, final Callback callback) {
         Executor executor = prefetch ? mPrefetchExecutor : mExecutor;
+        imageRequest.markStage(FILMetrics.STAGE_DOWNLOAD_QUEUED);
         executor.execute(new Runnable() {
             @Override
             public void run() {
@@ -101,7 +115,10 @@ public final class DownloaderImpl implements com.theartofdev.fastimageloader.Dow
         // mark start download, the first to do this will win (sync between prefetch and load)
         if ((prefetch || !imageRequest.isPrefetch()) && imageRequest.startDownload()) {
             FILLogger.debug("Start image request download... [{}]", imageRequest);
+            imageRequest.markStage(FILMetrics.STAGE_DOWNLOAD_START);
+            imageRequest.getEventListener().downloadStart();
             boolean canceled = downloadByClient(imageRequest);
+            imageRequest.markStage(FILMetrics.STAGE_DOWNLOAD_END);
             boolean downloaded = imageRequest.getFileSize() > 0;
             callback.loadImageDownloaderCallback(imageRequest, downloaded, canceled);
         } else {
@@ -121,16 +138,24 @@ public final class DownloaderImpl implements com.theartofdev.fastimageloader.Dow
         Exception error = null;
         boolean canceled = false;
         long start = System.currentTimeMillis();
+        long startNanos = System.nanoTime();
         try {
             canceled = !imageRequest.isValid();
             if (!canceled) {
 
                 // start image download request
                 HttpClient.HttpResponse httpResponse = mClient.execute(imageRequest.getEnhancedUri());
+                imageRequest.markStage(FILMetrics.STAGE_DOWNLOAD_FIRST_BYTE);
+                imageRequest.getEventListener().responseHeaders(httpResponse.getCode(), httpResponse.getContentLength());
 
                 // check handshake
                 responseCode = httpResponse.getCode();
+                imageRequest.setResponseCode(responseCode);
                 if (responseCode < 300) {
+                    ImageLoadSpec.DiskCachePolicy policy = imageRequest.getSpec().getDiskCachePolicy();
+                    if (policy != null && policy.isHonorCacheControl()) {
+                        imageRequest.setCacheExpires(getCacheExpires(httpResponse.getHeader("Cache-Control")));
+                    }
                     canceled = !imageRequest.isValid();
                     if (!canceled) {
                         // download data
@@ -147,6 +172,11 @@ public final class DownloaderImpl implements com.theartofdev.fastimageloader.Dow
         }
 
         // if downloaded or error occurred - report operation, don't report cancelled
+        imageRequest.getEventListener().downloadEnd(Math.max(0, imageRequest.getFileSize()), error);
+        if (imageRequest.getFileSize() > 0) {
+            FILMetrics.mDownload.recordSince(startNanos);
+            FILMetrics.mDownloadedBytes.add(imageRequest.getFileSize());
+        }
         if (imageRequest.getFileSize() > 0 || error != null) {
             FILLogger.operation(imageRequest.getEnhancedUri(), imageRequest.getSpec().getKey(), responseCode, System.currentTimeMillis() - start, imageRequest.getFileSize(), error);
         }
@@ -158,7 +188,11 @@ public final class DownloaderImpl implements com.theartofdev.fastimageloader.Dow
      * Download image data from the given web response.<br>
      * Download to temp file so if error occurred it won't result in corrupted cached file and handle
      * smart cancelling, if request is no longer valid but more than 50% has been downloaded, finish it but
-     * don't load the image object.
+     * don't load the image object.<br>
+     * The downloaded content is validated before it is committed to the cache file: the first bytes must be of a
+     * known image format (stop early on error page or captive portal HTML), the size must match the response
+     * Content-Length and optionally bounds-only decode must succeed. Rejected content is deleted and the request
+     * response code is set to {@link NegativeCache#INVALID_CONTENT} so the image is failed fast for a while.
      *
      * @return true - download was canceled before finishing, false - otherwise.
      */
@@ -174,18 +208,50 @@ public final class DownloaderImpl implements com.theartofdev.fastimageloader.Dow
 
             int len = 0;
             int size = 0;
+            int reject = -1;
+            int headerLen = 0;
+            byte[] header = new byte[HEADER_SIZE];
             buffer = getBuffer();
 
             // don't cancel download if passed 50%
             long contentLength = response.getContentLength();
             while ((contentLength < 0 || contentLength * .5f < size || imageRequest.isValid()) && (len = in.read(buffer)) != -1) {
+                if (headerLen < HEADER_SIZE) {
+                    // the first read may be shorter than the header, collect it until full
+                    int count = Math.min(len, HEADER_SIZE - headerLen);
+                    System.arraycopy(buffer, 0, header, headerLen, count);
+                    headerLen += count;
+                    if (headerLen == HEADER_SIZE && !isImageHeader(header, headerLen)) {
+                        reject = FILMetrics.REJECT_MAGIC;
+                        break;
+                    }
+                }
                 size += len;
                 out.write(buffer, 0, len);
                 imageRequest.updateDownloading(size, contentLength);
+                imageRequest.getEventListener().bytesRead(size, contentLength);
             }
 
-            // if we finished download
+            // if we finished download validate the content before commit
             if (len == -1) {
+                FILUtils.closeSafe(out);
+                if (headerLen < HEADER_SIZE) {
+                    reject = FILMetrics.REJECT_MAGIC;
+                } else if (contentLength > 0 && size != contentLength) {
+                    reject = FILMetrics.REJECT_TRUNCATED;
+                } else if (mValidateBounds && !FILUtils.isImageBounds(tmpFile)) {
+                    reject = FILMetrics.REJECT_BOUNDS;
+                }
+            }
+
+            if (reject > -1) {
+                FILLogger.warn("Downloaded image content rejected [{}] [{}] [{}]", reject, size, imageRequest);
+                FILMetrics.reject(reject);
+                // truncated content is a transient network failure, keep the response code
+                if (reject != FILMetrics.REJECT_TRUNCATED) {
+                    imageRequest.setResponseCode(NegativeCache.INVALID_CONTENT);
+                }
+            } else if (len == -1) {
                 if (tmpFile.renameTo(imageRequest.getFile())) {
                     imageRequest.setFileSize(size);
                 } else {
@@ -203,6 +269,49 @@ public final class DownloaderImpl implements com.theartofdev.fastimageloader.Dow
         return canceled;
     }
 
+    /**
+     * Get the time the downloaded image expires by the given Cache-Control response header value.<br>
+     * "no-cache" and "no-store" expire right away as the cache doesn't revalidate.
+     *
+     * @return the expire time, 0 - no expiration directive
+     */
+    static long getCacheExpires(String cacheControl) {
+        long maxAge = -1;
+        if (cacheControl != null) {
+            for (String directive : cacheControl.split(",")) {
+                directive = directive.trim().toLowerCase(Locale.US);
+                if (directive.equals("no-cache") || directive.equals("no-store")) {
+                    maxAge = 0;
+                    break;
+                } else if (directive.startsWith("max-age=")) {
+                    maxAge = FILUtils.parseLong(directive.substring(8).trim(), -1);
+                }
+            }
+        }
+        return maxAge > -1 ? System.currentTimeMillis() + maxAge * 1000 : 0;
+    }
+
+    /**
+     * Is the given first bytes of downloaded content start with the signature of an image format that can be
+     * decoded: JPEG, PNG, GIF, WEBP, BMP, ICO or HEIF.<br>
+     * Content shorter than {@link #HEADER_SIZE} is not a valid image.
+     */
+    static boolean isImageHeader(byte[] header, int len) {
+        if (len < HEADER_SIZE) {
+            return false;
+        }
+        int b0 = header[0] & 0xFF;
+        int b1 = header[1] & 0xFF;
+        return (b0 == 0xFF && b1 == 0xD8 && (header[2] & 0xFF) == 0xFF) ||
+                (b0 == 0x89 && b1 == 'P' && header[2] == 'N' && header[3] == 'G') ||
+                (b0 == 'G' && b1 == 'I' && header[2] == 'F' && header[3] == '8') ||
+                (b0 == 'R' && b1 == 'I' && header[2] == 'F' && header[3] == 'F' &&
+                        header[8] == 'W' && header[9] == 'E' && header[10] == 'B' && header[11] == 'P') ||
+                (b0 == 'B' && b1 == 'M') ||
+                (b0 == 0 && b1 == 0 && header[2] == 1 && header[3] == 0) ||
+                (header[4] == 'f' && header[5] == 't' && header[6] == 'y' && header[7] == 'p');
+    }
+
     /**
      * Get buffer to be used for image download, use recycled if possible.
      */
@@ -0,0 +1,342 @@
+// "Therefore those skilled at the unorthodox
+// are infinite as heaven and earth,
+// inexhaustible as the great rivers.
+// When they come to an end,
+// they begin again,
+// like the days and months;
+// they die and are reborn,
+// like the four seasons."
+//
+// - Sun Tsu,
+// "The Art of War"
+
+package com.theartofdev.fastimageloader.impl;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.text.TextUtils;
+
+import com.theartofdev.fastimageloader.Decoder;
+import com.theartofdev.fastimageloader.DiskCache;
+import com.theartofdev.fastimageloader.ImageLoadSpec;
+import com.theartofdev.fastimageloader.Interceptor;
+import com.theartofdev.fastimageloader.LoadedFrom;
+import com.theartofdev.fastimageloader.MemoryPool;
+import com.theartofdev.fastimageloader.ReusableBitmap;
+import com.theartofdev.fastimageloader.Scheduler;
+import com.theartofdev.fastimageloader.impl.util.FILLogger;
+import com.theartofdev.fastimageloader.impl.util.FILMetrics;
+import com.theartofdev.fastimageloader.impl.util.FILUtils;
+
+import java.io.File;
+import java.util.Collection;
+import java.util.concurrent.Executor;
+
+/**
+ * Built-in interceptor to create the requested image by downscaling a larger variant of the same URI that is
+ * already in memory or disk cache, instead of downloading it.<br>
+ * Larger variant is an image of other spec of the same image service adapter, with larger or equal dimensions and
+ * the same aspect ratio. The variant is scaled keeping the image own aspect ratio, as adapters may return the
+ * original image regardless of the spec dimensions.<br>
+ * Memory bitmaps are cached transformed, so only variants without transformation are used from memory, transformed
+ * variants are used by their disk cache file that is always cached untransformed.<br>
+ * The downscaled image is written to disk cache as the primary spec image and decoded from it, so it is cached and
+ * transformed the same as downloaded image.<br>
+ * No larger variant or failure - proceed to next interceptor (network).
+ */
+public final class DownscaleInterceptor implements Interceptor {
+
+    //region: Fields and Consts
+
+    /**
+     * The max difference in aspect ratio between variants to be considered the same image
+     */
+    private static final float ASPECT_RATIO_TOLERANCE = .02f;
+
+    /**
+     * The defined image loading specs to find larger variants in
+     */
+    private final Collection<ImageLoadSpec> mSpecs;
+
+    /**
+     * Used to find larger variants in the disk cache and notify on added images.
+     */
+    private final DiskCache mDiskCache;
+
+    /**
+     * Used to decode the downscaled image from the disk to bitmap.
+     */
+    private final Decoder mDecoder;
+
+    /**
+     * Used to find larger variants in memory and provide reusable bitmaps for image decoding into.
+     */
+    private final MemoryPool mMemoryPool;
+
+    /**
+     * Threads service for downscale operations.
+     */
+    private final Executor mExecutor;
+
+    /**
+     * Paint used to draw scaled bitmap with filtering
+     */
+    private final Paint mPaint = new Paint(Paint.FILTER_BITMAP_FLAG);
+    //endregion
+
+    /**
+     * @param specs The defined image loading specs to find larger variants in, must be thread-safe.
+     * @param diskCache Used to find larger variants in the disk cache and notify on added images.
+     * @param decoder Used to decode the downscaled image from the disk to bitmap.
+     * @param memoryPool Used to find larger variants in memory and provide reusable bitmaps for image decoding into.
+     * @param scheduler provides the executor for downscale operations
+     */
+    public DownscaleInterceptor(Collection<ImageLoadSpec> specs, DiskCache diskCache, Decoder decoder, MemoryPool memoryPool, Scheduler scheduler) {
+        mSpecs = specs;
+        mDiskCache = diskCache;
+        mDecoder = decoder;
+        mMemoryPool = memoryPool;
+        mExecutor = scheduler.getExecutor(Scheduler.Pool.DECODE);
+    }
+
+    @Override
+    public void intercept(final Chain chain) {
+        final ImageRequest imageRequest = chain.getRequest();
+        ImageLoadSpec spec = imageRequest.getSpec();
+        if (!spec.isSizeBounded() || imageRequest.getFile() == null) {
+            chain.proceed();
+            return;
+        }
+
+        // find the smallest larger variant in memory, the disk cache files are checked on the executor so the
+        // dispatcher thread is not blocked on file system access
+        boolean hasCandidate = false;
+        ReusableBitmap variantBitmap = null;
+        for (ImageLoadSpec candidate : mSpecs) {
+            if (isLargerVariant(candidate, spec)) {
+                hasCandidate = true;
+                if (candidate.getTransformation() == null && (variantBitmap == null || candidate.getWidth() < variantBitmap.getSpec().getWidth())) {
+                    ReusableBitmap bitmap = mMemoryPool.peek(imageRequest.getUri(), candidate);
+                    if (bitmap != null && !bitmap.isInLoadUse()) {
+                        // bitmap pending delivery can't be protected from reuse without affecting the delivery
+                        variantBitmap = bitmap;
+                    }
+                }
+            }
+        }
+
+        if (hasCandidate) {
+            if (variantBitmap != null) {
+                // protect the bitmap from reuse until it is downscaled
+                variantBitmap.incrementInUse();
+            }
+            final ReusableBitmap bitmap = variantBitmap;
+            mExecutor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    downscale(chain, imageRequest, bitmap);
+                }
+            });
+        } else {
+            chain.proceed();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "DownscaleInterceptor";
+    }
+
+    //region: Private methods
+
+    /**
+     * Is the given candidate spec can be downscaled to the given spec: same image service adapter, no smaller
+     * dimensions and the same aspect ratio.
+     */
+    private static boolean isLargerVariant(ImageLoadSpec candidate, ImageLoadSpec spec) {
+        if (candidate != spec && candidate.isSizeBounded() &&
+                candidate.getImageServiceAdapter() == spec.getImageServiceAdapter() &&
+                candidate.getWidth() >= spec.getWidth() && candidate.getHeight() >= spec.getHeight()) {
+            float candidateRatio = candidate.getWidth() / (float) candidate.getHeight();
+            float ratio = spec.getWidth() / (float) spec.getHeight();
+            return Math.abs(candidateRatio - ratio) <= ratio * ASPECT_RATIO_TOLERANCE;
+        }
+        return false;
+    }
+
+    /**
+     * Find the smallest larger variant of the request image in disk cache that is smaller than the given memory
+     * variant, prefer memory over disk of the same size as it saves reading and decoding the file.<br>
+     * Executed on downscale thread.
+     *
+     * @param variantBitmap optional: the larger variant found in memory
+     * @return the disk cache file of the variant or null if not found
+     */
+    private File findVariantFile(ImageRequest imageRequest, ReusableBitmap variantBitmap) {
+        ImageLoadSpec spec = imageRequest.getSpec();
+        ImageLoadSpec variantSpec = variantBitmap != null ? variantBitmap.getSpec() : null;
+        File variantFile = null;
+        for (ImageLoadSpec candidate : mSpecs) {
+            if (isLargerVariant(candidate, spec) && (variantSpec == null || candidate.getWidth() < variantSpec.getWidth())) {
+                File file = mDiskCache.getCacheFile(imageRequest.getUri(), candidate);
+                if (file != null && file.exists()) {
+                    variantSpec = candidate;
+                    variantFile = file;
+                }
+            }
+        }
+        return variantFile;
+    }
+
+    /**
+     * Downscale the smallest larger variant (memory bitmap or disk file) into the request primary disk cache file
+     * and decode it, complete the request if succeeded, otherwise proceed to the next interceptor.<br>
+     * Executed on downscale thread.
+     *
+     * @param variantBitmap optional: the larger variant found in memory, protected from reuse
+     */
+    private void downscale(Chain chain, ImageRequest imageRequest, ReusableBitmap variantBitmap) {
+        if (!imageRequest.isValid()) {
+            if (variantBitmap != null) {
+                variantBitmap.decrementInUse();
+            }
+            chain.canceled();
+            return;
+        }
+
+        File variantFile = findVariantFile(imageRequest, variantBitmap);
+        if (variantFile != null && variantBitmap != null) {
+            // smaller variant found in disk cache
+            variantBitmap.decrementInUse();
+            variantBitmap = null;
+        } else if (variantFile == null && variantBitmap == null) {
+            chain.proceed();
+            return;
+        }
+        FILLogger.debug("Downscale image from larger variant... [{}] [{}]", imageRequest, variantBitmap != null ? variantBitmap.getSpec() : variantFile);
+
+        ImageLoadSpec spec = imageRequest.getSpec();
+        Bitmap scaled = null;
+        try {
+            Bitmap.Config config = spec.getPixelConfig() != null ? spec.getPixelConfig() : Bitmap.Config.ARGB_8888;
+            if (variantBitmap != null) {
+                // the bitmap may have been reused before it was protected
+                if (TextUtils.equals(variantBitmap.getUri(), imageRequest.getUri())) {
+                    scaled = scale(variantBitmap.getBitmap(), spec, config, false);
+                } else {
+                    variantFile = mDiskCache.getCacheFile(imageRequest.getUri(), variantBitmap.getSpec());
+                }
+            }
+            if (scaled == null && variantFile != null && variantFile.exists()) {
+                scaled = decodeScaled(variantFile, spec, config);
+            }
+        } catch (Throwable e) {
+            FILLogger.warn("Failed to downscale image from larger variant [{}]", e, imageRequest);
+        } finally {
+            if (variantBitmap != null) {
+                variantBitmap.decrementInUse();
+            }
+        }
+
+        boolean written = false;
+        if (scaled != null) {
+            Bitmap.CompressFormat format = spec.getFormat() == ImageLoadSpec.Format.PNG || (spec.getFormat() != ImageLoadSpec.Format.JPEG && scaled.hasAlpha())
+                    ? Bitmap.CompressFormat.PNG
+                    : spec.getFormat() == ImageLoadSpec.Format.WEBP ? Bitmap.CompressFormat.WEBP : Bitmap.CompressFormat.JPEG;
+            written = FILUtils.writeBitmap(scaled, imageRequest.getFile(), format);
+            scaled.recycle();
+        }
+
+        if (written) {
+            imageRequest.setFileSize(imageRequest.getFile().length());
+
+            if (!imageRequest.isDiskPrefetch()) {
+                long start = System.nanoTime();
+                imageRequest.markStage(FILMetrics.STAGE_DECODE_START, start);
+                imageRequest.getEventListener().decodeStart();
+                mDecoder.decode(mMemoryPool, imageRequest, imageRequest.getFile(), spec);
+                imageRequest.markStage(FILMetrics.STAGE_DECODE_END);
+                imageRequest.getEventListener().decodeEnd(imageRequest.getBitmap() != null);
+                FILMetrics.mDecode.recordSince(start);
+            }
+
+            // after decode so the transformed image file is included
+            mDiskCache.imageAdded(imageRequest);
+        }
+
+        FILLogger.debug("Downscale image from larger variant finished... [{}] [Written: {}]", imageRequest, written);
+        ReusableBitmap bitmap = imageRequest.getBitmap();
+        if ((bitmap != null && bitmap.getSpec() == spec) || (written && imageRequest.isPrefetch())) {
+            chain.complete(LoadedFrom.DISK);
+        } else {
+            chain.proceed();
+        }
+    }
+
+    /**
+     * Decode the given image file with sampling to the smallest size not smaller than the spec and scale it to
+     * cover the spec dimensions, see {@link #scale(Bitmap, ImageLoadSpec, Bitmap.Config, boolean)}.
+     */
+    private Bitmap decodeScaled(File file, ImageLoadSpec spec, Bitmap.Config config) {
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        BitmapFactory.decodeFile(file.getAbsolutePath(), options);
+        if (options.outWidth < 1 || options.outHeight < 1) {
+            return null;
+        }
+
+        int sampleSize = 1;
+        while (options.outWidth / (sampleSize * 2) >= spec.getWidth() && options.outHeight / (sampleSize * 2) >= spec.getHeight()) {
+            sampleSize *= 2;
+        }
+
+        options.inJustDecodeBounds = false;
+        options.inSampleSize = sampleSize;
+        options.inPreferredConfig = config;
+        Bitmap sampled = BitmapFactory.decodeFile(file.getAbsolutePath(), options);
+        if (sampled == null) {
+            return null;
+        }
+        Bitmap scaled = null;
+        try {
+            scaled = scale(sampled, spec, config, true);
+            return scaled;
+        } finally {
+            if (scaled != sampled) {
+                sampled.recycle();
+            }
+        }
+    }
+
+    /**
+     * Scale the given source bitmap to the smallest size that covers the spec dimensions keeping the source aspect
+     * ratio, the same image as loaded from the network by adapters that don't crop to the spec dimensions.<br>
+     * Source of the spec aspect ratio is scaled to the spec exact dimensions, source is never scaled up.
+     *
+     * @param reuseSource true - return the source bitmap if it is already of the scaled size
+     */
+    private Bitmap scale(Bitmap source, ImageLoadSpec spec, Bitmap.Config config, boolean reuseSource) {
+        float scale = Math.min(1f, Math.max(spec.getWidth() / (float) source.getWidth(), spec.getHeight() / (float) source.getHeight()));
+        int width = getScaledSize(source.getWidth(), scale, spec.getWidth());
+        int height = getScaledSize(source.getHeight(), scale, spec.getHeight());
+        if (reuseSource && width == source.getWidth() && height == source.getHeight()) {
+            return source;
+        }
+
+        Bitmap scaled = Bitmap.createBitmap(width, height, config);
+        new Canvas(scaled).drawBitmap(source, null, new Rect(0, 0, width, height), mPaint);
+        return scaled;
+    }
+
+    /**
+     * The scaled size of the source dimension, the spec dimension if off only by rounding.
+     */
+    private static int getScaledSize(int size, float scale, int specSize) {
+        int scaled = Math.round(size * scale);
+        return Math.abs(scaled - specSize) <= 1 ? specSize : scaled;
+    }
+    //endregion
+}
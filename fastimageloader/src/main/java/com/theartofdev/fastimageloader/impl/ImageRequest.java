@@ -12,16 +12,16 @@
 
 package com.theartofdev.fastimageloader.impl;
 
-import android.text.TextUtils;
-
+import com.theartofdev.fastimageloader.EventListener;
 import com.theartofdev.fastimageloader.ImageLoadSpec;
+import com.theartofdev.fastimageloader.Interceptor;
 import com.theartofdev.fastimageloader.ReusableBitmap;
 import com.theartofdev.fastimageloader.Target;
+import com.theartofdev.fastimageloader.impl.util.FILMetrics;
 
 import java.io.File;
-import java.util.ArrayList;
 import java.util.Collection;
-import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
@@ -46,6 +46,11 @@ public class ImageRequest {
      */
     private final File mFile;
 
+    /**
+     * the unique key of the image request (uri+spec)
+     */
+    private final long mKey;
+
     /**
      * Is the request is prefetch request
      */
@@ -56,31 +61,86 @@ public class ImageRequest {
      */
     private long mFileSize = -1;
 
+    /**
+     * the size of transformed image files written to the disk cache by decode of the request, not yet added to
+     * the disk cache size
+     */
+    private long mTransformedFileSize;
+
+    /**
+     * the HTTP response code of the image download, 0 if not downloaded or network error
+     */
+    private int mResponseCode;
+
+    /**
+     * the time the downloaded image expires by the server Cache-Control max-age, 0 if not set
+     */
+    private long mCacheExpires;
+
     /**
      * the loaded image bitmap
      */
     private ReusableBitmap mBitmap;
 
     /**
-     * the target to load the image into
+     * the target to load the image into.<br>
+     * Copy-on-write as targets are added/removed on dispatcher thread while worker threads read it.
      */
-    private List<Target> mTargets = new ArrayList<>(3);
+    private final CopyOnWriteArrayList<Target> mTargets = new CopyOnWriteArrayList<>();
 
     /**
      * Is download of the image request started
      */
     private AtomicBoolean mDownloadStarted = new AtomicBoolean(false);
+
+    /**
+     * the {@link System#nanoTime()} of each load stage the request reached, 0 if not reached
+     */
+    private final long[] mStageTimes = new long[FILMetrics.STAGES];
+
+    /**
+     * the listener for the request lifecycle events
+     */
+    private EventListener mEventListener = EventListener.NONE;
+
+    /**
+     * the interceptors chain executing the request
+     */
+    private Interceptor.Chain mChain;
+
+    /**
+     * optional: the tag of the request group the request belongs to
+     */
+    private Object mTag;
+
+    /**
+     * Is the request group of the request is paused
+     */
+    private volatile boolean mPaused;
+
+    /**
+     * Is the request group of the request was canceled
+     */
+    private volatile boolean mCanceled;
+
+    /**
+     * Is the prefetch request should decode the image into memory cache and not only download to disk
+     */
+    private volatile boolean mPrefetchMemory;
     //endregion
 
     /**
      * @param uri the URL of the requested image as given
      * @param spec the dimension key used to load the image in specific size
      * @param file the path of the image in the disk
+     * @param tag optional: the tag of the request group the request belongs to
      */
-    ImageRequest(String uri, ImageLoadSpec spec, File file) {
+    ImageRequest(String uri, ImageLoadSpec spec, File file, Object tag) {
         mUri = uri;
         mSpec = spec;
         mFile = file;
+        mTag = tag;
+        mKey = getUriUniqueKey(spec, uri);
         mPrefetch = true;
     }
 
@@ -89,27 +149,47 @@ public class ImageRequest {
      * @param uri the URL of the requested image as given
      * @param spec the dimension key used to load the image in specific size
      * @param file the path of the image in the disk
+     * @param tag optional: the tag of the request group the request belongs to
      */
-    ImageRequest(Target target, String uri, ImageLoadSpec spec, File file) {
+    ImageRequest(Target target, String uri, ImageLoadSpec spec, File file, Object tag) {
         mTargets.add(target);
         mUri = uri;
         mSpec = spec;
         mFile = file;
+        mTag = tag;
+        mKey = getUriUniqueKey(spec, uri);
         mPrefetch = false;
     }
 
     /**
-     * The unique key of the image request.
+     * The unique key of the image request, computed once on creation.
      */
-    public String getUniqueKey() {
-        return getUriUniqueKey(mSpec, mUri);
+    public long getUniqueKey() {
+        return mKey;
     }
 
     /**
-     * The unique key of the image URI with the given spec.
+     * Is the request is for the image of the given URI and spec, resolves unique key collision.
      */
-    public static String getUriUniqueKey(ImageLoadSpec spec, String uri) {
-        return uri + "$" + spec.getKey();
+    public boolean isFor(String uri, ImageLoadSpec spec) {
+        return mSpec == spec && mUri.equals(uri);
+    }
+
+    /**
+     * The unique key of the image URI with the given spec.<br>
+     * 64-bit FNV-1a hash of the URI and spec key, computed without allocation.
+     */
+    public static long getUriUniqueKey(ImageLoadSpec spec, String uri) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < uri.length(); i++) {
+            hash = (hash ^ uri.charAt(i)) * 0x100000001b3L;
+        }
+        hash = (hash ^ '$') * 0x100000001b3L;
+        String key = spec.getKey();
+        for (int i = 0; i < key.length(); i++) {
+            hash = (hash ^ key.charAt(i)) * 0x100000001b3L;
+        }
+        return hash;
     }
 
     /**
@@ -154,6 +234,50 @@ public class ImageRequest {
         mFileSize = fileSize;
     }
 
+    /**
+     * the size of transformed image files written to the disk cache by decode of the request, not yet added to
+     * the disk cache size
+     */
+    public long getTransformedFileSize() {
+        return mTransformedFileSize;
+    }
+
+    /**
+     * the size of transformed image files written to the disk cache by decode of the request, not yet added to
+     * the disk cache size
+     */
+    public void setTransformedFileSize(long transformedFileSize) {
+        mTransformedFileSize = transformedFileSize;
+    }
+
+    /**
+     * the HTTP response code of the image download, 0 if not downloaded or network error
+     */
+    public int getResponseCode() {
+        return mResponseCode;
+    }
+
+    /**
+     * the HTTP response code of the image download, 0 if not downloaded or network error
+     */
+    public void setResponseCode(int responseCode) {
+        mResponseCode = responseCode;
+    }
+
+    /**
+     * the time the downloaded image expires by the server Cache-Control max-age, 0 if not set
+     */
+    public long getCacheExpires() {
+        return mCacheExpires;
+    }
+
+    /**
+     * the time the downloaded image expires by the server Cache-Control max-age, 0 if not set
+     */
+    public void setCacheExpires(long cacheExpires) {
+        mCacheExpires = cacheExpires;
+    }
+
     /**
      * the loaded image bitmap
      */
@@ -176,26 +300,143 @@ public class ImageRequest {
     }
 
     /**
-     * the target to load the image into
+     * the {@link System#nanoTime()} of each load stage the request reached, 0 if not reached.<br>
+     * See FILMetrics STAGE_* for the stages.
+     */
+    public long[] getStageTimes() {
+        return mStageTimes;
+    }
+
+    /**
+     * Mark the current time for the given load stage.
+     */
+    public void markStage(int stage) {
+        mStageTimes[stage] = System.nanoTime();
+    }
+
+    /**
+     * Mark the given time for the given load stage.
+     */
+    public void markStage(int stage, long time) {
+        mStageTimes[stage] = time;
+    }
+
+    /**
+     * the interceptors chain executing the request
+     */
+    public Interceptor.Chain getChain() {
+        return mChain;
+    }
+
+    /**
+     * the interceptors chain executing the request
+     */
+    public void setChain(Interceptor.Chain chain) {
+        mChain = chain;
+    }
+
+    /**
+     * the listener for the request lifecycle events
+     */
+    public EventListener getEventListener() {
+        return mEventListener;
+    }
+
+    /**
+     * the listener for the request lifecycle events
+     */
+    public void setEventListener(EventListener eventListener) {
+        mEventListener = eventListener != null ? eventListener : EventListener.NONE;
+    }
+
+    /**
+     * optional: the tag of the request group the request belongs to
+     */
+    public Object getTag() {
+        return mTag;
+    }
+
+    /**
+     * optional: the tag of the request group the request belongs to
+     */
+    public void setTag(Object tag) {
+        mTag = tag;
+    }
+
+    /**
+     * Is the request group of the request is paused.<br>
+     * Paused request is not valid so executing work will stop and the request will wait for resume.
+     */
+    public boolean isPaused() {
+        return mPaused;
+    }
+
+    /**
+     * Set the request paused/resumed.
      */
-    public Collection<Target> getValidTargets() {
-        filterValidTargets();
+    public void setPaused(boolean paused) {
+        mPaused = paused;
+    }
+
+    /**
+     * Is the request group of the request was canceled.
+     */
+    public boolean isCanceled() {
+        return mCanceled;
+    }
+
+    /**
+     * Cancel the request, it will no longer be valid regardless of its targets.
+     */
+    public void cancel() {
+        mCanceled = true;
+        mPaused = false;
+    }
+
+    /**
+     * the targets to load the image into.<br>
+     * Target may have been used for another image since it was added, the target URI is set on main thread so it
+     * must be checked on main thread on delivery.
+     */
+    public Collection<Target> getTargets() {
         return mTargets;
     }
 
     /**
-     * Is the loading of the requested image is still valid or was it canceled.<br>
+     * Is the loading of the requested image is still valid or was it canceled/paused.<br>
+     * Only volatile reads so it can be checked in hot loops (every download buffer read), targets that no longer
+     * need the image are removed from the request by the dispatcher when they load another image or are recycled.
      */
     public boolean isValid() {
-        filterValidTargets();
-        return mPrefetch || mTargets.size() > 0;
+        return !mCanceled && !mPaused && (mPrefetch || !mTargets.isEmpty());
+    }
+
+    /**
+     * Is the prefetch request should decode the image into memory cache and not only download to disk
+     */
+    public boolean isPrefetchMemory() {
+        return mPrefetchMemory;
+    }
+
+    /**
+     * Set the prefetch request to decode the image into memory cache and not only download to disk.
+     */
+    public void setPrefetchMemory(boolean prefetchMemory) {
+        mPrefetchMemory = prefetchMemory;
+    }
+
+    /**
+     * Is the request is for prefetch to disk only so the image is not required to be decoded.
+     */
+    public boolean isDiskPrefetch() {
+        return !mPrefetchMemory && isPrefetch();
     }
 
     /**
      * Is the request is for prefetch and not real target
      */
     public boolean isPrefetch() {
-        return mPrefetch && mTargets.size() == 0;
+        return mPrefetch && mTargets.isEmpty();
     }
 
     /**
@@ -205,6 +446,13 @@ public class ImageRequest {
         return mDownloadStarted.compareAndSet(false, true);
     }
 
+    /**
+     * Reset the download start mark so the request can be downloaded again (after it was paused).
+     */
+    public void resetDownload() {
+        mDownloadStarted.set(false);
+    }
+
     /**
      * Send update to all current targets on the download progress.
      *
@@ -212,9 +460,9 @@ public class ImageRequest {
      * @param contentLength the total number of bytes to download
      */
     public void updateDownloading(int downloaded, long contentLength) {
-        for (int i = 0; i < mTargets.size(); i++) {
+        for (Target target : mTargets) {
             try {
-                mTargets.get(i).onBitmapDownloading(downloaded, contentLength);
+                target.onBitmapDownloading(downloaded, contentLength);
             } catch (Exception ignored) {
             }
         }
@@ -228,17 +476,20 @@ public class ImageRequest {
      * @return true - request was prefetch and the download not started, false - otherwise.
      */
     public boolean addTargetAndCheck(Target target) {
-        mTargets.add(target);
+        mTargets.addIfAbsent(target);
         return mPrefetch && !mDownloadStarted.get();
     }
 
-    private void filterValidTargets() {
-        for (int i = mTargets.size() - 1; i >= 0; i--) {
-            boolean isValid = TextUtils.equals(mTargets.get(i).getUri(), mUri);
-            if (!isValid) {
-                mTargets.remove(i);
-            }
-        }
+    /**
+     * Remove the given target from the request, the target no longer needs the image (loads another image or
+     * recycled).<br>
+     * Check if the request is no longer needed by any target or prefetch.
+     *
+     * @return true - the request is no longer needed and can be canceled, false - otherwise.
+     */
+    public boolean removeTargetAndCheck(Target target) {
+        mTargets.remove(target);
+        return !mPrefetch && mTargets.isEmpty();
     }
 
     @Override
@@ -251,6 +502,10 @@ public class ImageRequest {
                 ", mBitmap=" + mBitmap +
                 ", mTargets=" + mTargets.size() +
                 ", mPrefetch=" + mPrefetch +
+                ", mPrefetchMemory=" + mPrefetchMemory +
+                ", mTag=" + mTag +
+                ", mPaused=" + mPaused +
+                ", mCanceled=" + mCanceled +
                 ", isValid=" + isValid() +
                 '}';
     }
@@ -15,35 +15,98 @@ package com.theartofdev.fastimageloader.impl;
 import android.app.Application;
 import android.content.ComponentCallbacks2;
 import android.content.res.Configuration;
+import android.graphics.Bitmap;
 import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Message;
+import android.os.Process;
 import android.text.TextUtils;
 
 import com.theartofdev.fastimageloader.Decoder;
 import com.theartofdev.fastimageloader.DiskCache;
+import com.theartofdev.fastimageloader.EventListener;
 import com.theartofdev.fastimageloader.Downloader;
 import com.theartofdev.fastimageloader.ImageLoadSpec;
+import com.theartofdev.fastimageloader.Interceptor;
 import com.theartofdev.fastimageloader.LoadedFrom;
 import com.theartofdev.fastimageloader.MemoryPool;
+import com.theartofdev.fastimageloader.MetricsSnapshot;
+import com.theartofdev.fastimageloader.PrefetchLevel;
 import com.theartofdev.fastimageloader.ReusableBitmap;
+import com.theartofdev.fastimageloader.Scheduler;
 import com.theartofdev.fastimageloader.Target;
 import com.theartofdev.fastimageloader.impl.util.FILLogger;
+import com.theartofdev.fastimageloader.impl.util.FILMetrics;
 import com.theartofdev.fastimageloader.impl.util.FILUtils;
+import com.theartofdev.fastimageloader.impl.util.LongHashMap;
 
 import java.io.File;
-import java.util.HashMap;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
- * Handler for image loading using memory/disk cache and other features.
+ * Handler for image loading using memory/disk cache and other features.<br>
+ * Only memory cache lookup is done on the main thread, all request orchestration (disk/network
+ * callbacks and loading requests bookkeeping) is executed on a dedicated single dispatcher thread,
+ * loaded images are delivered to targets on the main thread batched per frame.
  */
-public final class LoaderHandler implements DiskCacheImpl.Callback, DownloaderImpl.Callback, ComponentCallbacks2 {
+public final class LoaderHandler implements ComponentCallbacks2 {
 
     //region: Fields and Consts
 
     /**
-     * map of url to image request running it to reuse if same image is requested again
+     * dispatcher message to detach the target (message object) from the request it was previously added to
      */
-    private final Map<String, ImageRequest> mLoadingRequests = new HashMap<>();
+    private static final int MSG_DETACH_TARGET = 1;
+
+    /**
+     * map of image unique key (url+spec) to image request running it to reuse if same image is requested again.<br>
+     * Accessed only on dispatcher thread.
+     */
+    private final LongHashMap<ImageRequest> mLoadingRequests = new LongHashMap<>(32);
+
+    /**
+     * the tags of the request groups that are currently paused.<br>
+     * Accessed only on dispatcher thread.
+     */
+    private final Set<Object> mPausedTags = new HashSet<>();
+
+    /**
+     * the requests that are paused and wait for their group to resume.<br>
+     * Accessed only on dispatcher thread.
+     */
+    private final List<ImageRequest> mPausedRequests = new ArrayList<>();
+
+    /**
+     * map of target to the loading request it was added to, to remove the target from the request when it loads
+     * another image or is recycled, so request validity check doesn't need to compare the targets uri.<br>
+     * Updated only on dispatcher thread, concurrent so main thread can check if target has loading request.
+     */
+    private final Map<Target, ImageRequest> mTargetRequests = new ConcurrentHashMap<>();
+
+    /**
+     * the bitmaps decoded by memory prefetch held in-use to keep them warm, oldest first.<br>
+     * Accessed only on dispatcher thread.
+     */
+    private final ArrayDeque<ReusableBitmap> mWarmBitmaps = new ArrayDeque<>();
+
+    /**
+     * the total bytes of the bitmaps held warm by memory prefetch.<br>
+     * Accessed only on dispatcher thread.
+     */
+    private long mWarmBytes;
+
+    /**
+     * the max bytes of bitmaps decoded by memory prefetch to hold warm, older are released to the pool
+     */
+    private final long mPrefetchMemoryBudget;
 
     /**
      * Memory cache for images loaded
@@ -65,64 +128,117 @@ public final class LoaderHandler implements DiskCacheImpl.Callback, DownloaderIm
      */
     private final Decoder mDecoder;
 
+    /**
+     * Provides the executors for the loader background work
+     */
+    private final Scheduler mScheduler;
+
     /**
      * Used to post execution to main thread.
      */
     private final Handler mHandler;
 
     /**
-     * stats on the number of memory cache hits
+     * Used to deliver loaded images to targets on main thread batched per frame.
      */
-    private int mMemoryHits;
+    private final DeliveryQueue mDeliveryQueue;
 
     /**
-     * stats on the number of memory cache hits for alternative sepc
+     * The dedicated thread to execute request orchestration on.
      */
-    private int mMemoryAltHits;
+    private final HandlerThread mDispatcherThread;
 
     /**
-     * stats on the number of disk cache hits
+     * Used to post execution to dispatcher thread.
      */
-    private int mDiskHits;
+    private final Handler mDispatcher;
 
     /**
-     * stats on the number of disk cache hits for alternative sepc
+     * The interceptors chain to execute image load requests through on memory cache miss
      */
-    private int mDiskAltHits;
+    private final List<Interceptor> mInterceptors;
 
     /**
-     * stats on the number of cache miss, network begin request
+     * The built-in network interceptor, used to upgrade prefetch download to regular download
      */
-    private int mNetworkRequests;
+    private final NetworkInterceptor mNetworkInterceptor;
 
     /**
-     * stats on the number of cache miss, network loaded
+     * The cache of image URIs that failed to load, to fail fast their requests
      */
-    private int mNetworkLoads;
+    private final NegativeCache mNegativeCache;
+
+    /**
+     * optional: factory of listeners for image load requests lifecycle events
+     */
+    private final EventListener.Factory mEventListenerFactory;
     //endregion
 
     /**
      * Init.
      *
      * @param decoder Used to decode images from the disk to bitmap.
+     * @param maxDeliveriesPerFrame the max number of loaded images to deliver to targets per frame, 0 - unlimited
+     * @param prefetchMemoryBudget the max bytes of bitmaps decoded by memory prefetch to hold warm
+     * @param eventListenerFactory optional: factory of listeners for image load requests lifecycle events
+     * @param interceptors optional: interceptors to execute before the built-in disk cache and network interceptors
+     * @param specs the defined image loading specs, used to find larger cached variants to downscale, thread-safe
+     * @param scheduler Provides the executors for the loader background work
      */
     public LoaderHandler(Application application,
                          MemoryPool memoryPool,
                          DiskCache diskCache,
                          Downloader downloader,
-                         Decoder decoder) {
+                         Decoder decoder,
+                         int maxDeliveriesPerFrame,
+                         long prefetchMemoryBudget,
+                         EventListener.Factory eventListenerFactory,
+                         List<Interceptor> interceptors,
+                         Collection<ImageLoadSpec> specs,
+                         Scheduler scheduler) {
         FILUtils.notNull(application, "application");
         FILUtils.notNull(memoryPool, "memoryPool");
         FILUtils.notNull(diskCache, "diskCache");
         FILUtils.notNull(downloader, "downloader");
         FILUtils.notNull(decoder, "decoder");
+        FILUtils.notNull(scheduler, "scheduler");
 
         mMemoryPool = memoryPool;
         mDiskCache = diskCache;
         mDownloader = downloader;
         mDecoder = decoder;
+        mScheduler = scheduler;
+        mPrefetchMemoryBudget = prefetchMemoryBudget;
+        mEventListenerFactory = eventListenerFactory;
+
+        mNegativeCache = new NegativeCache(256);
+        mNetworkInterceptor = new NetworkInterceptor(downloader, diskCache, decoder, memoryPool, mNegativeCache);
+        mInterceptors = new ArrayList<>();
+        if (interceptors != null) {
+            mInterceptors.addAll(interceptors);
+        }
+        mInterceptors.add(new NegativeCacheInterceptor(mNegativeCache));
+        mInterceptors.add(new DiskCacheInterceptor(diskCache, decoder, memoryPool));
+        if (specs != null) {
+            mInterceptors.add(new DownscaleInterceptor(specs, diskCache, decoder, memoryPool, scheduler));
+        }
+        mInterceptors.add(mNetworkInterceptor);
 
         mHandler = new Handler(application.getMainLooper());
+        mDeliveryQueue = new DeliveryQueue(mHandler, maxDeliveriesPerFrame);
+
+        mDispatcherThread = new HandlerThread("ImageLoaderDispatcher", Process.THREAD_PRIORITY_BACKGROUND);
+        mDispatcherThread.start();
+        mDispatcher = new Handler(mDispatcherThread.getLooper(), new Handler.Callback() {
+            @Override
+            public boolean handleMessage(Message msg) {
+                if (msg.what == MSG_DETACH_TARGET) {
+                    detachTarget((Target) msg.obj, null);
+                    return true;
+                }
+                return false;
+            }
+        });
 
         application.registerComponentCallbacks(this);
     }
@@ -131,45 +247,139 @@ public final class LoaderHandler implements DiskCacheImpl.Callback, DownloaderIm
      * Create image report for analyses.
      */
     public String getReport() {
+        MetricsSnapshot metrics = getMetrics();
         StringBuilder sb = new StringBuilder();
         sb.append("Image handler report:");
         sb.append('\n');
-        sb.append("Memory Hit: ").append(mMemoryHits).append('\n');
-        sb.append("Memory alt Hit: ").append(mMemoryAltHits).append('\n');
-        sb.append("Disk Hit: ").append(mDiskHits).append('\n');
-        sb.append("Disk alt Hit: ").append(mDiskAltHits).append('\n');
-        sb.append("Network Requests: ").append(mNetworkRequests).append('\n');
-        sb.append("Network Loaded: ").append(mNetworkLoads).append('\n');
+        for (Map.Entry<String, MetricsSnapshot.SpecStats> entry : metrics.getSpecs().entrySet()) {
+            MetricsSnapshot.SpecStats stats = entry.getValue();
+            sb.append(entry.getKey()).append(':').append('\n');
+            sb.append("Memory Hit: ").append(stats.getMemoryHits()).append('\n');
+            sb.append("Memory alt Hit: ").append(stats.getMemoryAltHits()).append('\n');
+            sb.append("Memory Miss: ").append(stats.getMemoryMisses()).append('\n');
+            sb.append("Disk Hit: ").append(stats.getDiskHits()).append('\n');
+            sb.append("Disk alt Hit: ").append(stats.getDiskAltHits()).append('\n');
+            sb.append("Network Requests: ").append(stats.getDiskMisses()).append('\n');
+            sb.append("Network Loaded: ").append(stats.getNetworkLoads()).append('\n');
+            sb.append("Network Failed: ").append(stats.getNetworkFailures()).append('\n');
+            sb.append("Failed Fast: ").append(stats.getNegativeCacheHits()).append('\n');
+        }
+        sb.append("Decode: ").append(metrics.getDecode()).append('\n');
+        sb.append("Download: ").append(metrics.getDownload()).append('\n');
+        sb.append("Rejected: ").append(metrics.getRejections()).append('\n');
+        for (Map.Entry<String, MetricsSnapshot.Latency> entry : metrics.getStages().entrySet()) {
+            sb.append("Stage ").append(entry.getKey()).append(": ").append(entry.getValue()).append('\n');
+        }
+        sb.append("Loading: ").append(metrics.getLoadingRequests()).append('\n');
+        sb.append("Pending Deliveries: ").append(metrics.getPendingDeliveries()).append('\n');
+        for (Scheduler.Pool pool : Scheduler.Pool.values()) {
+            sb.append("Pool ").append(pool).append(": Active: ").append(mScheduler.getActiveCount(pool))
+                    .append(", Queued: ").append(mScheduler.getQueueSize(pool)).append('\n');
+        }
         sb.append('\n');
-        //mMemoryPool.report(sb);
+        if (mMemoryPool instanceof MemoryPoolImpl) {
+            ((MemoryPoolImpl) mMemoryPool).report(sb);
+        }
         sb.append('\n');
-        //mDiskCache.report(sb);
+        if (mDiskCache instanceof DiskCacheImpl) {
+            ((DiskCacheImpl) mDiskCache).report(sb);
+        }
         return sb.toString();
     }
 
     /**
-     * Prefetch image (uri+spec) to be available in disk cache.<br>
+     * Create snapshot of the image loader metrics: cache tiers hit rates by spec, decode and download latencies,
+     * queues depth and memory/disk cache bytes.<br>
+     * Queue depths are read without synchronization so they may be slightly stale.
+     */
+    public MetricsSnapshot getMetrics() {
+        long diskCacheBytes = mDiskCache instanceof DiskCacheImpl ? ((DiskCacheImpl) mDiskCache).getCacheSize() : -1;
+        int diskQueue = mScheduler.getQueueSize(Scheduler.Pool.DISK);
+        int downloadQueue = mScheduler.getQueueSize(Scheduler.Pool.NETWORK);
+        int prefetchQueue = mScheduler.getQueueSize(Scheduler.Pool.PREFETCH);
+        if (downloadQueue > -1 && prefetchQueue > -1) {
+            downloadQueue += prefetchQueue;
+        }
+        long poolBytes = -1;
+        long poolInUseBytes = -1;
+        if (mMemoryPool instanceof MemoryPoolImpl) {
+            poolBytes = ((MemoryPoolImpl) mMemoryPool).getBytes(false);
+            poolInUseBytes = ((MemoryPoolImpl) mMemoryPool).getBytes(true);
+        }
+        return new MetricsSnapshot(FILMetrics.snapshotSpecs(),
+                FILMetrics.mDecode.snapshot(),
+                FILMetrics.mDownload.snapshot(),
+                FILMetrics.snapshotStages(),
+                FILMetrics.mDownloadedBytes.sum(),
+                FILMetrics.snapshotRejections(),
+                mLoadingRequests.size(),
+                mPausedRequests.size(),
+                mDeliveryQueue.size(),
+                diskQueue,
+                downloadQueue,
+                poolBytes,
+                poolInUseBytes,
+                diskCacheBytes);
+    }
+
+    /**
+     * Prefetch image (uri+spec) to be available in disk cache, and decoded in memory cache for
+     * {@link PrefetchLevel#MEMORY}.<br>
      *
      * @param uri the URI of the image to prefetch
      * @param spec the spec to prefetch the image by
+     * @param tag optional: the tag of the request group the request belongs to
+     * @param level how far to prefetch the image
      */
-    public void prefetchImage(String uri, ImageLoadSpec spec) {
-        try {
-            String imageKey = ImageRequest.getUriUniqueKey(spec, uri);
-            ImageRequest request = mLoadingRequests.get(imageKey);
-            if (request == null) {
-                File file = mDiskCache.getCacheFile(uri, spec);
-                if (!file.exists()) {
-                    request = new ImageRequest(uri, spec, file);
-                    mLoadingRequests.put(imageKey, request);
+    public void prefetchImage(final String uri, final ImageLoadSpec spec, final Object tag, final PrefetchLevel level) {
+        mDispatcher.post(new Runnable() {
+            @Override
+            public void run() {
+                dispatchPrefetchImage(uri, spec, tag, level == PrefetchLevel.MEMORY, true);
+            }
+        });
+    }
 
-                    FILLogger.debug("Add prefetch request... [{}]", request);
-                    mDownloader.downloadAsync(request, true, this);
+    /**
+     * Prefetch batch of images by the same spec, see {@link #prefetchImage(String, ImageLoadSpec, Object, PrefetchLevel)}.<br>
+     * The cache presence of all the images is checked in a single background pass and only the missing images are
+     * dispatched to start prefetch requests as a single batch.
+     *
+     * @param uris the URIs of the images to prefetch
+     * @param spec the spec to prefetch the images by
+     * @param tag optional: the tag of the request group the requests belong to
+     * @param level how far to prefetch the images
+     */
+    public void prefetchImages(final String[] uris, final ImageLoadSpec spec, final Object tag, final PrefetchLevel level) {
+        mScheduler.getExecutor(Scheduler.Pool.MAINTENANCE).execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    final boolean memory = level == PrefetchLevel.MEMORY;
+                    final List<String> misses = new ArrayList<>();
+                    for (String uri : uris) {
+                        if (!TextUtils.isEmpty(uri) && (memory
+                                ? mMemoryPool.peek(uri, spec) == null
+                                : !mDiskCache.getCacheFile(uri, spec).exists())) {
+                            misses.add(uri);
+                        }
+                    }
+                    FILLogger.debug("Prefetch images batch cache check... [{}] [Misses: {}/{}]", spec, misses.size(), uris.length);
+                    if (!misses.isEmpty()) {
+                        mDispatcher.post(new Runnable() {
+                            @Override
+                            public void run() {
+                                for (String uri : misses) {
+                                    dispatchPrefetchImage(uri, spec, tag, memory, false);
+                                }
+                            }
+                        });
+                    }
+                } catch (Exception e) {
+                    FILLogger.critical("Error in prefetch images batch [{}]", e, spec);
                 }
             }
-        } catch (Exception e) {
-            FILLogger.critical("Error in prefetch image [{}] [{}]", e, uri, spec);
-        }
+        });
     }
 
     /**
@@ -177,38 +387,38 @@ public final class LoaderHandler implements DiskCacheImpl.Callback, DownloaderIm
      * Handle transformation on the image, image dimension specification and dimension fallback.<br>
      * If the image of the requested dimensions is not found in memory cache we try to find the fallback dimension, if
      * found it will be set to the target, and the requested dimension image will be loaded async.
+     *
+     * @param tag optional: the tag of the request group the request belongs to
      */
-    public void loadImage(Target target, ImageLoadSpec spec, ImageLoadSpec altSpec) {
+    public void loadImage(final Target target, final ImageLoadSpec spec, final ImageLoadSpec altSpec, final Object tag) {
         try {
-            String uri = target.getUri();
+            final String uri = target.getUri();
             if (!TextUtils.isEmpty(uri)) {
 
-                ReusableBitmap image = mMemoryPool.get(uri, spec, altSpec);
+                final ReusableBitmap image = mMemoryPool.get(uri, spec, altSpec);
                 if (image != null) {
-                    mMemoryHits++;
-                    if (image.getSpec() != spec)
-                        mMemoryAltHits++;
+                    FILMetrics.memoryHit(spec, image.getSpec() != spec);
                     target.onBitmapLoaded(image, LoadedFrom.MEMORY);
+                    if (image.getSpec() == spec) {
+                        // target no longer needs the image of its previous request, the target requests are updated
+                        // on dispatcher thread so the previous request may still be queued, always detach after it,
+                        // messages are obtained from the global pool so memory cache hit doesn't allocate
+                        mDispatcher.sendMessage(mDispatcher.obtainMessage(MSG_DETACH_TARGET, target));
+                    }
+                } else {
+                    FILMetrics.memoryMiss(spec);
                 }
 
                 // not found or loaded alternative spec
                 if (image == null || image.getSpec() != spec) {
-                    String imageKey = ImageRequest.getUriUniqueKey(spec, uri);
-                    ImageRequest request = mLoadingRequests.get(imageKey);
-                    if (request != null) {
-                        FILLogger.debug("Memory cache miss, image already requested, add target to request... [{}] [{}]", request, target);
-                        if (request.addTargetAndCheck(target)) {
-                            mDownloader.downloadAsync(request, false, this);
+                    final long enqueued = System.nanoTime();
+                    mDispatcher.post(new Runnable() {
+                        @Override
+                        public void run() {
+                            // don't use alternative spec if image was loaded from memory cache
+                            dispatchLoadImage(target, uri, spec, image == null ? altSpec : null, tag, enqueued);
                         }
-                    } else {
-                        // start async process of loading image from disk cache or network
-                        request = new ImageRequest(target, uri, spec, mDiskCache.getCacheFile(uri, spec));
-                        mLoadingRequests.put(imageKey, request);
-
-                        FILLogger.debug("Memory cache miss, start request handling... [{}]", request);
-                        // don't use alternative spec if image was loaded from memory cache
-                        mDiskCache.getAsync(request, image == null ? altSpec : null, mDecoder, mMemoryPool, this);
-                    }
+                    });
                 }
             }
         } catch (Exception e) {
@@ -218,147 +428,441 @@ public final class LoaderHandler implements DiskCacheImpl.Callback, DownloaderIm
     }
 
     /**
-     * Clear the disk image cache, deleting all cached images.
+     * Peek in memory cache for the image of the given uri and spec without loading it.<br>
+     * No request object is created and no allocation is done on cache hit.
+     *
+     * @return the cached image or null if not in memory cache
      */
-    public void clearDiskCache() {
-        mDiskCache.clear();
+    public ReusableBitmap peekImage(String uri, ImageLoadSpec spec) {
+        return mMemoryPool.peek(uri, spec);
     }
 
-    //region: Private methods
-
-    @Override
-    public void loadImageDiskCacheCallback(final ImageRequest imageRequest, final boolean canceled) {
-        if (FILUtils.isOnMainThread()) {
-            onLoadImageDiskCacheCallback(imageRequest, canceled);
-        } else
-            mHandler.post(new Runnable() {
-                @Override
-                public void run() {
-                    onLoadImageDiskCacheCallback(imageRequest, canceled);
+    /**
+     * Load inline preview (BlurHash or base64 thumbnail) of image synchronously.<br>
+     * Decoded previews are kept in memory pool by the preview data so repeated binds won't decode again.
+     *
+     * @param preview the compact preview data
+     * @param spec the spec of the image the preview is for
+     * @return the preview bitmap or null if spec doesn't support preview or decode failed
+     */
+    public ReusableBitmap loadPreview(String preview, ImageLoadSpec spec) {
+        try {
+            ImageLoadSpec previewSpec = spec.getPreviewSpec();
+            if (previewSpec != null && !TextUtils.isEmpty(preview)) {
+                ReusableBitmap bitmap = mMemoryPool.get(preview, previewSpec, null);
+                if (bitmap == null) {
+                    bitmap = mDecoder.decodePreview(mMemoryPool, preview, previewSpec);
+                    if (bitmap != null) {
+                        bitmap.setUrl(preview);
+                        bitmap.setInLoadUse(false);
+                        mMemoryPool.set(bitmap);
+                    }
                 }
-            });
+                return bitmap;
+            }
+        } catch (Exception e) {
+            FILLogger.critical("Error in load image preview [{}] [{}]", e, preview, spec);
+        }
+        return null;
     }
 
-    @Override
-    public void loadImageDownloaderCallback(final ImageRequest imageRequest, final boolean downloaded, final boolean canceled) {
-
-        // if downloaded and request is still valid - load the image object
-        if (downloaded && !canceled && !imageRequest.isPrefetch()) {
-            mDecoder.decode(mMemoryPool, imageRequest, imageRequest.getFile(), imageRequest.getSpec());
-        }
+    /**
+     * Pause all queued and executing requests of the given request group.<br>
+     * Executing disk/network work is stopped and the requests wait until the group is resumed.
+     */
+    public void pause(final Object tag) {
+        mDispatcher.post(new Runnable() {
+            @Override
+            public void run() {
+                FILLogger.debug("Pause requests group... [{}]", tag);
+                mPausedTags.add(tag);
+                for (int i = 0; i < mLoadingRequests.capacity(); i++) {
+                    ImageRequest request = mLoadingRequests.valueAt(i);
+                    if (request != null && tag.equals(request.getTag())) {
+                        request.setPaused(true);
+                    }
+                }
+            }
+        });
+    }
 
-        if (FILUtils.isOnMainThread()) {
-            onLoadImageDownloaderCallback(imageRequest, downloaded, canceled);
-        } else
-            mHandler.post(new Runnable() {
-                @Override
-                public void run() {
-                    onLoadImageDownloaderCallback(imageRequest, downloaded, canceled);
+    /**
+     * Resume all paused requests of the given request group.
+     */
+    public void resume(final Object tag) {
+        mDispatcher.post(new Runnable() {
+            @Override
+            public void run() {
+                FILLogger.debug("Resume requests group... [{}]", tag);
+                mPausedTags.remove(tag);
+                for (int i = 0; i < mLoadingRequests.capacity(); i++) {
+                    ImageRequest request = mLoadingRequests.valueAt(i);
+                    if (request != null && tag.equals(request.getTag())) {
+                        request.setPaused(false);
+                    }
                 }
-            });
+                for (int i = mPausedRequests.size() - 1; i >= 0; i--) {
+                    if (tag.equals(mPausedRequests.get(i).getTag())) {
+                        resumeRequest(mPausedRequests.get(i));
+                    }
+                }
+            }
+        });
     }
 
     /**
-     * Callback after the disk cache loaded the image or returned cache miss.<br>
-     * Hit - set the loaded image on the requesting target.<br>
-     * Miss - pass the request to image downloader.<br>
+     * Cancel all queued and executing requests of the given request group.<br>
+     * Canceled requests are not delivered to their targets.
      */
-    private void onLoadImageDiskCacheCallback(ImageRequest imageRequest, boolean canceled) {
-        try {
-            boolean loaded = imageRequest.getBitmap() != null;
-            boolean loadedAlt = loaded && imageRequest.getBitmap().getSpec() != imageRequest.getSpec();
-            FILLogger.debug("Get image from disk cache callback... [Loaded: {}, Alt:{}] [Canceled: {}] [{}]", loaded, loadedAlt, canceled, imageRequest);
+    public void cancel(final Object tag) {
+        mDispatcher.post(new Runnable() {
+            @Override
+            public void run() {
+                FILLogger.debug("Cancel requests group... [{}]", tag);
+                mPausedTags.remove(tag);
+                List<ImageRequest> canceled = new ArrayList<>();
+                for (int i = 0; i < mLoadingRequests.capacity(); i++) {
+                    ImageRequest request = mLoadingRequests.valueAt(i);
+                    if (request != null && tag.equals(request.getTag())) {
+                        canceled.add(request);
+                    }
+                }
+                for (ImageRequest request : canceled) {
+                    request.cancel();
+                    request.getEventListener().canceled();
+                    mPausedRequests.remove(request);
+                    removeRequest(request);
+                }
+            }
+        });
+    }
 
-            if (loaded) {
-                // if image object was loaded - add it to memory cache
-                mMemoryPool.set(imageRequest.getBitmap());
+    /**
+     * Cancel the request loading the given uri image for the given target.<br>
+     * The target is removed from the request and if no other target needs the image the request is canceled, so
+     * executing disk/decode/network work stops right away.
+     */
+    public void cancelTarget(final Target target, final String uri) {
+        mDispatcher.post(new Runnable() {
+            @Override
+            public void run() {
+                dispatchCancelTarget(target, uri);
             }
+        });
+    }
 
-            if (imageRequest.isValid()) {
-                if (loaded) {
-                    // if some image was loaded set it to targets
-                    if (loadedAlt) {
-                        mDiskAltHits++;
-                    } else {
-                        mDiskHits++;
+    /**
+     * The request the given target is currently added to, null if none.
+     */
+    ImageRequest getTargetRequest(Target target) {
+        return mTargetRequests.get(target);
+    }
+
+    /**
+     * Clear the disk image cache, deleting all cached images.
+     */
+    public void clearDiskCache() {
+        mDiskCache.clear();
+        mNegativeCache.clear();
+    }
+
+    //region: Private methods
+
+    /**
+     * Start prefetch request of the image if not already requested or in disk cache (memory cache for memory
+     * prefetch).<br>
+     * Executed on dispatcher thread.
+     *
+     * @param checkCache false - the image cache presence was already checked in batch cache check
+     */
+    private void dispatchPrefetchImage(String uri, ImageLoadSpec spec, Object tag, boolean memory, boolean checkCache) {
+        try {
+            long imageKey = ImageRequest.getUriUniqueKey(spec, uri);
+            ImageRequest request = mLoadingRequests.get(imageKey);
+            boolean collision = isKeyCollision(request, uri, spec);
+            if (request != null && !collision) {
+                if (memory) {
+                    // existing prefetch request is upgraded to decode, regular request decodes anyway
+                    request.setPrefetchMemory(true);
+                }
+            } else {
+                File file = mDiskCache.getCacheFile(uri, spec);
+                if (!checkCache || (memory ? mMemoryPool.peek(uri, spec) == null : !file.exists())) {
+                    request = new ImageRequest(uri, spec, file, tag);
+                    request.setPrefetchMemory(memory);
+                    if (mEventListenerFactory != null) {
+                        request.setEventListener(mEventListenerFactory.create(uri, spec, true));
                     }
-                    for (Target target : imageRequest.getValidTargets()) {
-                        target.onBitmapLoaded(imageRequest.getBitmap(), LoadedFrom.DISK);
+                    if (!collision) {
+                        mLoadingRequests.put(imageKey, request);
                     }
-                }
-                if (loaded && !loadedAlt) {
-                    // if primary loaded we are done
-                    mLoadingRequests.remove(imageRequest.getUniqueKey());
-                } else {
-                    // need to download primary
-                    if (canceled) {
-                        // race-condition, canceled request that add valid target (run again)
-                        mDiskCache.getAsync(imageRequest, null, mDecoder, mMemoryPool, this);
+
+                    FILLogger.debug("Add prefetch request... [{}]", request);
+                    RequestChain chain = new RequestChain(request, null);
+                    if (tag != null && mPausedTags.contains(tag)) {
+                        request.setPaused(true);
+                        parkRequest(request);
                     } else {
-                        mNetworkRequests++;
-                        mDownloader.downloadAsync(imageRequest, false, this);
+                        chain.start();
                     }
                 }
-            } else {
-                mLoadingRequests.remove(imageRequest.getUniqueKey());
             }
         } catch (Exception e) {
-            mLoadingRequests.remove(imageRequest.getUniqueKey());
-            FILLogger.critical("Error in load image disk callback", e);
+            FILLogger.critical("Error in prefetch image [{}] [{}]", e, uri, spec);
         }
     }
 
     /**
-     * Callback after image downloader downloaded the image and loaded from disk, failed or canceled.<br>
-     * Success - set the loaded image on the requesting target.<br>
-     * Failed - set failure on the requesting target.<br>
+     * Handle memory cache miss by adding the target to existing request or start new request.<br>
+     * Executed on dispatcher thread.
      */
-    private void onLoadImageDownloaderCallback(ImageRequest imageRequest, boolean downloaded, boolean canceled) {
+    void dispatchLoadImage(final Target target, String uri, ImageLoadSpec spec, ImageLoadSpec altSpec, Object tag, long enqueued) {
         try {
-            FILLogger.debug("Load image from network callback... [{}] [Downloaded: {}] [Canceled: {}]", imageRequest, downloaded, canceled);
+            long imageKey = ImageRequest.getUriUniqueKey(spec, uri);
+            ImageRequest request = mLoadingRequests.get(imageKey);
+            boolean collision = isKeyCollision(request, uri, spec);
+            detachTarget(target, collision ? null : request);
+            if (request != null && !collision) {
+                FILLogger.debug("Memory cache miss, image already requested, add target to request... [{}] [{}]", request, target);
+                boolean download = request.addTargetAndCheck(target);
+                if (tag == null ? request.getTag() != null : !tag.equals(request.getTag())) {
+                    // request shared by different groups no longer belongs to a single group
+                    request.setTag(null);
+                    if (request.isPaused()) {
+                        resumeRequest(request);
+                        download = false;
+                    }
+                }
+                if (download && !request.isPaused() && ((RequestChain) request.getChain()).isAt(mNetworkInterceptor)) {
+                    // prefetch request is now required and its download is queued, download it as regular request,
+                    // otherwise the executing interceptor continues it as regular request (decode)
+                    mNetworkInterceptor.download(request.getChain(), false);
+                }
+                mTargetRequests.put(target, request);
+            } else {
+                // start async process of loading image from disk cache or network
+                request = new ImageRequest(target, uri, spec, mDiskCache.getCacheFile(uri, spec), tag);
+                request.markStage(FILMetrics.STAGE_ENQUEUED, enqueued);
+                request.markStage(FILMetrics.STAGE_DISPATCHED);
+                if (mEventListenerFactory != null) {
+                    request.setEventListener(mEventListenerFactory.create(uri, spec, false));
+                }
+                request.getEventListener().memoryMiss(uri, spec);
+                if (!collision) {
+                    mLoadingRequests.put(imageKey, request);
+                }
+                mTargetRequests.put(target, request);
 
-            // if image was downloaded - notify disk cache
-            if (downloaded) {
-                mDiskCache.imageAdded(imageRequest.getFileSize());
+                FILLogger.debug("Memory cache miss, start request handling... [{}]", request);
+                RequestChain chain = new RequestChain(request, altSpec);
+                if (tag != null && mPausedTags.contains(tag)) {
+                    request.setPaused(true);
+                    parkRequest(request);
+                } else {
+                    chain.start();
+                }
             }
+        } catch (Exception e) {
+            FILLogger.critical("Error in load image [{}]", e, target);
+            mDeliveryQueue.add(new Runnable() {
+                @Override
+                public void run() {
+                    target.onBitmapFailed();
+                }
+            });
+        }
+    }
+
+    /**
+     * Remove the given target from the request loading the given uri image, cancel the request if no other target
+     * needs the image.<br>
+     * Executed on dispatcher thread.
+     */
+    void dispatchCancelTarget(Target target, String uri) {
+        ImageRequest request = mTargetRequests.get(target);
+        if (request != null && TextUtils.equals(uri, request.getUri())) {
+            mTargetRequests.remove(target);
+            if (request.removeTargetAndCheck(target)) {
+                FILLogger.debug("Cancel request of target... [{}] [{}]", request, target);
+                request.cancel();
+                request.getEventListener().canceled();
+                mPausedRequests.remove(request);
+                removeRequest(request);
+            }
+        }
+    }
+
+    /**
+     * Hold the given paused request until its group is resumed.<br>
+     * Called after the executing work of the request has stopped so it can be downloaded again on resume.
+     */
+    private void parkRequest(ImageRequest imageRequest) {
+        FILLogger.debug("Request paused, wait for resume... [{}]", imageRequest);
+        imageRequest.resetDownload();
+        if (!mPausedRequests.contains(imageRequest)) {
+            mPausedRequests.add(imageRequest);
+        }
+    }
+
+    /**
+     * Resume the given paused request, if it is held continue its loading from where it was paused.
+     */
+    private void resumeRequest(ImageRequest imageRequest) {
+        imageRequest.setPaused(false);
+        if (mPausedRequests.remove(imageRequest)) {
+            FILLogger.debug("Request resumed... [{}]", imageRequest);
+            ((RequestChain) imageRequest.getChain()).resume();
+        }
+    }
 
-            // if image object was loaded - add it to memory cache
-            if (imageRequest.getBitmap() != null) {
-                mMemoryPool.set(imageRequest.getBitmap());
+    /**
+     * Is the given loading request found by unique key is of a different image (hash collision).<br>
+     * In the extremely rare case of collision the new request is executed without being shared.
+     */
+    private static boolean isKeyCollision(ImageRequest request, String uri, ImageLoadSpec spec) {
+        if (request != null && !request.isFor(uri, spec)) {
+            FILLogger.warn("Image request key collision, load without sharing... [{}] [{}] [{}]", request, uri, spec);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Remove the given request from loading requests, if it is still the one loading the image.
+     */
+    private void removeRequest(ImageRequest imageRequest) {
+        long key = imageRequest.getUniqueKey();
+        if (mLoadingRequests.get(key) == imageRequest) {
+            mLoadingRequests.remove(key);
+        }
+        for (Iterator<ImageRequest> iter = mTargetRequests.values().iterator(); iter.hasNext(); ) {
+            if (iter.next() == imageRequest) {
+                iter.remove();
             }
+        }
+    }
 
-            // request are valid if there is target or prefetch, but here we don't care for prefetch
-            if (imageRequest.isValid() && !imageRequest.isPrefetch()) {
-                if (imageRequest.getBitmap() != null) {
-                    mNetworkLoads++;
-                    mLoadingRequests.remove(imageRequest.getUniqueKey());
-                    for (Target target : imageRequest.getValidTargets()) {
-                        target.onBitmapLoaded(imageRequest.getBitmap(), LoadedFrom.NETWORK);
+    /**
+     * Remove the given target from the request it was previously added to, the target no longer needs its image so
+     * if no other target needs it the request becomes invalid and its executing work stops.<br>
+     * Executed on dispatcher thread.
+     *
+     * @param target the target to detach
+     * @param request optional: the request the target is added to now, not detached from
+     */
+    private void detachTarget(Target target, ImageRequest request) {
+        ImageRequest prevRequest = mTargetRequests.get(target);
+        if (prevRequest != null && prevRequest != request) {
+            mTargetRequests.remove(target);
+            prevRequest.removeTargetAndCheck(target);
+        }
+    }
+
+    /**
+     * Queue the loaded bitmap of the request to its targets on the main thread next frame, targets that were used
+     * for another image are skipped on main thread where their URI is set.<br>
+     * The bitmap is held in-use until delivered so it won't be reused while waiting for main thread.
+     */
+    private void deliverLoaded(final ImageRequest imageRequest, final LoadedFrom from) {
+        final ReusableBitmap bitmap = imageRequest.getBitmap();
+        final Collection<Target> targets = imageRequest.getTargets();
+        final Target[] targetsArr = targets.toArray(new Target[targets.size()]);
+        final boolean primary = bitmap.getSpec() == imageRequest.getSpec();
+        bitmap.incrementInUse();
+        imageRequest.markStage(FILMetrics.STAGE_DELIVERY_QUEUED);
+        mDeliveryQueue.add(new Runnable() {
+            @Override
+            public void run() {
+                for (Target target : targetsArr) {
+                    // target may have been used for another image while waiting
+                    if (TextUtils.equals(target.getUri(), imageRequest.getUri())) {
+                        target.onBitmapLoaded(bitmap, from);
                     }
-                } else {
-                    if (canceled) {
-                        // race-condition, canceled request that add valid target (run again)
-                        mDiskCache.getAsync(imageRequest, null, mDecoder, mMemoryPool, this);
-                    } else {
-                        mLoadingRequests.remove(imageRequest.getUniqueKey());
-                        for (Target target : imageRequest.getValidTargets()) {
-                            target.onBitmapFailed();
-                        }
+                }
+                bitmap.decrementInUse();
+                imageRequest.getEventListener().delivered(from, bitmap.getSpec());
+                if (primary) {
+                    // alternative spec delivery is intermediate, record stages on the final delivery only
+                    imageRequest.markStage(FILMetrics.STAGE_DELIVERED);
+                    FILMetrics.recordStages(imageRequest.getStageTimes());
+                }
+            }
+        });
+    }
+
+    /**
+     * Queue load failure of the request to its targets on the main thread next frame, targets that were used for
+     * another image are skipped on main thread where their URI is set.
+     */
+    private void deliverFailed(final ImageRequest imageRequest) {
+        final Collection<Target> targets = imageRequest.getTargets();
+        final Target[] targetsArr = targets.toArray(new Target[targets.size()]);
+        imageRequest.markStage(FILMetrics.STAGE_DELIVERY_QUEUED);
+        mDeliveryQueue.add(new Runnable() {
+            @Override
+            public void run() {
+                for (Target target : targetsArr) {
+                    if (TextUtils.equals(target.getUri(), imageRequest.getUri())) {
+                        target.onBitmapFailed();
                     }
                 }
-            } else {
-                mLoadingRequests.remove(imageRequest.getUniqueKey());
-                imageRequest.setBitmap(null);
+                imageRequest.markStage(FILMetrics.STAGE_DELIVERED);
+                FILMetrics.recordStages(imageRequest.getStageTimes());
+                imageRequest.getEventListener().failed();
             }
-        } catch (Exception e) {
-            mLoadingRequests.remove(imageRequest.getUniqueKey());
-            FILLogger.critical("Error in load image downloader callback", e);
+        });
+    }
+
+    /**
+     * Hold the bitmap decoded by memory prefetch in-use so it is not reused before it is displayed, release the
+     * oldest held bitmaps when the prefetch memory budget is exceeded.<br>
+     * Executed on dispatcher thread.
+     */
+    private void holdWarmBitmap(ReusableBitmap bitmap) {
+        bitmap.incrementInUse();
+        mWarmBitmaps.addLast(bitmap);
+        mWarmBytes += bitmap.getBitmap().getByteCount();
+        while (mWarmBytes > mPrefetchMemoryBudget && !mWarmBitmaps.isEmpty()) {
+            releaseWarmBitmap(mWarmBitmaps.pollFirst());
         }
     }
 
+    /**
+     * Release all the bitmaps held warm by memory prefetch so they can be reused.<br>
+     * Executed on dispatcher thread.
+     */
+    private void releaseWarmBitmaps() {
+        while (!mWarmBitmaps.isEmpty()) {
+            releaseWarmBitmap(mWarmBitmaps.pollFirst());
+        }
+    }
+
+    /**
+     * Release the given bitmap held warm by memory prefetch.
+     */
+    private void releaseWarmBitmap(ReusableBitmap bitmap) {
+        Bitmap b = bitmap.getBitmap();
+        mWarmBytes = mWarmBitmaps.isEmpty() ? 0 : mWarmBytes - (b != null ? b.getByteCount() : 0);
+        bitmap.decrementInUse();
+    }
+
+    /**
+     * Returns true if the current executing thread is the dispatcher thread, false otherwise.
+     */
+    private boolean isOnDispatcherThread() {
+        return Thread.currentThread() == mDispatcherThread;
+    }
+
     @Override
-    public void onTrimMemory(int level) {
-        mMemoryPool.onTrimMemory(level);
+    public void onTrimMemory(final int level) {
+        mDispatcher.post(new Runnable() {
+            @Override
+            public void run() {
+                // release the warm bitmaps first so the pool can trim them too
+                releaseWarmBitmaps();
+                mMemoryPool.onTrimMemory(level);
+            }
+        });
     }
 
     @Override
@@ -368,7 +872,226 @@ public final class LoaderHandler implements DiskCacheImpl.Callback, DownloaderIm
 
     @Override
     public void onLowMemory() {
-        mMemoryPool.onTrimMemory(0);
+        onTrimMemory(0);
+    }
+    //endregion
+
+    //region: Inner class: RequestChain
+
+    /**
+     * The chain executing an image load request through the interceptors.<br>
+     * Chain methods can be called from any thread, the handling is executed on dispatcher thread.
+     */
+    private final class RequestChain implements Interceptor.Chain {
+
+        /**
+         * the image load request executed
+         */
+        private final ImageRequest mRequest;
+
+        /**
+         * optional: alternative spec that can be loaded until the primary spec is loaded
+         */
+        private ImageLoadSpec mAltSpec;
+
+        /**
+         * the index of the interceptor executing the request, or to execute on resume
+         */
+        private int mIndex;
+
+        /**
+         * @param request the image load request to execute
+         * @param altSpec optional: alternative spec that can be loaded until the primary spec is loaded
+         */
+        public RequestChain(ImageRequest request, ImageLoadSpec altSpec) {
+            mRequest = request;
+            mAltSpec = altSpec;
+            request.setChain(this);
+        }
+
+        @Override
+        public ImageRequest getRequest() {
+            return mRequest;
+        }
+
+        @Override
+        public ImageLoadSpec getAltSpec() {
+            return mAltSpec;
+        }
+
+        /**
+         * Start executing the request by the first interceptor.<br>
+         * Executed on dispatcher thread.
+         */
+        public void start() {
+            mIndex = 0;
+            intercept();
+        }
+
+        /**
+         * Is the request is executing by the given interceptor.<br>
+         * Executed on dispatcher thread.
+         */
+        public boolean isAt(Interceptor interceptor) {
+            return mIndex < mInterceptors.size() && mInterceptors.get(mIndex) == interceptor;
+        }
+
+        /**
+         * Resume executing paused request by the interceptor it was paused at.<br>
+         * Executed on dispatcher thread.
+         */
+        public void resume() {
+            if (mIndex < mInterceptors.size()) {
+                intercept();
+            } else {
+                onComplete(LoadedFrom.NETWORK);
+            }
+        }
+
+        @Override
+        public void proceed() {
+            execute(new Runnable() {
+                @Override
+                public void run() {
+                    mIndex++;
+                    if (mRequest.isPaused()) {
+                        // request group paused, wait for resume
+                        parkRequest(mRequest);
+                    } else if (mRequest.isValid()) {
+                        if (mIndex < mInterceptors.size()) {
+                            intercept();
+                        } else {
+                            onComplete(LoadedFrom.NETWORK);
+                        }
+                    } else {
+                        onCanceled();
+                    }
+                }
+            });
+        }
+
+        @Override
+        public void deliver(final LoadedFrom from) {
+            execute(new Runnable() {
+                @Override
+                public void run() {
+                    ReusableBitmap bitmap = mRequest.getBitmap();
+                    if (bitmap != null) {
+                        // the alternative is delivered, don't load it again
+                        mAltSpec = null;
+                        mMemoryPool.set(bitmap);
+                        if (mRequest.isValid() || mRequest.isPaused()) {
+                            deliverLoaded(mRequest, from);
+                        }
+                    }
+                }
+            });
+        }
+
+        @Override
+        public void complete(final LoadedFrom from) {
+            execute(new Runnable() {
+                @Override
+                public void run() {
+                    onComplete(from);
+                }
+            });
+        }
+
+        @Override
+        public void canceled() {
+            execute(new Runnable() {
+                @Override
+                public void run() {
+                    if (mRequest.isPaused()) {
+                        // request group paused, wait for resume from the start
+                        mIndex = 0;
+                        parkRequest(mRequest);
+                    } else if (mRequest.isValid()) {
+                        // race-condition, canceled request that add valid target (run again)
+                        start();
+                    } else {
+                        onCanceled();
+                    }
+                }
+            });
+        }
+
+        @Override
+        public String toString() {
+            return "RequestChain{" +
+                    "mIndex=" + mIndex +
+                    ", mInterceptors=" + mInterceptors +
+                    '}';
+        }
+
+        /**
+         * Execute the current interceptor, fail the request on error.
+         */
+        private void intercept() {
+            try {
+                mInterceptors.get(mIndex).intercept(this);
+            } catch (Exception e) {
+                FILLogger.critical("Error in image load interceptor [{}] [{}]", e, mInterceptors.get(mIndex), mRequest);
+                onComplete(LoadedFrom.NETWORK);
+            }
+        }
+
+        /**
+         * Handle request completion, deliver the loaded image or failure to valid targets.
+         */
+        private void onComplete(LoadedFrom from) {
+            try {
+                ReusableBitmap bitmap = mRequest.getBitmap();
+                if (bitmap != null && bitmap.getSpec() != mRequest.getSpec()) {
+                    // only alternative was loaded, not a result
+                    bitmap = null;
+                }
+                if (bitmap != null) {
+                    // if image object was loaded - add it to memory cache
+                    mMemoryPool.set(bitmap);
+                }
+                removeRequest(mRequest);
+                if (mRequest.isPrefetch()) {
+                    if (bitmap != null && mRequest.isPrefetchMemory()) {
+                        holdWarmBitmap(bitmap);
+                    }
+                    mRequest.setBitmap(null);
+                } else if (mRequest.isValid() || mRequest.isPaused()) {
+                    if (bitmap != null) {
+                        deliverLoaded(mRequest, from);
+                    } else {
+                        deliverFailed(mRequest);
+                    }
+                } else {
+                    mRequest.setBitmap(null);
+                    mRequest.getEventListener().canceled();
+                }
+            } catch (Exception e) {
+                removeRequest(mRequest);
+                FILLogger.critical("Error in image load complete [{}]", e, mRequest);
+            }
+        }
+
+        /**
+         * Handle request no longer required.
+         */
+        private void onCanceled() {
+            removeRequest(mRequest);
+            mRequest.setBitmap(null);
+            mRequest.getEventListener().canceled();
+        }
+
+        /**
+         * Execute the given handling on dispatcher thread.
+         */
+        private void execute(Runnable runnable) {
+            if (isOnDispatcherThread()) {
+                runnable.run();
+            } else {
+                mDispatcher.post(runnable);
+            }
+        }
     }
     //endregion
-}
\ No newline at end of file
+}
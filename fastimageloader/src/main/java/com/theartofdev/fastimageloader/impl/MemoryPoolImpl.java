@@ -19,16 +19,16 @@ import com.theartofdev.fastimageloader.MemoryPool;
 import com.theartofdev.fastimageloader.ReusableBitmap;
 import com.theartofdev.fastimageloader.impl.util.FILLogger;
 
-import java.util.Iterator;
+import java.util.ArrayList;
 import java.util.LinkedHashMap;
-import java.util.LinkedList;
 import java.util.Map;
 
 /**
  * Memory cache for image handler.<br>
  * Holds the images loaded two caches: large for images larger than 300px (width+height)
  * and small for smaller.<br>
- * Caches may be evicted when memory pressure is detected.
+ * Caches may be evicted when memory pressure is detected.<br>
+ * Lookups iterate the pools by index so cache hit doesn't allocate.
  */
 public class MemoryPoolImpl implements MemoryPool {
 
@@ -37,7 +37,7 @@ public class MemoryPoolImpl implements MemoryPool {
     /**
      * Cache and pool of reusable bitmaps.
      */
-    private final Map<ImageLoadSpec, LinkedList<ReusableBitmap>> mBitmapsCachePool = new LinkedHashMap<>();
+    private final Map<ImageLoadSpec, ArrayList<ReusableBitmap>> mBitmapsCachePool = new LinkedHashMap<>();
 
     /**
      * stats on the number of cache hit
@@ -81,16 +81,32 @@ public class MemoryPoolImpl implements MemoryPool {
         }
     }
 
+    @Override
+    public ReusableBitmap peek(String url, ImageLoadSpec spec) {
+        synchronized (mBitmapsCachePool) {
+            ArrayList<ReusableBitmap> list = mBitmapsCachePool.get(spec);
+            if (list != null) {
+                for (int i = 0; i < list.size(); i++) {
+                    ReusableBitmap bitmap = list.get(i);
+                    if (url.equals(bitmap.getUri())) {
+                        return bitmap;
+                    }
+                }
+            }
+            return null;
+        }
+    }
+
     @Override
     public void set(ReusableBitmap bitmap) {
         synchronized (mBitmapsCachePool) {
             if (bitmap != null) {
-                LinkedList<ReusableBitmap> list = mBitmapsCachePool.get(bitmap.getSpec());
+                ArrayList<ReusableBitmap> list = mBitmapsCachePool.get(bitmap.getSpec());
                 if (list == null) {
-                    list = new LinkedList<>();
+                    list = new ArrayList<>();
                     mBitmapsCachePool.put(bitmap.getSpec(), list);
                 }
-                list.addFirst(bitmap);
+                list.add(0, bitmap);
             }
         }
     }
@@ -98,14 +114,13 @@ public class MemoryPoolImpl implements MemoryPool {
     @Override
     public ReusableBitmap getUnused(ImageLoadSpec spec) {
         synchronized (mBitmapsCachePool) {
-            LinkedList<ReusableBitmap> list = mBitmapsCachePool.get(spec);
+            ArrayList<ReusableBitmap> list = mBitmapsCachePool.get(spec);
             if (list != null) {
-                Iterator<ReusableBitmap> iter = list.iterator();
                 if (spec.isSizeBounded()) {
-                    while (iter.hasNext()) {
-                        ReusableBitmap bitmap = iter.next();
+                    for (int i = 0; i < list.size(); i++) {
+                        ReusableBitmap bitmap = list.get(i);
                         if (!bitmap.isInUse()) {
-                            iter.remove();
+                            list.remove(i);
                             mReUsed++;
                             bitmap.setInLoadUse(true);
                             return bitmap;
@@ -113,15 +128,7 @@ public class MemoryPoolImpl implements MemoryPool {
                     }
                 } else {
                     // don't keep unbounded bitmaps (only 2 to be nice on quick return)
-                    int grace = 2;
-                    while (iter.hasNext()) {
-                        ReusableBitmap bitmap = iter.next();
-                        if (!bitmap.isInUse() && grace-- < 1) {
-                            mThrown++;
-                            iter.remove();
-                            bitmap.close();
-                        }
-                    }
+                    releaseUnUsedBitmaps(list, 2);
                 }
             }
         }
@@ -134,9 +141,9 @@ public class MemoryPoolImpl implements MemoryPool {
             mReUsed--;
             mReturned++;
             bitmap.setInLoadUse(false);
-            LinkedList<ReusableBitmap> list = mBitmapsCachePool.get(bitmap.getSpec());
+            ArrayList<ReusableBitmap> list = mBitmapsCachePool.get(bitmap.getSpec());
             if (list != null) {
-                list.addFirst(bitmap);
+                list.add(0, bitmap);
             } else {
                 mThrown++;
                 bitmap.close();
@@ -149,6 +156,26 @@ public class MemoryPoolImpl implements MemoryPool {
         releaseUnUsedBitmaps(0);
     }
 
+    /**
+     * The total bytes of the bitmaps in the pool.
+     *
+     * @param inUseOnly true - count only bitmaps that are currently in use
+     */
+    public long getBytes(boolean inUseOnly) {
+        long bytes = 0;
+        synchronized (mBitmapsCachePool) {
+            for (ArrayList<ReusableBitmap> list : mBitmapsCachePool.values()) {
+                for (int i = 0; i < list.size(); i++) {
+                    ReusableBitmap bitmap = list.get(i);
+                    if (!inUseOnly || bitmap.isInUse()) {
+                        bytes += bitmap.getBitmap().getByteCount();
+                    }
+                }
+            }
+        }
+        return bytes;
+    }
+
     /**
      * Populate the given string builder with report on cache status.
      */
@@ -159,6 +186,7 @@ public class MemoryPoolImpl implements MemoryPool {
         sb.append("ReUsed: ").append(mReUsed).append('\n');
         sb.append("Returned: ").append(mReturned).append('\n');
         sb.append("Thrown: ").append(mThrown).append('\n');
+        sb.append("Bytes: ").append(getBytes(false) / 1024).append("K, in use: ").append(getBytes(true) / 1024).append("K\n");
 
         //        sb.append("Small: ")
         //                .append(mSmallCache.items()).append('/')
@@ -172,7 +200,7 @@ public class MemoryPoolImpl implements MemoryPool {
         //
         //        sb.append("Returned: ").append(mReturned).append('\n');
         //        sb.append("Thrown: ").append(mThrown).append('\n');
-        //        for (Map.Entry<ImageLoadSpec, LinkedList<RecycleBitmap>> entry : mReusableBitmaps.entrySet()) {
+        //        for (Map.Entry<ImageLoadSpec, ArrayList<RecycleBitmap>> entry : mReusableBitmaps.entrySet()) {
         //            long size = 0;
         //            for (RecycleBitmap bitmap : entry.getValue()) {
         //                size += bitmap.getBitmap().getByteCount();
@@ -217,14 +245,13 @@ public class MemoryPoolImpl implements MemoryPool {
      * Get bitmap from cache that is of the given spec and has image loaded of the given URI.
      */
     private ReusableBitmap getUnusedBitmapBySpec(String uri, ImageLoadSpec spec) {
-        LinkedList<ReusableBitmap> list = mBitmapsCachePool.get(spec);
+        ArrayList<ReusableBitmap> list = mBitmapsCachePool.get(spec);
         if (list != null) {
-            Iterator<ReusableBitmap> iter = list.iterator();
-            while (iter.hasNext()) {
-                ReusableBitmap bitmap = iter.next();
+            for (int i = 0; i < list.size(); i++) {
+                ReusableBitmap bitmap = list.get(i);
                 if (uri.equals(bitmap.getUri())) {
-                    iter.remove();
-                    list.addLast(bitmap);
+                    list.remove(i);
+                    list.add(bitmap);
                     return bitmap;
                 }
             }
@@ -239,16 +266,25 @@ public class MemoryPoolImpl implements MemoryPool {
      */
     private void releaseUnUsedBitmaps(int graceLevel) {
         FILLogger.debug("trim image cache to size [{}]", graceLevel);
-        for (LinkedList<ReusableBitmap> list : mBitmapsCachePool.values()) {
-            int listGrace = graceLevel;
-            Iterator<ReusableBitmap> iter = list.iterator();
-            while (iter.hasNext()) {
-                ReusableBitmap bitmap = iter.next();
-                if (!bitmap.isInUse() && listGrace-- < 1) {
-                    mThrown++;
-                    iter.remove();
-                    bitmap.close();
-                }
+        synchronized (mBitmapsCachePool) {
+            for (ArrayList<ReusableBitmap> list : mBitmapsCachePool.values()) {
+                releaseUnUsedBitmaps(list, graceLevel);
+            }
+        }
+    }
+
+    /**
+     * Release unused bitmaps that are currently in the given pool list.
+     *
+     * @param graceLevel the number of unused bitmaps NOT to release
+     */
+    private void releaseUnUsedBitmaps(ArrayList<ReusableBitmap> list, int graceLevel) {
+        for (int i = 0; i < list.size(); i++) {
+            ReusableBitmap bitmap = list.get(i);
+            if (!bitmap.isInUse() && graceLevel-- < 1) {
+                mThrown++;
+                list.remove(i--);
+                bitmap.close();
             }
         }
     }
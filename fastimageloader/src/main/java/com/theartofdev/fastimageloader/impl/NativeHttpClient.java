@@ -97,6 +97,11 @@ public class NativeHttpClient implements HttpClient {
             return FILUtils.parseLong(mConnection.getHeaderField("content-length"), -1);
         }
 
+        @Override
+        public String getHeader(String name) {
+            return mConnection.getHeaderField(name);
+        }
+
         @Override
         public InputStream getBodyStream() {
             try {
@@ -0,0 +1,159 @@
+// "Therefore those skilled at the unorthodox
+// are infinite as heaven and earth,
+// inexhaustible as the great rivers.
+// When they come to an end,
+// they begin again,
+// like the days and months;
+// they die and are reborn,
+// like the four seasons."
+//
+// - Sun Tsu,
+// "The Art of War"
+
+package com.theartofdev.fastimageloader.impl;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded cache of image URIs that failed to load, so images that are known to fail are failed fast instead of
+ * requested from the network again on every bind (lists with broken images).<br>
+ * Keyed by the enhanced URI, each failure expires after a duration by its cause: missing images and images that
+ * failed to decode are kept longer than transient server/network errors.<br>
+ * Thread-safe.
+ */
+public final class NegativeCache {
+
+    //region: Fields and Consts
+
+    /**
+     * The response code used to add failure of downloaded image that failed to decode
+     */
+    public static final int DECODE_ERROR = -1;
+
+    /**
+     * The response code used to add failure of downloaded content that was rejected as not a valid image
+     */
+    public static final int INVALID_CONTENT = -2;
+
+    /**
+     * The duration to fail fast image that doesn't exist (404, 410) or failed to decode
+     */
+    static final long NOT_FOUND_TTL = 10 * 60 * 1000;
+
+    /**
+     * The duration to fail fast image that failed with other client error (4xx) or invalid content
+     */
+    static final long CLIENT_ERROR_TTL = 2 * 60 * 1000;
+
+    /**
+     * The duration to fail fast image that failed with transient error (5xx, 408, 429, network error)
+     */
+    static final long TRANSIENT_ERROR_TTL = 20 * 1000;
+
+    /**
+     * The failed URIs to the time the failure expires, oldest first
+     */
+    private final LinkedHashMap<String, Long> mFailures;
+    //endregion
+
+    /**
+     * @param maxSize the max number of failed URIs to keep, oldest are removed
+     */
+    public NegativeCache(final int maxSize) {
+        mFailures = new LinkedHashMap<String, Long>(16, .75f, false) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    /**
+     * Is the image of the given URI failed to load and the failure has not expired yet.
+     *
+     * @param uri the enhanced URI of the image
+     */
+    public boolean isFailed(String uri) {
+        return isFailed(uri, System.currentTimeMillis());
+    }
+
+    /**
+     * Is the image of the given URI failed to load and the failure has not expired by the given time.
+     *
+     * @param uri the enhanced URI of the image
+     * @param now the current time in milliseconds
+     */
+    boolean isFailed(String uri, long now) {
+        synchronized (mFailures) {
+            Long expires = mFailures.get(uri);
+            if (expires != null) {
+                if (expires > now) {
+                    return true;
+                }
+                mFailures.remove(uri);
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Add failure of the image of the given URI, expires by the failure cause.
+     *
+     * @param uri the enhanced URI of the image
+     * @param responseCode the HTTP response code, 0 - network error, {@link #DECODE_ERROR} - failed to decode,
+     * {@link #INVALID_CONTENT} - downloaded content rejected
+     */
+    public void add(String uri, int responseCode) {
+        add(uri, responseCode, System.currentTimeMillis());
+    }
+
+    /**
+     * Add failure of the image of the given URI that happened at the given time, expires by the failure cause.
+     *
+     * @param uri the enhanced URI of the image
+     * @param responseCode the HTTP response code, see {@link #add(String, int)}
+     * @param now the current time in milliseconds
+     */
+    void add(String uri, int responseCode, long now) {
+        long expires = now + getTtl(responseCode);
+        synchronized (mFailures) {
+            mFailures.remove(uri);
+            mFailures.put(uri, expires);
+        }
+    }
+
+    /**
+     * Clear all the failures.
+     */
+    public void clear() {
+        synchronized (mFailures) {
+            mFailures.clear();
+        }
+    }
+
+    @Override
+    public String toString() {
+        synchronized (mFailures) {
+            return "NegativeCache{" +
+                    "mFailures=" + mFailures.size() +
+                    '}';
+        }
+    }
+
+    //region: Private methods
+
+    /**
+     * Get the duration to fail fast the image that failed by the given response code.
+     */
+    private static long getTtl(int responseCode) {
+        if (responseCode == DECODE_ERROR || responseCode == 404 || responseCode == 410) {
+            return NOT_FOUND_TTL;
+        } else if (responseCode == INVALID_CONTENT || responseCode >= 400 && responseCode < 500 && responseCode != 408 && responseCode != 429) {
+            return CLIENT_ERROR_TTL;
+        } else {
+            return TRANSIENT_ERROR_TTL;
+        }
+    }
+    //endregion
+}
@@ -0,0 +1,57 @@
+// "Therefore those skilled at the unorthodox
+// are infinite as heaven and earth,
+// inexhaustible as the great rivers.
+// When they come to an end,
+// they begin again,
+// like the days and months;
+// they die and are reborn,
+// like the four seasons."
+//
+// - Sun Tsu,
+// "The Art of War"
+
+package com.theartofdev.fastimageloader.impl;
+
+import com.theartofdev.fastimageloader.Interceptor;
+import com.theartofdev.fastimageloader.LoadedFrom;
+import com.theartofdev.fastimageloader.impl.util.FILLogger;
+import com.theartofdev.fastimageloader.impl.util.FILMetrics;
+
+/**
+ * Built-in interceptor to fail fast requests of images that recently failed to load, see {@link NegativeCache}.<br>
+ * Executed before the disk cache and network interceptors.
+ */
+public final class NegativeCacheInterceptor implements Interceptor {
+
+    //region: Fields and Consts
+
+    /**
+     * The cache of image URIs that failed to load
+     */
+    private final NegativeCache mNegativeCache;
+    //endregion
+
+    /**
+     * @param negativeCache The cache of image URIs that failed to load
+     */
+    public NegativeCacheInterceptor(NegativeCache negativeCache) {
+        mNegativeCache = negativeCache;
+    }
+
+    @Override
+    public void intercept(Chain chain) {
+        ImageRequest imageRequest = chain.getRequest();
+        if (mNegativeCache.isFailed(imageRequest.getEnhancedUri())) {
+            FILLogger.debug("Image recently failed to load, fail fast... [{}]", imageRequest);
+            FILMetrics.negativeCacheHit(imageRequest.getSpec());
+            chain.complete(LoadedFrom.NETWORK);
+        } else {
+            chain.proceed();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "NegativeCacheInterceptor";
+    }
+}
@@ -0,0 +1,147 @@
+// "Therefore those skilled at the unorthodox
+// are infinite as heaven and earth,
+// inexhaustible as the great rivers.
+// When they come to an end,
+// they begin again,
+// like the days and months;
+// they die and are reborn,
+// like the four seasons."
+//
+// - Sun Tsu,
+// "The Art of War"
+
+package com.theartofdev.fastimageloader.impl;
+
+import com.theartofdev.fastimageloader.Decoder;
+import com.theartofdev.fastimageloader.DiskCache;
+import com.theartofdev.fastimageloader.Downloader;
+import com.theartofdev.fastimageloader.Interceptor;
+import com.theartofdev.fastimageloader.LoadedFrom;
+import com.theartofdev.fastimageloader.MemoryPool;
+import com.theartofdev.fastimageloader.ReusableBitmap;
+import com.theartofdev.fastimageloader.impl.util.FILLogger;
+import com.theartofdev.fastimageloader.impl.util.FILMetrics;
+
+/**
+ * Built-in interceptor to download the image into the disk cache and decode it.<br>
+ * The last interceptor of the chain, always completes the request.
+ */
+public final class NetworkInterceptor implements Interceptor {
+
+    //region: Fields and Consts
+
+    /**
+     * Used to download images from the network to disk.
+     */
+    private final Downloader mDownloader;
+
+    /**
+     * Used to notify disk cache on downloaded images.
+     */
+    private final DiskCache mDiskCache;
+
+    /**
+     * Used to decode images from the disk to bitmap.
+     */
+    private final Decoder mDecoder;
+
+    /**
+     * Used to provide reusable bitmaps for image decoding into.
+     */
+    private final MemoryPool mMemoryPool;
+
+    /**
+     * Used to fail fast images that failed to download or decode.
+     */
+    private final NegativeCache mNegativeCache;
+    //endregion
+
+    /**
+     * @param downloader Used to download images from the network to disk.
+     * @param diskCache Used to notify disk cache on downloaded images.
+     * @param decoder Used to decode images from the disk to bitmap.
+     * @param memoryPool Used to provide reusable bitmaps for image decoding into.
+     * @param negativeCache Used to fail fast images that failed to download or decode.
+     */
+    public NetworkInterceptor(Downloader downloader, DiskCache diskCache, Decoder decoder, MemoryPool memoryPool, NegativeCache negativeCache) {
+        mDownloader = downloader;
+        mDiskCache = diskCache;
+        mDecoder = decoder;
+        mMemoryPool = memoryPool;
+        mNegativeCache = negativeCache;
+    }
+
+    @Override
+    public void intercept(Chain chain) {
+        download(chain, chain.getRequest().isPrefetch());
+    }
+
+    /**
+     * Download the image of the given chain request, as prefetch or regular download.<br>
+     * Prefetch request that is now required by target is downloaded again as regular download, the first to
+     * start the download wins, see {@link ImageRequest#startDownload()}.
+     */
+    public void download(final Chain chain, boolean prefetch) {
+        mDownloader.downloadAsync(chain.getRequest(), prefetch, new Downloader.Callback() {
+            @Override
+            public void loadImageDownloaderCallback(ImageRequest imageRequest, boolean downloaded, boolean canceled) {
+                onDownloaderCallback(chain, imageRequest, downloaded, canceled);
+            }
+        });
+    }
+
+    @Override
+    public String toString() {
+        return "NetworkInterceptor";
+    }
+
+    //region: Private methods
+
+    /**
+     * Callback after image downloader downloaded the image, failed or canceled.<br>
+     * If downloaded and request is still required - decode the image object.<br>
+     * Executed on downloader thread.
+     */
+    private void onDownloaderCallback(Chain chain, ImageRequest imageRequest, boolean downloaded, boolean canceled) {
+        FILLogger.debug("Load image from network callback... [{}] [Downloaded: {}] [Canceled: {}]", imageRequest, downloaded, canceled);
+
+        // if downloaded and request is still valid - load the image object
+        if (downloaded && !canceled && !imageRequest.isDiskPrefetch()) {
+            long start = System.nanoTime();
+            imageRequest.markStage(FILMetrics.STAGE_DECODE_START, start);
+            imageRequest.getEventListener().decodeStart();
+            mDecoder.decode(mMemoryPool, imageRequest, imageRequest.getFile(), imageRequest.getSpec());
+            imageRequest.markStage(FILMetrics.STAGE_DECODE_END);
+            imageRequest.getEventListener().decodeEnd(isLoaded(imageRequest));
+            FILMetrics.mDecode.recordSince(start);
+        }
+
+        // if image was downloaded - notify disk cache, after decode so the transformed image file is included
+        if (downloaded) {
+            mDiskCache.imageAdded(imageRequest);
+        }
+
+        if (isLoaded(imageRequest)) {
+            FILMetrics.networkLoad(imageRequest.getSpec());
+            chain.complete(LoadedFrom.NETWORK);
+        } else if (downloaded && imageRequest.isPrefetch()) {
+            chain.complete(LoadedFrom.NETWORK);
+        } else if (canceled) {
+            chain.canceled();
+        } else {
+            FILMetrics.networkFailure(imageRequest.getSpec());
+            mNegativeCache.add(imageRequest.getEnhancedUri(), downloaded ? NegativeCache.DECODE_ERROR : imageRequest.getResponseCode());
+            chain.complete(LoadedFrom.NETWORK);
+        }
+    }
+
+    /**
+     * Is the image of the request spec loaded, the bitmap may be of the alternative spec loaded from disk cache
+     * before the download.
+     */
+    private static boolean isLoaded(ImageRequest imageRequest) {
+        ReusableBitmap bitmap = imageRequest.getBitmap();
+        return bitmap != null && bitmap.getSpec() == imageRequest.getSpec();
+    }
+    //endregion
+}
@@ -89,6 +89,11 @@ public class OkHttpClient implements HttpClient {
             return FILUtils.parseLong(mResponse.header("content-length"), -1);
         }
 
+        @Override
+        public String getHeader(String name) {
+            return mResponse.header(name);
+        }
+
         @Override
         public InputStream getBodyStream() {
             return mResponse.body().byteStream();
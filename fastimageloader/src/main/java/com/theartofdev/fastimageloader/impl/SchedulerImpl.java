@@ -0,0 +1,121 @@
+// "Therefore those skilled at the unorthodox
+// are infinite as heaven and earth,
+// inexhaustible as the great rivers.
+// When they come to an end,
+// they begin again,
+// like the days and months;
+// they die and are reborn,
+// like the four seasons."
+//
+// - Sun Tsu,
+// "The Art of War"
+
+package com.theartofdev.fastimageloader.impl;
+
+import com.theartofdev.fastimageloader.Scheduler;
+import com.theartofdev.fastimageloader.impl.util.FILUtils;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Default scheduler, a thread pool per type of work with configurable size.<br>
+ * Can also be created from given executors to share threads with the app own executors, the queue size and
+ * active count are reported only for {@link ThreadPoolExecutor}.
+ */
+public final class SchedulerImpl implements Scheduler {
+
+    //region: Fields and Consts
+
+    /**
+     * The executors by pool ordinal
+     */
+    private final Executor[] mExecutors = new Executor[Pool.values().length];
+    //endregion
+
+    /**
+     * Create scheduler with default pool sizes: disk 1, decode 1, network 2, prefetch 1, maintenance 1.
+     */
+    public SchedulerImpl() {
+        this(1, 1, 2, 1);
+    }
+
+    /**
+     * Create scheduler with the given pool sizes, maintenance pool is single thread.<br>
+     * Idle threads are terminated so unused pools don't hold threads.
+     *
+     * @param diskThreads the number of threads for disk cache reads and decoding of cached images
+     * @param decodeThreads the number of threads for CPU bound image work
+     * @param networkThreads the number of threads for image downloads
+     * @param prefetchThreads the number of threads for prefetch image downloads
+     */
+    public SchedulerImpl(int diskThreads, int decodeThreads, int networkThreads, int prefetchThreads) {
+        mExecutors[Pool.DISK.ordinal()] = createExecutor(diskThreads, 60, "ImageCacheRead");
+        mExecutors[Pool.DECODE.ordinal()] = createExecutor(decodeThreads, 30, "ImageDecode");
+        mExecutors[Pool.NETWORK.ordinal()] = createExecutor(networkThreads, 30, "ImageDownloader");
+        mExecutors[Pool.PREFETCH.ordinal()] = createExecutor(prefetchThreads, 30, "ImagePrefetchDownloader");
+        mExecutors[Pool.MAINTENANCE.ordinal()] = createExecutor(1, 10, "ImageCacheScan");
+    }
+
+    /**
+     * Create scheduler from the given executors, the same executor can be used for multiple pools.
+     */
+    public SchedulerImpl(Executor disk, Executor decode, Executor network, Executor prefetch, Executor maintenance) {
+        FILUtils.notNull(disk, "disk");
+        FILUtils.notNull(decode, "decode");
+        FILUtils.notNull(network, "network");
+        FILUtils.notNull(prefetch, "prefetch");
+        FILUtils.notNull(maintenance, "maintenance");
+
+        mExecutors[Pool.DISK.ordinal()] = disk;
+        mExecutors[Pool.DECODE.ordinal()] = decode;
+        mExecutors[Pool.NETWORK.ordinal()] = network;
+        mExecutors[Pool.PREFETCH.ordinal()] = prefetch;
+        mExecutors[Pool.MAINTENANCE.ordinal()] = maintenance;
+    }
+
+    @Override
+    public Executor getExecutor(Pool pool) {
+        return mExecutors[pool.ordinal()];
+    }
+
+    @Override
+    public int getQueueSize(Pool pool) {
+        Executor executor = mExecutors[pool.ordinal()];
+        return executor instanceof ThreadPoolExecutor ? ((ThreadPoolExecutor) executor).getQueue().size() : -1;
+    }
+
+    @Override
+    public int getActiveCount(Pool pool) {
+        Executor executor = mExecutors[pool.ordinal()];
+        return executor instanceof ThreadPoolExecutor ? ((ThreadPoolExecutor) executor).getActiveCount() : -1;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("SchedulerImpl{");
+        for (Pool pool : Pool.values()) {
+            sb.append(pool).append("=").append(getActiveCount(pool)).append("/").append(getQueueSize(pool)).append(", ");
+        }
+        sb.setLength(sb.length() - 2);
+        return sb.append('}').toString();
+    }
+
+    //region: Private methods
+
+    /**
+     * Create thread pool executor of the given size where idle threads are terminated after the given keep alive.
+     */
+    private static ThreadPoolExecutor createExecutor(int threads, long keepAliveSeconds, String name) {
+        if (threads < 1)
+            throw new IllegalArgumentException("pool threads must be > 0: " + name);
+
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, keepAliveSeconds, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(), FILUtils.threadFactory(name, true));
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+    //endregion
+}
@@ -0,0 +1,151 @@
+// "Therefore those skilled at the unorthodox
+// are infinite as heaven and earth,
+// inexhaustible as the great rivers.
+// When they come to an end,
+// they begin again,
+// like the days and months;
+// they die and are reborn,
+// like the four seasons."
+//
+// - Sun Tsu,
+// "The Art of War"
+
+package com.theartofdev.fastimageloader.impl.util;
+
+/**
+ * BlurHash (https://blurha.sh/) decoder for Fast Image Loader internal use only.<br>
+ * Decode compact string representation of an image into pixels of blurred placeholder.
+ */
+public final class BlurHash {
+
+    /**
+     * The base 83 characters used to encode the hash
+     */
+    private static final String CHARS = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz#$%*+,-.:;=?@[]^_{|}~";
+
+    private BlurHash() {
+    }
+
+    /**
+     * Is the given string is a structurally valid blur hash (length match components count).
+     */
+    public static boolean isValid(String hash) {
+        if (hash == null || hash.length() < 6) {
+            return false;
+        }
+        int sizeFlag = decode83(hash, 0, 1);
+        if (sizeFlag < 0) {
+            return false;
+        }
+        int numX = sizeFlag % 9 + 1;
+        int numY = sizeFlag / 9 + 1;
+        return hash.length() == 4 + 2 * numX * numY;
+    }
+
+    /**
+     * Decode the given blur hash into the given pixels array in ARGB format.
+     *
+     * @param hash the blur hash to decode
+     * @param width the width of the image to decode to
+     * @param height the height of the image to decode to
+     * @param pixels the array to write the pixels to, must be at least width*height
+     * @throws IllegalArgumentException the hash is not valid
+     */
+    public static void decode(String hash, int width, int height, int[] pixels) {
+        if (!isValid(hash)) {
+            throw new IllegalArgumentException("Invalid blur hash: " + hash);
+        }
+
+        int sizeFlag = decode83(hash, 0, 1);
+        int numX = sizeFlag % 9 + 1;
+        int numY = sizeFlag / 9 + 1;
+        float maxValue = (decode83(hash, 1, 2) + 1) / 166f;
+
+        float[] colors = new float[numX * numY * 3];
+        decodeDc(decode83(hash, 2, 6), colors);
+        for (int i = 1; i < numX * numY; i++) {
+            decodeAc(decode83(hash, 4 + i * 2, 6 + i * 2), maxValue, colors, i * 3);
+        }
+
+        float[] cosX = new float[width * numX];
+        for (int x = 0; x < width; x++) {
+            for (int i = 0; i < numX; i++) {
+                cosX[x * numX + i] = (float) Math.cos(Math.PI * x * i / width);
+            }
+        }
+        float[] cosY = new float[height * numY];
+        for (int y = 0; y < height; y++) {
+            for (int j = 0; j < numY; j++) {
+                cosY[y * numY + j] = (float) Math.cos(Math.PI * y * j / height);
+            }
+        }
+
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                float r = 0, g = 0, b = 0;
+                for (int j = 0; j < numY; j++) {
+                    for (int i = 0; i < numX; i++) {
+                        float basis = cosX[x * numX + i] * cosY[y * numY + j];
+                        int idx = (j * numX + i) * 3;
+                        r += colors[idx] * basis;
+                        g += colors[idx + 1] * basis;
+                        b += colors[idx + 2] * basis;
+                    }
+                }
+                pixels[y * width + x] = 0xFF000000 | linearToSrgb(r) << 16 | linearToSrgb(g) << 8 | linearToSrgb(b);
+            }
+        }
+    }
+
+    //region: Private methods
+
+    /**
+     * Decode base 83 number from the given range in the hash, -1 if invalid char found.
+     */
+    private static int decode83(String hash, int start, int end) {
+        int value = 0;
+        for (int i = start; i < end; i++) {
+            int digit = CHARS.indexOf(hash.charAt(i));
+            if (digit < 0) {
+                return -1;
+            }
+            value = value * 83 + digit;
+        }
+        return value;
+    }
+
+    /**
+     * Decode the average color component into the first 3 cells of the colors array.
+     */
+    private static void decodeDc(int value, float[] colors) {
+        colors[0] = srgbToLinear(value >> 16);
+        colors[1] = srgbToLinear((value >> 8) & 255);
+        colors[2] = srgbToLinear(value & 255);
+    }
+
+    /**
+     * Decode the AC component into the colors array at the given offset.
+     */
+    private static void decodeAc(int value, float maxValue, float[] colors, int offset) {
+        colors[offset] = signPow((value / (19 * 19) - 9) / 9f) * maxValue;
+        colors[offset + 1] = signPow(((value / 19) % 19 - 9) / 9f) * maxValue;
+        colors[offset + 2] = signPow((value % 19 - 9) / 9f) * maxValue;
+    }
+
+    private static float signPow(float value) {
+        return Math.copySign(value * value, value);
+    }
+
+    private static float srgbToLinear(int value) {
+        float v = value / 255f;
+        return v <= 0.04045f ? v / 12.92f : (float) Math.pow((v + 0.055f) / 1.055f, 2.4f);
+    }
+
+    private static int linearToSrgb(float value) {
+        float v = Math.max(0, Math.min(1, value));
+        return v <= 0.0031308f
+                ? (int) (v * 12.92f * 255 + 0.5f)
+                : (int) ((1.055f * (float) Math.pow(v, 1 / 2.4f) - 0.055f) * 255 + 0.5f);
+    }
+    //endregion
+}
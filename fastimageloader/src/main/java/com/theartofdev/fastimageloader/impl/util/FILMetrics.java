@@ -0,0 +1,353 @@
+// "Therefore those skilled at the unorthodox
+// are infinite as heaven and earth,
+// inexhaustible as the great rivers.
+// When they come to an end,
+// they begin again,
+// like the days and months;
+// they die and are reborn,
+// like the four seasons."
+//
+// - Sun Tsu,
+// "The Art of War"
+
+package com.theartofdev.fastimageloader.impl.util;
+
+import com.theartofdev.fastimageloader.ImageLoadSpec;
+import com.theartofdev.fastimageloader.MetricsSnapshot;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Thread-safe metrics registry for Fast Image Loader internal use only.<br>
+ * Recording is allocation free (except first record of a spec) so it can be used on the load hot path.
+ */
+public final class FILMetrics {
+
+    //region: Fields and Consts
+
+    /**
+     * Stage: image load requested on main thread
+     */
+    public static final int STAGE_ENQUEUED = 0;
+
+    /**
+     * Stage: image load request handling started on dispatcher thread
+     */
+    public static final int STAGE_DISPATCHED = 1;
+
+    /**
+     * Stage: disk cache read queued
+     */
+    public static final int STAGE_DISK_QUEUED = 2;
+
+    /**
+     * Stage: disk cache read started on disk thread
+     */
+    public static final int STAGE_DISK_START = 3;
+
+    /**
+     * Stage: disk cache read finished (including decode)
+     */
+    public static final int STAGE_DISK_END = 4;
+
+    /**
+     * Stage: download queued
+     */
+    public static final int STAGE_DOWNLOAD_QUEUED = 5;
+
+    /**
+     * Stage: download started on download thread
+     */
+    public static final int STAGE_DOWNLOAD_START = 6;
+
+    /**
+     * Stage: download response headers received (time to first byte)
+     */
+    public static final int STAGE_DOWNLOAD_FIRST_BYTE = 7;
+
+    /**
+     * Stage: download finished
+     */
+    public static final int STAGE_DOWNLOAD_END = 8;
+
+    /**
+     * Stage: decode of the image file started
+     */
+    public static final int STAGE_DECODE_START = 9;
+
+    /**
+     * Stage: decode of the image file finished
+     */
+    public static final int STAGE_DECODE_END = 10;
+
+    /**
+     * Stage: loaded image queued for delivery on main thread
+     */
+    public static final int STAGE_DELIVERY_QUEUED = 11;
+
+    /**
+     * Stage: loaded image delivered to targets on main thread
+     */
+    public static final int STAGE_DELIVERED = 12;
+
+    /**
+     * The number of stages
+     */
+    public static final int STAGES = 13;
+
+    /**
+     * Downloaded image rejected as its first bytes don't match a known image format
+     */
+    public static final int REJECT_MAGIC = 0;
+
+    /**
+     * Downloaded image rejected as it is shorter than the response Content-Length
+     */
+    public static final int REJECT_TRUNCATED = 1;
+
+    /**
+     * Downloaded image rejected as bounds-only decode failed
+     */
+    public static final int REJECT_BOUNDS = 2;
+
+    /**
+     * Disk cached image removed from the cache as it failed to decode
+     */
+    public static final int REJECT_DECODE = 3;
+
+    /**
+     * The names of the reject reasons, by reject reason value
+     */
+    private static final String[] REJECT_NAMES = {"magic", "truncated", "bounds", "decode"};
+
+    /**
+     * the count of rejected image files, by reject reason value
+     */
+    private static final StripedCounter[] mRejections = new StripedCounter[REJECT_NAMES.length];
+
+    /**
+     * The names of the stage intervals measured by the stage histograms
+     */
+    private static final String[] STAGE_INTERVAL_NAMES = {
+            "dispatch_wait", "disk_wait", "disk_read", "download_wait", "download_ttfb", "download_transfer",
+            "decode", "delivery_wait", "total"};
+
+    /**
+     * The start and end stages of each stage interval, by the order of {@link #STAGE_INTERVAL_NAMES}
+     */
+    private static final int[][] STAGE_INTERVALS = {
+            {STAGE_ENQUEUED, STAGE_DISPATCHED},
+            {STAGE_DISK_QUEUED, STAGE_DISK_START},
+            {STAGE_DISK_START, STAGE_DISK_END},
+            {STAGE_DOWNLOAD_QUEUED, STAGE_DOWNLOAD_START},
+            {STAGE_DOWNLOAD_START, STAGE_DOWNLOAD_FIRST_BYTE},
+            {STAGE_DOWNLOAD_FIRST_BYTE, STAGE_DOWNLOAD_END},
+            {STAGE_DECODE_START, STAGE_DECODE_END},
+            {STAGE_DELIVERY_QUEUED, STAGE_DELIVERED},
+            {STAGE_ENQUEUED, STAGE_DELIVERED}};
+
+    /**
+     * the latency histogram of each stage interval, by the order of {@link #STAGE_INTERVAL_NAMES}
+     */
+    private static final LatencyHistogram[] mStages = new LatencyHistogram[STAGE_INTERVALS.length];
+
+    static {
+        for (int i = 0; i < mStages.length; i++) {
+            mStages[i] = new LatencyHistogram();
+        }
+        for (int i = 0; i < mRejections.length; i++) {
+            mRejections[i] = new StripedCounter();
+        }
+    }
+
+    /**
+     * the cache tiers counters by spec key
+     */
+    private static final ConcurrentHashMap<String, SpecCounters> mSpecs = new ConcurrentHashMap<>();
+
+    /**
+     * the latency of decoding images into bitmaps
+     */
+    public static final LatencyHistogram mDecode = new LatencyHistogram();
+
+    /**
+     * the latency of downloading images
+     */
+    public static final LatencyHistogram mDownload = new LatencyHistogram();
+
+    /**
+     * the total number of bytes downloaded
+     */
+    public static final StripedCounter mDownloadedBytes = new StripedCounter();
+    //endregion
+
+    private FILMetrics() {
+    }
+
+    /**
+     * Image found in memory cache, by the primary or alternative spec.
+     */
+    public static void memoryHit(ImageLoadSpec spec, boolean alt) {
+        SpecCounters counters = get(spec);
+        (alt ? counters.mMemoryAltHits : counters.mMemoryHits).increment();
+    }
+
+    /**
+     * Image not found in memory cache.
+     */
+    public static void memoryMiss(ImageLoadSpec spec) {
+        get(spec).mMemoryMisses.increment();
+    }
+
+    /**
+     * Image found in disk cache, by the primary or alternative spec.
+     */
+    public static void diskHit(ImageLoadSpec spec, boolean alt) {
+        SpecCounters counters = get(spec);
+        (alt ? counters.mDiskAltHits : counters.mDiskHits).increment();
+    }
+
+    /**
+     * Image not found in disk cache, requested from network.
+     */
+    public static void diskMiss(ImageLoadSpec spec) {
+        get(spec).mDiskMisses.increment();
+    }
+
+    /**
+     * Image loaded from network.
+     */
+    public static void networkLoad(ImageLoadSpec spec) {
+        get(spec).mNetworkLoads.increment();
+    }
+
+    /**
+     * Image failed to load from network.
+     */
+    public static void networkFailure(ImageLoadSpec spec) {
+        get(spec).mNetworkFailures.increment();
+    }
+
+    /**
+     * Count image load failed fast as the image recently failed to load.
+     */
+    public static void negativeCacheHit(ImageLoadSpec spec) {
+        get(spec).mNegativeCacheHits.increment();
+    }
+
+    /**
+     * Count image file rejected as invalid.
+     *
+     * @param reason the reject reason, one of REJECT_* values
+     */
+    public static void reject(int reason) {
+        mRejections[reason].increment();
+    }
+
+    /**
+     * Record the latency of each stage interval of a finished image load request.<br>
+     * Intervals with a stage that was not reached are skipped.
+     *
+     * @param stageTimes the {@link System#nanoTime()} of each stage reached, 0 if not reached
+     */
+    public static void recordStages(long[] stageTimes) {
+        for (int i = 0; i < STAGE_INTERVALS.length; i++) {
+            long start = stageTimes[STAGE_INTERVALS[i][0]];
+            long end = stageTimes[STAGE_INTERVALS[i][1]];
+            if (start > 0 && end >= start) {
+                mStages[i].record(end - start);
+            }
+        }
+    }
+
+    /**
+     * Create snapshot of the stage intervals latencies by interval name.
+     */
+    public static Map<String, MetricsSnapshot.Latency> snapshotStages() {
+        Map<String, MetricsSnapshot.Latency> stages = new LinkedHashMap<>();
+        for (int i = 0; i < mStages.length; i++) {
+            stages.put(STAGE_INTERVAL_NAMES[i], mStages[i].snapshot());
+        }
+        return stages;
+    }
+
+    /**
+     * Create snapshot of the rejected image files count by reject reason name.
+     */
+    public static Map<String, Long> snapshotRejections() {
+        Map<String, Long> rejections = new LinkedHashMap<>();
+        for (int i = 0; i < mRejections.length; i++) {
+            rejections.put(REJECT_NAMES[i], mRejections[i].sum());
+        }
+        return rejections;
+    }
+
+    /**
+     * Create snapshot of the cache tiers stats by spec key.
+     */
+    public static Map<String, MetricsSnapshot.SpecStats> snapshotSpecs() {
+        Map<String, MetricsSnapshot.SpecStats> specs = new HashMap<>();
+        for (Map.Entry<String, SpecCounters> entry : mSpecs.entrySet()) {
+            SpecCounters c = entry.getValue();
+            specs.put(entry.getKey(), new MetricsSnapshot.SpecStats(c.mMemoryHits.sum(), c.mMemoryAltHits.sum(),
+                    c.mMemoryMisses.sum(), c.mDiskHits.sum(), c.mDiskAltHits.sum(), c.mDiskMisses.sum(),
+                    c.mNetworkLoads.sum(), c.mNetworkFailures.sum(), c.mNegativeCacheHits.sum()));
+        }
+        return specs;
+    }
+
+    /**
+     * Reset all the metrics.
+     */
+    public static void reset() {
+        mSpecs.clear();
+        mDecode.reset();
+        mDownload.reset();
+        mDownloadedBytes.reset();
+        for (LatencyHistogram stage : mStages) {
+            stage.reset();
+        }
+        for (StripedCounter rejection : mRejections) {
+            rejection.reset();
+        }
+    }
+
+    //region: Private methods
+
+    /**
+     * Get the counters of the given spec, create if not exists.
+     */
+    private static SpecCounters get(ImageLoadSpec spec) {
+        SpecCounters counters = mSpecs.get(spec.getKey());
+        if (counters == null) {
+            counters = new SpecCounters();
+            SpecCounters existing = mSpecs.putIfAbsent(spec.getKey(), counters);
+            if (existing != null) {
+                counters = existing;
+            }
+        }
+        return counters;
+    }
+    //endregion
+
+    //region: Inner class: SpecCounters
+
+    /**
+     * The cache tiers counters of a single spec.
+     */
+    private static final class SpecCounters {
+        final StripedCounter mMemoryHits = new StripedCounter();
+        final StripedCounter mMemoryAltHits = new StripedCounter();
+        final StripedCounter mMemoryMisses = new StripedCounter();
+        final StripedCounter mDiskHits = new StripedCounter();
+        final StripedCounter mDiskAltHits = new StripedCounter();
+        final StripedCounter mDiskMisses = new StripedCounter();
+        final StripedCounter mNetworkLoads = new StripedCounter();
+        final StripedCounter mNetworkFailures = new StripedCounter();
+        final StripedCounter mNegativeCacheHits = new StripedCounter();
+    }
+    //endregion
+}
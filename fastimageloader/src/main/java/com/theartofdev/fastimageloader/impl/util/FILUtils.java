@@ -12,13 +12,20 @@
 
 package com.theartofdev.fastimageloader.impl.util;
 
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
 import android.graphics.Rect;
 import android.graphics.RectF;
 import android.text.TextUtils;
 
+import com.theartofdev.fastimageloader.ImageLoadSpec;
+import com.theartofdev.fastimageloader.Transformation;
+
 import java.io.Closeable;
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.util.Collection;
 import java.util.concurrent.ThreadFactory;
 
@@ -149,6 +156,44 @@ public final class FILUtils {
         }
     }
 
+    /**
+     * Get the disk cache file of the transformed image of the given cached image file, null if the spec has no
+     * transformation.<br>
+     * The file name includes the transformation key so different transformations are cached separately.
+     */
+    public static File getTransformedFile(File file, ImageLoadSpec spec) {
+        Transformation transformation = spec.getTransformation();
+        return transformation != null && file != null ? new File(file.getPath() + "_" + transformation.getKey()) : null;
+    }
+
+    /**
+     * Write the given bitmap to the given file compressed by the given format.<br>
+     * Write to temp file so if error occurred it won't result in corrupted file.
+     *
+     * @return true - the file was written, false - failed
+     */
+    public static boolean writeBitmap(Bitmap bitmap, File file, Bitmap.CompressFormat format) {
+        File tmpFile = new File(file.getPath() + "_tmp");
+        OutputStream out = null;
+        try {
+            out = new FileOutputStream(tmpFile);
+            if (bitmap.compress(format, 90, out)) {
+                closeSafe(out);
+                out = null;
+                if (tmpFile.renameTo(file)) {
+                    return true;
+                }
+                FILLogger.warn("Failed to rename temp bitmap file to target file [{}]", file);
+            }
+        } catch (Exception e) {
+            FILLogger.warn("Failed to write bitmap to file [{}]", e, file);
+        } finally {
+            closeSafe(out);
+            deleteSafe(tmpFile);
+        }
+        return false;
+    }
+
     /**
      * Close the given closeable object (Stream) in a safe way: check if it is null and catch-log
      * exception thrown.
@@ -181,6 +226,24 @@ public final class FILUtils {
         }
     }
 
+    /**
+     * Is the given image file header can be decoded to valid image bounds, using bounds-only decode so the pixels
+     * are not decoded and no bitmap is allocated.
+     *
+     * @param file the image file to check
+     */
+    public static boolean isImageBounds(File file) {
+        try {
+            BitmapFactory.Options options = new BitmapFactory.Options();
+            options.inJustDecodeBounds = true;
+            BitmapFactory.decodeFile(file.getAbsolutePath(), options);
+            return options.outWidth > 0 && options.outHeight > 0;
+        } catch (Throwable e) {
+            FILLogger.warn("Failed to decode image file bounds [{}]", e, file);
+            return false;
+        }
+    }
+
     /**
      * Format the given <i>format</i> string by replacing {} placeholders with given arguments.
      */
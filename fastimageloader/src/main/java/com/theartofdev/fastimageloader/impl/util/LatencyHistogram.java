@@ -0,0 +1,124 @@
+// "Therefore those skilled at the unorthodox
+// are infinite as heaven and earth,
+// inexhaustible as the great rivers.
+// When they come to an end,
+// they begin again,
+// like the days and months;
+// they die and are reborn,
+// like the four seasons."
+//
+// - Sun Tsu,
+// "The Art of War"
+
+package com.theartofdev.fastimageloader.impl.util;
+
+import com.theartofdev.fastimageloader.MetricsSnapshot;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Thread-safe latency histogram for Fast Image Loader internal use only.<br>
+ * Latencies are counted in power of 2 microsecond buckets so recording is a single atomic increment without
+ * allocation, percentiles are resolved to the upper bound of their bucket.
+ */
+public final class LatencyHistogram {
+
+    //region: Fields and Consts
+
+    /**
+     * The number of buckets, the last bucket holds all latencies above ~17 minutes
+     */
+    private static final int BUCKETS = 31;
+
+    /**
+     * The count of latencies in each bucket, bucket i holds latencies below 2^i microseconds
+     */
+    private final AtomicLongArray mBuckets = new AtomicLongArray(BUCKETS);
+
+    /**
+     * The total of all recorded latencies in microseconds
+     */
+    private final StripedCounter mTotal = new StripedCounter();
+    //endregion
+
+    /**
+     * Record the given latency.
+     *
+     * @param nanos the latency in nanoseconds
+     */
+    public void record(long nanos) {
+        long micros = Math.max(0, nanos / 1000);
+        int bucket = Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(micros));
+        mBuckets.getAndIncrement(bucket);
+        mTotal.add(micros);
+    }
+
+    /**
+     * Record the latency from the given start time to now.
+     *
+     * @param startNanos the start time from {@link System#nanoTime()}
+     */
+    public void recordSince(long startNanos) {
+        record(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Reset all recorded latencies, not atomic to concurrent updates.
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            mBuckets.set(i, 0);
+        }
+        mTotal.reset();
+    }
+
+    /**
+     * Create immutable snapshot of the current histogram state.
+     */
+    public MetricsSnapshot.Latency snapshot() {
+        long[] buckets = new long[BUCKETS];
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets[i] = mBuckets.get(i);
+            count += buckets[i];
+        }
+        long max = 0;
+        for (int i = BUCKETS - 1; i >= 0; i--) {
+            if (buckets[i] > 0) {
+                max = upperBound(i);
+                break;
+            }
+        }
+        return new MetricsSnapshot.Latency(count,
+                count > 0 ? mTotal.sum() / count : 0,
+                percentile(buckets, count, .5),
+                percentile(buckets, count, .9),
+                percentile(buckets, count, .99),
+                max);
+    }
+
+    //region: Private methods
+
+    /**
+     * The upper bound in microseconds of the latency of the given percentile.
+     */
+    private static long percentile(long[] buckets, long count, double percentile) {
+        long threshold = (long) Math.ceil(count * percentile);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += buckets[i];
+            if (seen > 0 && seen >= threshold) {
+                return upperBound(i);
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * The upper bound in microseconds of the given bucket.
+     */
+    private static long upperBound(int bucket) {
+        return 1L << bucket;
+    }
+    //endregion
+}
@@ -0,0 +1,181 @@
+// "Therefore those skilled at the unorthodox
+// are infinite as heaven and earth,
+// inexhaustible as the great rivers.
+// When they come to an end,
+// they begin again,
+// like the days and months;
+// they die and are reborn,
+// like the four seasons."
+//
+// - Sun Tsu,
+// "The Art of War"
+
+package com.theartofdev.fastimageloader.impl.util;
+
+/**
+ * Hash map of primitive long keys to object values for Fast Image Loader internal use only.<br>
+ * Open addressing with linear probing, no allocation is done on get/put/remove unless the map needs to grow.<br>
+ * Null values are not supported, NOT thread-safe.
+ */
+public final class LongHashMap<T> {
+
+    //region: Fields and Consts
+
+    /**
+     * the keys of the map by slot
+     */
+    private long[] mKeys;
+
+    /**
+     * the values of the map by slot, null for empty slot
+     */
+    private Object[] mValues;
+
+    /**
+     * the number of entries in the map
+     */
+    private int mSize;
+    //endregion
+
+    /**
+     * @param initialCapacity the number of entries the map can hold without growing
+     */
+    public LongHashMap(int initialCapacity) {
+        int capacity = 4;
+        while (capacity < initialCapacity * 2) {
+            capacity <<= 1;
+        }
+        mKeys = new long[capacity];
+        mValues = new Object[capacity];
+    }
+
+    /**
+     * the number of entries in the map
+     */
+    public int size() {
+        return mSize;
+    }
+
+    /**
+     * the number of slots in the map, used to iterate the map using {@link #valueAt(int)}.
+     */
+    public int capacity() {
+        return mValues.length;
+    }
+
+    /**
+     * Get the value in the given slot, null if the slot is empty.
+     */
+    @SuppressWarnings("unchecked")
+    public T valueAt(int index) {
+        return (T) mValues[index];
+    }
+
+    /**
+     * Get the value mapped to the given key, null if not found.
+     */
+    @SuppressWarnings("unchecked")
+    public T get(long key) {
+        int mask = mValues.length - 1;
+        for (int i = slot(key, mask); mValues[i] != null; i = (i + 1) & mask) {
+            if (mKeys[i] == key) {
+                return (T) mValues[i];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Map the given value to the given key, replacing existing mapping.
+     */
+    public void put(long key, T value) {
+        FILUtils.notNull(value, "value");
+        int mask = mValues.length - 1;
+        int i = slot(key, mask);
+        for (; mValues[i] != null; i = (i + 1) & mask) {
+            if (mKeys[i] == key) {
+                mValues[i] = value;
+                return;
+            }
+        }
+        mKeys[i] = key;
+        mValues[i] = value;
+        if (++mSize * 2 > mValues.length) {
+            grow();
+        }
+    }
+
+    /**
+     * Remove the mapping of the given key.
+     *
+     * @return the removed value, null if not found
+     */
+    @SuppressWarnings("unchecked")
+    public T remove(long key) {
+        int mask = mValues.length - 1;
+        for (int i = slot(key, mask); mValues[i] != null; i = (i + 1) & mask) {
+            if (mKeys[i] == key) {
+                T value = (T) mValues[i];
+                removeSlot(i, mask);
+                mSize--;
+                return value;
+            }
+        }
+        return null;
+    }
+
+    //region: Private methods
+
+    /**
+     * The home slot of the given key, spread the key bits as request keys are hashes already but low bits matter.
+     */
+    static int slot(long key, int mask) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+
+    /**
+     * Empty the given slot shifting back following entries of the probe sequence so lookup don't break.
+     */
+    private void removeSlot(int index, int mask) {
+        int i = index;
+        int j = index;
+        while (true) {
+            j = (j + 1) & mask;
+            if (mValues[j] == null) {
+                break;
+            }
+            int k = slot(mKeys[j], mask);
+            // entry at j can stay if its home slot is cyclically in (i, j]
+            if (i <= j ? (i < k && k <= j) : (i < k || k <= j)) {
+                continue;
+            }
+            mKeys[i] = mKeys[j];
+            mValues[i] = mValues[j];
+            i = j;
+        }
+        mValues[i] = null;
+    }
+
+    /**
+     * Double the capacity of the map re-inserting all the entries.
+     */
+    private void grow() {
+        long[] keys = mKeys;
+        Object[] values = mValues;
+        mKeys = new long[keys.length * 2];
+        mValues = new Object[values.length * 2];
+        int mask = mValues.length - 1;
+        for (int j = 0; j < values.length; j++) {
+            if (values[j] != null) {
+                int i = slot(keys[j], mask);
+                while (mValues[i] != null) {
+                    i = (i + 1) & mask;
+                }
+                mKeys[i] = keys[j];
+                mValues[i] = values[j];
+            }
+        }
+    }
+    //endregion
+}
@@ -0,0 +1,90 @@
+// "Therefore those skilled at the unorthodox
+// are infinite as heaven and earth,
+// inexhaustible as the great rivers.
+// When they come to an end,
+// they begin again,
+// like the days and months;
+// they die and are reborn,
+// like the four seasons."
+//
+// - Sun Tsu,
+// "The Art of War"
+
+package com.theartofdev.fastimageloader.impl.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Thread-safe counter for Fast Image Loader internal use only.<br>
+ * Updates are spread over padded cells by thread so frequent updates from different threads don't contend on a
+ * single cache line (like LongAdder that is not available on Android), the value is summed on read.
+ */
+public final class StripedCounter {
+
+    //region: Fields and Consts
+
+    /**
+     * The number of cells to spread the updates over, must be power of 2
+     */
+    private static final int STRIPES = 8;
+
+    /**
+     * The number of longs between used cells so each is on a different cache line
+     */
+    private static final int PADDING = 8;
+
+    /**
+     * The counter cells, only each PADDING cell is used
+     */
+    private final AtomicLongArray mCells = new AtomicLongArray(STRIPES * PADDING);
+    //endregion
+
+    /**
+     * Add one to the counter.
+     */
+    public void increment() {
+        mCells.getAndIncrement(cellIndex());
+    }
+
+    /**
+     * Add the given value to the counter.
+     */
+    public void add(long value) {
+        mCells.getAndAdd(cellIndex(), value);
+    }
+
+    /**
+     * The current value of the counter, not atomic to concurrent updates.
+     */
+    public long sum() {
+        long sum = 0;
+        for (int i = 0; i < STRIPES; i++) {
+            sum += mCells.get(i * PADDING);
+        }
+        return sum;
+    }
+
+    /**
+     * Reset the counter to zero, not atomic to concurrent updates.
+     */
+    public void reset() {
+        for (int i = 0; i < STRIPES; i++) {
+            mCells.set(i * PADDING, 0);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.valueOf(sum());
+    }
+
+    //region: Private methods
+
+    /**
+     * The cell of the current thread.
+     */
+    private static int cellIndex() {
+        return ((int) Thread.currentThread().getId() & (STRIPES - 1)) * PADDING;
+    }
+    //endregion
+}
@@ -0,0 +1,255 @@
+// "Therefore those skilled at the unorthodox
+// are infinite as heaven and earth,
+// inexhaustible as the great rivers.
+// When they come to an end,
+// they begin again,
+// like the days and months;
+// they die and are reborn,
+// like the four seasons."
+//
+// - Sun Tsu,
+// "The Art of War"
+
+package com.theartofdev.fastimageloader.target;
+
+import android.os.SystemClock;
+import android.widget.AbsListView;
+
+import com.theartofdev.fastimageloader.FastImageLoader;
+import com.theartofdev.fastimageloader.PrefetchLevel;
+import com.theartofdev.fastimageloader.impl.util.FILLogger;
+import com.theartofdev.fastimageloader.impl.util.FILUtils;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Preload the images of list items ahead of the scroll direction so they are ready when scrolled into view.<br>
+ * Instead of prefetching all the items of the list up front, only the next N items in the scroll direction are
+ * preloaded, extended by the scroll velocity up to max count, and preloads that fall behind are canceled so they
+ * don't compete with the visible images loading.
+ * <br><br>
+ * For ListView/GridView set as the {@link AbsListView.OnScrollListener}, for RecyclerView call
+ * {@link #onScrolled(int, int, int)} from the scroll listener with the layout manager visible positions.<br>
+ * By default the images are prefetched to disk cache, use {@link #setWarmMemory(boolean)} to also decode them into
+ * memory cache for the next screen.<br>
+ * Must be used on main thread.
+ */
+public final class ScrollPreloader implements AbsListView.OnScrollListener {
+
+    //region: Fields and Consts
+
+    /**
+     * The time ahead to extend the preload count by the scroll velocity
+     */
+    private static final long VELOCITY_LOOKAHEAD = 500;
+
+    /**
+     * Provides the images to preload for list items
+     */
+    private final Provider mProvider;
+
+    /**
+     * the number of items to preload ahead of the scroll direction
+     */
+    private final int mPreloadCount;
+
+    /**
+     * the max number of items to preload ahead when the preload count is extended by scroll velocity
+     */
+    private int mMaxPreloadCount;
+
+    /**
+     * If to decode the preloaded images into memory cache and not only prefetch to disk
+     */
+    private boolean mWarmMemory;
+
+    /**
+     * The preloaded items by position, the value is the tag of the item preload requests group
+     */
+    private final Map<Integer, PreloadTag> mPreloaded = new HashMap<>();
+
+    /**
+     * The first visible item position on last scroll event
+     */
+    private int mLastFirstVisible = -1;
+
+    /**
+     * The time of the last scroll event
+     */
+    private long mLastScrollTime;
+
+    /**
+     * The last scroll direction, true - to end of list
+     */
+    private boolean mForward = true;
+    //endregion
+
+    /**
+     * @param provider Provides the images to preload for list items
+     * @param preloadCount the number of items to preload ahead of the scroll direction
+     */
+    public ScrollPreloader(Provider provider, int preloadCount) {
+        FILUtils.notNull(provider, "provider");
+        if (preloadCount < 1)
+            throw new IllegalArgumentException("preload count must be > 0");
+
+        mProvider = provider;
+        mPreloadCount = preloadCount;
+        mMaxPreloadCount = preloadCount * 2;
+    }
+
+    /**
+     * the max number of items to preload ahead when the preload count is extended by scroll velocity
+     * (Default: twice the preload count).
+     */
+    public ScrollPreloader setMaxPreloadCount(int maxPreloadCount) {
+        mMaxPreloadCount = Math.max(mPreloadCount, maxPreloadCount);
+        return this;
+    }
+
+    /**
+     * If to decode the preloaded images into memory cache and not only prefetch to disk (Default: false).<br>
+     * See {@link PrefetchLevel#MEMORY}, the bitmaps are held warm within the loader prefetch memory budget.
+     */
+    public ScrollPreloader setWarmMemory(boolean warmMemory) {
+        mWarmMemory = warmMemory;
+        return this;
+    }
+
+    @Override
+    public void onScrollStateChanged(AbsListView view, int scrollState) {
+    }
+
+    @Override
+    public void onScroll(AbsListView view, int firstVisibleItem, int visibleItemCount, int totalItemCount) {
+        onScrolled(firstVisibleItem, visibleItemCount, totalItemCount);
+    }
+
+    /**
+     * Update the preloaded items by the current visible items of the list.
+     *
+     * @param firstVisible the position of the first visible item
+     * @param visibleCount the number of visible items
+     * @param totalCount the total number of items in the list
+     */
+    public void onScrolled(int firstVisible, int visibleCount, int totalCount) {
+        if (firstVisible < 0 || visibleCount < 1 || totalCount < 1) {
+            return;
+        }
+
+        long now = SystemClock.uptimeMillis();
+        int count = mPreloadCount;
+        if (mLastFirstVisible > -1 && firstVisible != mLastFirstVisible) {
+            mForward = firstVisible > mLastFirstVisible;
+            long elapsed = Math.max(1, now - mLastScrollTime);
+            int ahead = (int) (Math.abs(firstVisible - mLastFirstVisible) * VELOCITY_LOOKAHEAD / elapsed);
+            count = Math.min(mMaxPreloadCount, mPreloadCount + ahead);
+        }
+        mLastFirstVisible = firstVisible;
+        mLastScrollTime = now;
+
+        int lastVisible = firstVisible + visibleCount - 1;
+        int from = mForward ? lastVisible + 1 : Math.max(0, firstVisible - count);
+        int to = mForward ? Math.min(totalCount - 1, lastVisible + count) : firstVisible - 1;
+
+        // cancel preloads that are no longer ahead, visible items are left to complete for the targets
+        if (!mPreloaded.isEmpty()) {
+            int keepFrom = mForward ? lastVisible + 1 : firstVisible - mMaxPreloadCount;
+            int keepTo = mForward ? lastVisible + mMaxPreloadCount : firstVisible - 1;
+            Iterator<Map.Entry<Integer, PreloadTag>> iterator = mPreloaded.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<Integer, PreloadTag> entry = iterator.next();
+                int position = entry.getKey();
+                if (position >= firstVisible && position <= lastVisible) {
+                    iterator.remove();
+                } else if (position < keepFrom || position > keepTo) {
+                    entry.getValue().cancel();
+                    iterator.remove();
+                }
+            }
+        }
+
+        for (int i = 0; i <= to - from; i++) {
+            // preload nearest items first
+            int position = mForward ? from + i : to - i;
+            if (!mPreloaded.containsKey(position)) {
+                mPreloaded.put(position, preload(position));
+            }
+        }
+    }
+
+    /**
+     * Cancel all the preloads and reset the scroll state, call when the list data changes.
+     */
+    public void clear() {
+        for (PreloadTag tag : mPreloaded.values()) {
+            tag.cancel();
+        }
+        mPreloaded.clear();
+        mLastFirstVisible = -1;
+        mForward = true;
+    }
+
+    //region: Private methods
+
+    /**
+     * Preload the images of the item in the given position.
+     */
+    private PreloadTag preload(int position) {
+        PreloadTag tag = new PreloadTag();
+        int count = mProvider.getPreloadImageCount(position);
+        for (int i = 0; i < count; i++) {
+            String uri = mProvider.getPreloadImageUri(position, i);
+            String specKey = mProvider.getPreloadImageSpecKey(position, i);
+            if (uri != null && specKey != null) {
+                FastImageLoader.prefetchImage(uri, specKey, tag, mWarmMemory ? PrefetchLevel.MEMORY : PrefetchLevel.DISK);
+            }
+        }
+        FILLogger.debug("Preload list item images... [{}] [{}]", position, count);
+        return tag;
+    }
+    //endregion
+
+    //region: Inner class: Provider
+
+    /**
+     * Provides the images to preload for list items.
+     */
+    public interface Provider {
+
+        /**
+         * The number of images to preload for the item in the given position.
+         */
+        int getPreloadImageCount(int position);
+
+        /**
+         * The URI of the image in the given index of the item in the given position.
+         */
+        String getPreloadImageUri(int position, int index);
+
+        /**
+         * The spec key to load the image in the given index of the item in the given position by, must be the same
+         * spec the item view loads the image by.
+         */
+        String getPreloadImageSpecKey(int position, int index);
+    }
+    //endregion
+
+    //region: Inner class: PreloadTag
+
+    /**
+     * The tag of the preload requests group of a single item, used to cancel them together.
+     */
+    private static final class PreloadTag {
+
+        /**
+         * Cancel the preload requests of the group.
+         */
+        public void cancel() {
+            FastImageLoader.cancel(this);
+        }
+    }
+    //endregion
+}
@@ -32,6 +32,8 @@ import com.theartofdev.fastimageloader.impl.util.FILUtils;
  * 2. render round image<br>
  * 3. fade effect for showing the image at start.<br>
  * 4. showing indicator if the image was loading from memory/disk/network.<br>
+ * 5. rebind to a different bitmap by {@link #setBitmap(Bitmap, LoadedFrom, boolean)} so the drawable, paint, shader
+ * and matrix are reused instead of allocated on every image load.<br>
  */
 public class TargetCircleDrawable extends Drawable implements AnimatingTargetDrawable {
 
@@ -39,15 +41,20 @@ public class TargetCircleDrawable extends Drawable implements AnimatingTargetDra
 
     private static final float FADE_DURATION = 200f;
 
-    protected final Paint mPaint;
+    protected final Paint mPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
 
     protected final Matrix mMatrix = new Matrix();
 
-    protected final LoadedFrom mLoadedFrom;
+    protected LoadedFrom mLoadedFrom;
 
-    protected final float mBitmapWidth;
+    /**
+     * the bitmap the shader is created for, the shader is reused while the same bitmap object is bound
+     */
+    protected Bitmap mShaderBitmap;
 
-    protected final float mBitmapHeight;
+    protected float mBitmapWidth;
+
+    protected float mBitmapHeight;
 
     protected float mScale = -1;
 
@@ -67,6 +74,19 @@ public class TargetCircleDrawable extends Drawable implements AnimatingTargetDra
      * @param showFade if to show fade effect starting from now
      */
     public TargetCircleDrawable(Bitmap bitmap, LoadedFrom loadedFrom, boolean showFade) {
+        setBitmap(bitmap, loadedFrom, showFade);
+    }
+
+    /**
+     * Rebind the drawable to render the given bitmap.<br>
+     * The shader is recreated only if the bitmap object changed, pooled bitmaps are reused between images so the
+     * same shader serves them, the matrix is updated in place.
+     *
+     * @param bitmap the bitmap to render in the drawable
+     * @param loadedFrom where the bitmap was loaded from MEMORY/DISK/NETWORK for debug indicator
+     * @param showFade if to show fade effect starting from now
+     */
+    public void setBitmap(Bitmap bitmap, LoadedFrom loadedFrom, boolean showFade) {
         FILUtils.notNull(bitmap, "bitmap");
 
         mLoadedFrom = loadedFrom;
@@ -74,11 +94,21 @@ public class TargetCircleDrawable extends Drawable implements AnimatingTargetDra
         mBitmapWidth = bitmap.getWidth();
         mBitmapHeight = bitmap.getHeight();
 
-        mPaint = new Paint();
-        mPaint.setAntiAlias(true);
-        mPaint.setShader(new BitmapShader(bitmap, Shader.TileMode.CLAMP, Shader.TileMode.CLAMP));
+        if (bitmap != mShaderBitmap) {
+            mShaderBitmap = bitmap;
+            mPaint.setShader(new BitmapShader(bitmap, Shader.TileMode.CLAMP, Shader.TileMode.CLAMP));
+        }
+        mPaint.setAlpha(255);
+
+        // force update of the shader matrix by the current bounds for the new bitmap size
+        mScale = -1;
+        Rect bounds = getBounds();
+        if (bounds != null && !bounds.isEmpty()) {
+            setBounds(bounds.left, bounds.top, bounds.right, bounds.bottom);
+        }
 
         mStartTimeMillis = showFade ? SystemClock.uptimeMillis() : 0;
+        invalidateSelf();
     }
 
     @Override
@@ -88,7 +118,7 @@ public class TargetCircleDrawable extends Drawable implements AnimatingTargetDra
 
     @Override
     public void setAlpha(int alpha) {
-
+        mPaint.setAlpha(alpha);
     }
 
     @Override
@@ -121,6 +151,7 @@ public class TargetCircleDrawable extends Drawable implements AnimatingTargetDra
             mTranslateX = translateX;
             mTranslateY = translateY;
             if (mScale != 0 || mTranslateX != 0 || mTranslateY != 0) {
+                mMatrix.reset();
                 if (mScale != 0)
                     mMatrix.setScale(mScale, mScale);
                 if (mTranslateX != 0 || mTranslateY != 0)
@@ -149,13 +180,15 @@ public class TargetCircleDrawable extends Drawable implements AnimatingTargetDra
                 invalidateSelf();
             mStartTimeMillis = 0;
         } else {
-            mPaint.setAlpha((int) (255 * normalized));
+            int alpha = mPaint.getAlpha();
+            mPaint.setAlpha((int) (alpha * normalized));
             drawBitmap(canvas);
-            mPaint.setAlpha(255);
+            mPaint.setAlpha(alpha);
             invalidateSelf();
         }
 
         if (TargetHelper.debugIndicator) {
+            TargetHelper.countDraw();
             Rect bounds = getBounds();
             TargetHelper.drawDebugIndicator(canvas, mLoadedFrom, bounds.width(), bounds.height());
         }
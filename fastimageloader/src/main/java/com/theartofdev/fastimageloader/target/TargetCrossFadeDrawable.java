@@ -0,0 +1,191 @@
+// "Therefore those skilled at the unorthodox
+// are infinite as heaven and earth,
+// inexhaustible as the great rivers.
+// When they come to an end,
+// they begin again,
+// like the days and months;
+// they die and are reborn,
+// like the four seasons."
+//
+// - Sun Tsu,
+// "The Art of War"
+
+package com.theartofdev.fastimageloader.target;
+
+import android.graphics.Canvas;
+import android.graphics.ColorFilter;
+import android.graphics.Rect;
+import android.graphics.drawable.Drawable;
+import android.os.SystemClock;
+
+import com.theartofdev.fastimageloader.impl.util.FILUtils;
+
+/**
+ * Two layers drawable used to cross-fade from an image already shown (alternative spec low-res image) to the
+ * loaded image.<br>
+ * The "from" layer is drawn fully opaque under the "to" layer that fades in over it, so nothing (placeholder,
+ * background) is shown between the two images.<br>
+ * When the fade completes the "from" layer is dropped and the fade end callback is called so the bitmap of the
+ * "from" layer can be released to the pool right away.<br>
+ * The drawable is owned by the target and rebound by {@link #setLayers(Drawable, Drawable, Runnable)}.
+ */
+public class TargetCrossFadeDrawable extends Drawable {
+
+    //region: Fields and Consts
+
+    private static final float FADE_DURATION = TargetHelper.FADE_DURATION;
+
+    /**
+     * the layer of the image shown before, drawn under the fading in layer, null if fade completed
+     */
+    protected Drawable mFrom;
+
+    /**
+     * the layer of the loaded image that fades in
+     */
+    protected Drawable mTo;
+
+    /**
+     * optional: called when the fade completed and the "from" layer is no longer drawn
+     */
+    protected Runnable mOnFadeEnd;
+
+    /**
+     * used for fade animation progress
+     */
+    protected long mStartTimeMillis;
+    //endregion
+
+    /**
+     * @param from the layer of the image shown before
+     * @param to the layer of the loaded image to fade in
+     * @param onFadeEnd optional: called when the fade completed and the "from" layer is no longer drawn
+     */
+    public TargetCrossFadeDrawable(Drawable from, Drawable to, Runnable onFadeEnd) {
+        setLayers(from, to, onFadeEnd);
+    }
+
+    /**
+     * Rebind the drawable to cross-fade between the given layers starting from now.<br>
+     * The drawable must be set again on the view for the new intrinsic size to take effect.
+     *
+     * @param from the layer of the image shown before
+     * @param to the layer of the loaded image to fade in
+     * @param onFadeEnd optional: called when the fade completed and the "from" layer is no longer drawn
+     */
+    public void setLayers(Drawable from, Drawable to, Runnable onFadeEnd) {
+        FILUtils.notNull(from, "from");
+        FILUtils.notNull(to, "to");
+
+        mFrom = from;
+        mTo = to;
+        mOnFadeEnd = onFadeEnd;
+        Rect bounds = getBounds();
+        if (bounds != null && !bounds.isEmpty()) {
+            onBoundsChange(bounds);
+        }
+
+        mStartTimeMillis = SystemClock.uptimeMillis();
+        invalidateSelf();
+    }
+
+    /**
+     * the layer of the loaded image that fades in
+     */
+    public Drawable getTo() {
+        return mTo;
+    }
+
+    /**
+     * Is the cross-fade is still running and the "from" layer is drawn.
+     */
+    public boolean isFading() {
+        return mFrom != null;
+    }
+
+    /**
+     * Stop the cross-fade and show only the loaded image layer, the fade end callback is not called.<br>
+     * Used when the bitmap of the "from" layer is released before the fade completed.
+     */
+    public void endFade() {
+        if (mFrom != null) {
+            mFrom = null;
+            mOnFadeEnd = null;
+            mStartTimeMillis = 0;
+            invalidateSelf();
+        }
+    }
+
+    @Override
+    public int getIntrinsicWidth() {
+        return mTo.getIntrinsicWidth();
+    }
+
+    @Override
+    public int getIntrinsicHeight() {
+        return mTo.getIntrinsicHeight();
+    }
+
+    @Override
+    public void setAlpha(int alpha) {
+        mTo.setAlpha(alpha);
+        if (mFrom != null) {
+            mFrom.setAlpha(alpha);
+        }
+    }
+
+    @Override
+    public void setColorFilter(ColorFilter cf) {
+        mTo.setColorFilter(cf);
+        if (mFrom != null) {
+            mFrom.setColorFilter(cf);
+        }
+    }
+
+    @Override
+    public int getOpacity() {
+        return mTo.getOpacity();
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Additional functionality:<br>
+     * Draw the "from" layer opaque and the "to" layer with opacity to show cross-fade if fading.<br>
+     * On fade complete drop the "from" layer and call the fade end callback.<br>
+     * </p>
+     */
+    @Override
+    public void draw(Canvas canvas) {
+        if (TargetHelper.debugIndicator) {
+            TargetHelper.countDraw();
+        }
+        float normalized = (SystemClock.uptimeMillis() - mStartTimeMillis) / FADE_DURATION;
+        if (mFrom == null || normalized >= 1f) {
+            mTo.draw(canvas);
+            if (mFrom != null) {
+                Runnable onFadeEnd = mOnFadeEnd;
+                mFrom = null;
+                mOnFadeEnd = null;
+                mStartTimeMillis = 0;
+                if (onFadeEnd != null) {
+                    onFadeEnd.run();
+                }
+            }
+        } else {
+            mFrom.draw(canvas);
+            mTo.setAlpha((int) (255 * normalized));
+            mTo.draw(canvas);
+            mTo.setAlpha(255);
+            invalidateSelf();
+        }
+    }
+
+    @Override
+    protected void onBoundsChange(Rect bounds) {
+        mTo.setBounds(bounds);
+        if (mFrom != null) {
+            mFrom.setBounds(bounds);
+        }
+    }
+}
@@ -14,9 +14,13 @@ package com.theartofdev.fastimageloader.target;
 
 import android.graphics.Bitmap;
 import android.graphics.Canvas;
+import android.graphics.ColorFilter;
+import android.graphics.Paint;
+import android.graphics.PixelFormat;
 import android.graphics.Rect;
-import android.graphics.drawable.BitmapDrawable;
+import android.graphics.drawable.Drawable;
 import android.os.SystemClock;
+import android.util.DisplayMetrics;
 
 import com.theartofdev.fastimageloader.LoadedFrom;
 import com.theartofdev.fastimageloader.impl.util.FILUtils;
@@ -25,14 +29,29 @@ import com.theartofdev.fastimageloader.impl.util.FILUtils;
  * Drawable used for loaded images with additional capabilities:<br>
  * 1. fade effect for showing the image at start.<br>
  * 2. showing indicator if the image was loading from memory/disk/network.<br>
+ * 3. rebind to a different bitmap by {@link #setBitmap(Bitmap, LoadedFrom, boolean)} so the drawable can be owned
+ * and reused by the target instead of allocated on every image load.<br>
+ * The bitmap is drawn scaled to the bounds, intrinsic size is the same as of {@link android.graphics.drawable.BitmapDrawable}.
+ * <br><br>
+ * Breaking change (0.9): extends {@link Drawable} and not {@link android.graphics.drawable.BitmapDrawable} as
+ * BitmapDrawable can't be rebound to another bitmap, code that casts image view drawable to BitmapDrawable should use
+ * {@link #getBitmap()} and {@link #getPaint()} of this class instead.
  */
-public class TargetDrawable extends BitmapDrawable implements AnimatingTargetDrawable {
+public class TargetDrawable extends Drawable implements AnimatingTargetDrawable {
 
     //region: Fields and Consts
 
     private static final float FADE_DURATION = 200f;
 
-    protected final LoadedFrom mLoadedFrom;
+    protected final Paint mPaint = new Paint(Paint.FILTER_BITMAP_FLAG | Paint.DITHER_FLAG);
+
+    protected Bitmap mBitmap;
+
+    protected LoadedFrom mLoadedFrom;
+
+    protected int mBitmapWidth;
+
+    protected int mBitmapHeight;
 
     /**
      * used for fade animation progress
@@ -46,12 +65,42 @@ public class TargetDrawable extends BitmapDrawable implements AnimatingTargetDra
      * @param showFade if to show fade effect starting from now
      */
     public TargetDrawable(Bitmap bitmap, LoadedFrom loadedFrom, boolean showFade) {
-        super(bitmap);
+        setBitmap(bitmap, loadedFrom, showFade);
+    }
+
+    /**
+     * Rebind the drawable to render the given bitmap.<br>
+     * The drawable must be set again on the view for the new intrinsic size to take effect.
+     *
+     * @param bitmap the bitmap to render in the drawable
+     * @param loadedFrom where the bitmap was loaded from MEMORY/DISK/NETWORK for debug indicator
+     * @param showFade if to show fade effect starting from now
+     */
+    public void setBitmap(Bitmap bitmap, LoadedFrom loadedFrom, boolean showFade) {
         FILUtils.notNull(bitmap, "bitmap");
 
+        mBitmap = bitmap;
         mLoadedFrom = loadedFrom;
+        mBitmapWidth = bitmap.getScaledWidth(DisplayMetrics.DENSITY_DEFAULT);
+        mBitmapHeight = bitmap.getScaledHeight(DisplayMetrics.DENSITY_DEFAULT);
+        mPaint.setAlpha(255);
 
         mStartTimeMillis = showFade ? SystemClock.uptimeMillis() : 0;
+        invalidateSelf();
+    }
+
+    /**
+     * The bitmap rendered in the drawable
+     */
+    public Bitmap getBitmap() {
+        return mBitmap;
+    }
+
+    /**
+     * The paint used to render the bitmap
+     */
+    public Paint getPaint() {
+        return mPaint;
     }
 
     @Override
@@ -59,6 +108,31 @@ public class TargetDrawable extends BitmapDrawable implements AnimatingTargetDra
         return mStartTimeMillis > 0;
     }
 
+    @Override
+    public int getIntrinsicWidth() {
+        return mBitmapWidth;
+    }
+
+    @Override
+    public int getIntrinsicHeight() {
+        return mBitmapHeight;
+    }
+
+    @Override
+    public void setAlpha(int alpha) {
+        mPaint.setAlpha(alpha);
+    }
+
+    @Override
+    public void setColorFilter(ColorFilter cf) {
+        mPaint.setColorFilter(cf);
+    }
+
+    @Override
+    public int getOpacity() {
+        return mBitmap.hasAlpha() || mPaint.getAlpha() < 255 ? PixelFormat.TRANSLUCENT : PixelFormat.OPAQUE;
+    }
+
     /**
      * {@inheritDoc}
      * <p>
@@ -71,24 +145,29 @@ public class TargetDrawable extends BitmapDrawable implements AnimatingTargetDra
     public void draw(Canvas canvas) {
         float normalized = (SystemClock.uptimeMillis() - mStartTimeMillis) / FADE_DURATION;
         if (normalized >= 1f) {
-            super.draw(canvas);
+            drawBitmap(canvas);
             if (mStartTimeMillis > 0)
                 invalidateSelf();
             mStartTimeMillis = 0;
         } else {
-            setAlpha((int) (255 * normalized));
-            super.draw(canvas);
-            setAlpha(255);
+            int alpha = mPaint.getAlpha();
+            mPaint.setAlpha((int) (alpha * normalized));
+            drawBitmap(canvas);
+            mPaint.setAlpha(alpha);
             invalidateSelf();
         }
 
         if (TargetHelper.debugIndicator) {
+            TargetHelper.countDraw();
             Rect bounds = getBounds();
             TargetHelper.drawDebugIndicator(canvas, mLoadedFrom, bounds.width(), bounds.height());
         }
     }
 
-    //region: Inner class: Animated
-
-    //endregion
-}
\ No newline at end of file
+    /**
+     * Draw the bitmap on the canvas scaled to the bounds.
+     */
+    protected void drawBitmap(Canvas canvas) {
+        canvas.drawBitmap(mBitmap, null, getBounds(), mPaint);
+    }
+}
@@ -49,15 +49,51 @@ public final class TargetHelper {
      */
     public static float mDensity;
 
+    /**
+     * If to fade-in images loaded from disk cache, memory cache hits are never faded (Default: false).<br>
+     * Disk cache hits that replace shown inline preview are always faded.
+     */
+    public static boolean fadeFromCache;
+
+    /**
+     * The duration of image fade-in in milliseconds
+     */
+    public static final long FADE_DURATION = 200;
+
+    /**
+     * The number of target views and drawables draws, used to measure rendering work, counted only when
+     * {@link #debugIndicator} is enabled
+     */
+    private static long mDrawCount;
+
     private TargetHelper() {
     }
 
+    /**
+     * The number of target views and drawables draws since the app started, used to measure rendering work
+     * (fade-in, placeholder, etc.).<br>
+     * Fade-in by the image view alpha on hardware layer is composited without redrawing so it adds no draws.<br>
+     * Draws are counted only when {@link #debugIndicator} is enabled so production draws don't update shared state.
+     */
+    public static long getDrawCount() {
+        return mDrawCount;
+    }
+
+    /**
+     * Count target view/drawable draw, called on main thread from views and drawables draw when
+     * {@link #debugIndicator} is enabled.
+     */
+    static void countDraw() {
+        mDrawCount++;
+    }
+
     /**
      * draw indicator on where the image was loaded from.<br>
-     * Green - memory, Yellow - disk, Red - network.
+     * Green - memory, Yellow - disk, Red - network.<br>
+     * Nothing is drawn for null loaded from (inline preview).
      */
     public static void drawDebugIndicator(Canvas canvas, LoadedFrom loadedFrom, int width, int height) {
-        if (debugIndicator) {
+        if (debugIndicator && loadedFrom != null) {
             if (mDebugPaint == null) {
                 mDebugPaint = new Paint();
                 mDebugPaint.setAntiAlias(true);
@@ -100,6 +100,21 @@ public class TargetImageView extends ImageView {
         mHandler.setInvalidateOnDownloading(show);
     }
 
+    /**
+     * optional: the tag of the request group the image load requests belong to
+     */
+    public Object getRequestTag() {
+        return mHandler.getRequestTag();
+    }
+
+    /**
+     * optional: the tag of the request group the image load requests belong to.<br>
+     * See {@link com.theartofdev.fastimageloader.FastImageLoader#pause(Object)}.
+     */
+    public void setRequestTag(Object requestTag) {
+        mHandler.setRequestTag(requestTag);
+    }
+
     /**
      * The placeholder drawable to draw while the image is not loaded
      */
@@ -112,6 +127,7 @@ public class TargetImageView extends ImageView {
      */
     public void setPlaceholder(Drawable placeholder) {
         mPlaceholder = placeholder;
+        mHandler.setDrawsPlaceholder(placeholder != null);
     }
 
     @Override
@@ -148,6 +164,27 @@ public class TargetImageView extends ImageView {
         mHandler.loadImage(url, specKey, altSpecKey, force);
     }
 
+    /**
+     * Load image from the given source, showing the given inline preview until the image is loaded.
+     *
+     * @param url the avatar source URL to load from
+     * @param specKey the spec to load the image by, must define preview dimension
+     * @param altSpecKey optional: the spec to use for memory cached image in case the primary is not found.
+     * @param preview the inline preview (BlurHash or base64 data URI) to show while the image is loading.
+     * @param force true - force image load even if it is the same source
+     */
+    public void loadImage(String url, String specKey, String altSpecKey, String preview, boolean force) {
+        mHandler.loadImage(url, specKey, altSpecKey, preview, force);
+    }
+
+    /**
+     * Recycle the image view for reuse, call from {@code RecyclerView.Adapter#onViewRecycled}.<br>
+     * Cancel the in-flight image load request and release the used bitmaps so they return to the pool.
+     */
+    public void recycle() {
+        mHandler.recycle();
+    }
+
     /**
      * On image view visibility change set show/hide on the image handler to it will update its in-use status.
      */
@@ -158,12 +195,22 @@ public class TargetImageView extends ImageView {
     }
 
     /**
-     * Override draw to draw placeholder before the image if it is not loaded yet or animating fade-in.
+     * Override draw to draw placeholder/preview before the image if it is not loaded yet or animating fade-in.
      */
     @Override
     public void onDraw(@SuppressWarnings("NullableProblems") Canvas canvas) {
+        if (TargetHelper.debugIndicator) {
+            TargetHelper.countDraw();
+        }
         if (getDrawable() == null || mHandler.isAnimating()) {
-            drawPlaceholder(canvas, mHandler.getLoadState());
+            if (mHandler.getPreviewDrawable() != null) {
+                drawPreview(canvas, mHandler.getPreviewDrawable());
+            } else {
+                drawPlaceholder(canvas, mHandler.getLoadState());
+            }
+        } else if (mHandler.getPreviewDrawable() != null) {
+            // fade-in from preview has finished
+            mHandler.clearPreview();
         }
 
         super.onDraw(canvas);
@@ -186,6 +233,15 @@ public class TargetImageView extends ImageView {
         }
     }
 
+    /**
+     * Draw inline preview of the image if it is loading/animating to show.
+     */
+    protected void drawPreview(Canvas canvas, Drawable preview) {
+        canvas.getClipBounds(FILUtils.rect);
+        preview.setBounds(FILUtils.rect);
+        preview.draw(canvas);
+    }
+
     /**
      * Draw indicator of download progress.
      */
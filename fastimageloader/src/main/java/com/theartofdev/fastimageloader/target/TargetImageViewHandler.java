@@ -12,16 +12,21 @@
 
 package com.theartofdev.fastimageloader.target;
 
+import android.animation.Animator;
+import android.animation.AnimatorListenerAdapter;
 import android.graphics.drawable.Drawable;
+import android.os.Build;
 import android.text.TextUtils;
 import android.view.View;
+import android.view.ViewPropertyAnimator;
 import android.widget.ImageView;
 
 import com.theartofdev.fastimageloader.FastImageLoader;
+import com.theartofdev.fastimageloader.ImageLoadSpec;
 import com.theartofdev.fastimageloader.LoadState;
 import com.theartofdev.fastimageloader.LoadedFrom;
 import com.theartofdev.fastimageloader.ReusableBitmap;
-import com.theartofdev.fastimageloader.Target;
+import com.theartofdev.fastimageloader.SizedTarget;
 import com.theartofdev.fastimageloader.impl.util.FILLogger;
 import com.theartofdev.fastimageloader.impl.util.FILUtils;
 
@@ -50,7 +55,7 @@ import com.theartofdev.fastimageloader.impl.util.FILUtils;
  * }}
  * </pre>
  */
-public class TargetImageViewHandler implements Target, View.OnAttachStateChangeListener {
+public class TargetImageViewHandler implements SizedTarget, View.OnAttachStateChangeListener, View.OnLayoutChangeListener {
 
     //region: Fields and Consts
 
@@ -69,11 +74,123 @@ public class TargetImageViewHandler implements Target, View.OnAttachStateChangeL
      */
     protected String mSpecKey;
 
+    /**
+     * optional: the alternative spec of the image load request
+     */
+    protected String mAltSpecKey;
+
+    /**
+     * Is the image of the primary spec was delivered, not only the alternative spec image
+     */
+    protected boolean mPrimaryLoaded;
+
+    /**
+     * Is image load request of auto-size spec waiting for the image view layout to know the size to load by
+     */
+    protected boolean mWaitingForLayout;
+
+    /**
+     * optional: the tag of the request group the image load requests belong to
+     */
+    protected Object mRequestTag;
+
     /**
      * The loaded image
      */
     protected ReusableBitmap mReusableBitmap;
 
+    /**
+     * The inline preview bitmap shown while the image is loading
+     */
+    protected ReusableBitmap mPreviewBitmap;
+
+    /**
+     * The drawable of the inline preview bitmap to draw as placeholder
+     */
+    protected Drawable mPreviewDrawable;
+
+    /**
+     * The drawable owned by the handler to render the loaded image, rebound on each load instead of allocated
+     */
+    protected TargetDrawable mDrawable;
+
+    /**
+     * The rounded drawable owned by the handler to render the loaded image, rebound on each load instead of allocated
+     */
+    protected TargetCircleDrawable mCircleDrawable;
+
+    /**
+     * The drawable owned by the handler to render the inline preview
+     */
+    protected TargetDrawable mPreviewTargetDrawable;
+
+    /**
+     * The rounded drawable owned by the handler to render the inline preview
+     */
+    protected TargetCircleDrawable mPreviewCircleDrawable;
+
+    /**
+     * The spare drawable used as the cross-fade layer of the shown image, swapped with {@link #mDrawable}
+     */
+    protected TargetDrawable mSpareDrawable;
+
+    /**
+     * The spare rounded drawable used as the cross-fade layer of the shown image, swapped with {@link #mCircleDrawable}
+     */
+    protected TargetCircleDrawable mSpareCircleDrawable;
+
+    /**
+     * The two layers drawable owned by the handler to cross-fade from alternative spec image to the loaded image
+     */
+    protected TargetCrossFadeDrawable mCrossFadeDrawable;
+
+    /**
+     * The alternative spec image shown before the loaded image, kept in use until the cross-fade completes
+     */
+    protected ReusableBitmap mAltBitmap;
+
+    /**
+     * Release the alternative spec image when the cross-fade to the loaded image completes
+     */
+    protected final Runnable mReleaseAltBitmap = new Runnable() {
+        @Override
+        public void run() {
+            releaseAltBitmap();
+        }
+    };
+
+    /**
+     * Reset the view fade-in flag when the image view alpha animation ends (JellyBean+)
+     */
+    protected final Runnable mFadeInViewEnd = new Runnable() {
+        @Override
+        public void run() {
+            mFadingView = false;
+        }
+    };
+
+    /**
+     * Reset the view fade-in flag and remove itself when the image view alpha animation ends (pre JellyBean)
+     */
+    protected final Animator.AnimatorListener mFadeInViewListener = new AnimatorListenerAdapter() {
+        @Override
+        public void onAnimationEnd(Animator animation) {
+            mFadingView = false;
+            mImageView.animate().setListener(null);
+        }
+    };
+
+    /**
+     * Is the image view alpha is currently animated to fade-in the image
+     */
+    protected boolean mFadingView;
+
+    /**
+     * Is the handled image view draws placeholder under the image while it is loading or fading-in,
+     * if so the fade-in is done by the drawable so the placeholder stays visible under the image
+     */
+    protected boolean mDrawsPlaceholder;
+
     /**
      * Is the recycle bitmap is currently set in use in this image view, so not to set twice
      */
@@ -118,6 +235,7 @@ public class TargetImageViewHandler implements Target, View.OnAttachStateChangeL
 
         mImageView = imageView;
         mImageView.addOnAttachStateChangeListener(this);
+        mImageView.addOnLayoutChangeListener(this);
     }
 
     /**
@@ -137,6 +255,22 @@ public class TargetImageViewHandler implements Target, View.OnAttachStateChangeL
                 ((AnimatingTargetDrawable) drawable).isAnimating();
     }
 
+    /**
+     * Is the handled image view draws placeholder under the image while it is loading or fading-in.
+     */
+    public boolean isDrawsPlaceholder() {
+        return mDrawsPlaceholder;
+    }
+
+    /**
+     * Is the handled image view draws placeholder under the image while it is loading or fading-in.<br>
+     * If not the fade-in is done by animating the image view alpha, otherwise the drawable fades over the placeholder
+     * redrawing the view every frame of the fade.
+     */
+    public void setDrawsPlaceholder(boolean drawsPlaceholder) {
+        mDrawsPlaceholder = drawsPlaceholder;
+    }
+
     /**
      * Is the image should be rendered rounded
      */
@@ -165,6 +299,21 @@ public class TargetImageViewHandler implements Target, View.OnAttachStateChangeL
         mInvalidateOnDownloading = invalidateOnDownloading;
     }
 
+    /**
+     * optional: the tag of the request group the image load requests belong to
+     */
+    public Object getRequestTag() {
+        return mRequestTag;
+    }
+
+    /**
+     * optional: the tag of the request group the image load requests belong to.<br>
+     * See {@link com.theartofdev.fastimageloader.FastImageLoader#pause(Object)}.
+     */
+    public void setRequestTag(Object requestTag) {
+        mRequestTag = requestTag;
+    }
+
     /**
      * the number of bytes already downloaded, if requested image is downloading
      */
@@ -179,6 +328,13 @@ public class TargetImageViewHandler implements Target, View.OnAttachStateChangeL
         return mContentLength;
     }
 
+    /**
+     * The drawable of the inline preview to draw as placeholder while the image is loading, null if no preview.
+     */
+    public Drawable getPreviewDrawable() {
+        return mPreviewDrawable;
+    }
+
     @Override
     public String getUri() {
         return mUrl;
@@ -189,6 +345,22 @@ public class TargetImageViewHandler implements Target, View.OnAttachStateChangeL
         return mSpecKey;
     }
 
+    /**
+     * The width of the image view content area.
+     */
+    @Override
+    public int getTargetWidth() {
+        return Math.max(0, mImageView.getWidth() - mImageView.getPaddingLeft() - mImageView.getPaddingRight());
+    }
+
+    /**
+     * The height of the image view content area.
+     */
+    @Override
+    public int getTargetHeight() {
+        return Math.max(0, mImageView.getHeight() - mImageView.getPaddingTop() - mImageView.getPaddingBottom());
+    }
+
     /**
      * See {@link #loadImage(String, String, String, boolean)}.
      */
@@ -203,6 +375,13 @@ public class TargetImageViewHandler implements Target, View.OnAttachStateChangeL
         loadImage(url, specKey, altSpecKey, false);
     }
 
+    /**
+     * See {@link #loadImage(String, String, String, String, boolean)}.
+     */
+    public void loadImage(String url, String specKey, String altSpecKey, boolean force) {
+        loadImage(url, specKey, altSpecKey, null, force);
+    }
+
     /**
      * Load image from the given source.<br>
      * If image of the same source is already requested/loaded the request is ignored unless force is true.
@@ -210,23 +389,43 @@ public class TargetImageViewHandler implements Target, View.OnAttachStateChangeL
      * @param url the avatar source URL to load from
      * @param specKey the spec to load the image by
      * @param altSpecKey optional: the spec to use for memory cached image in case the primary is not found.
+     * @param preview optional: inline preview (BlurHash or base64 data URI) to show while the image is loading.
      * @param force true - force image load even if it is the same source
      */
-    public void loadImage(String url, String specKey, String altSpecKey, boolean force) {
+    public void loadImage(String url, String specKey, String altSpecKey, String preview, boolean force) {
         FILUtils.notNull(specKey, "spec");
 
         mDownloaded = 0;
         mContentLength = 0;
         if (!TextUtils.equals(mUrl, url) || TextUtils.isEmpty(url) || force) {
+            ImageLoadSpec spec = !TextUtils.isEmpty(url) ? FastImageLoader.getSpec(specKey) : null;
+            // the image size is selected by the view size, load when the view is laid out
+            boolean waitForLayout = spec != null && spec.isAutoSize() && getTargetWidth() < 1 && getTargetHeight() < 1;
+            if (TextUtils.isEmpty(url) || waitForLayout) {
+                // no new request replaces the previous request of this target, cancel it so its work stops
+                cancelRequest();
+            }
+
             mStartImageLoadTime = System.currentTimeMillis();
             clearImage();
+            clearPreview();
 
             mUrl = url;
             mSpecKey = specKey;
+            mAltSpecKey = altSpecKey;
+            mPrimaryLoaded = false;
+            mWaitingForLayout = waitForLayout;
 
             if (!TextUtils.isEmpty(url)) {
                 mLoadState = LoadState.LOADING;
-                FastImageLoader.loadImage(this, altSpecKey);
+                if (!waitForLayout) {
+                    FastImageLoader.loadImage(this, altSpecKey, mRequestTag);
+                }
+
+                // image not available in memory, show preview until it is loaded
+                if (mLoadState == LoadState.LOADING && !TextUtils.isEmpty(preview)) {
+                    setPreview(FastImageLoader.loadPreview(preview, specKey));
+                }
             } else {
                 clearUsedBitmap();
                 clearImage();
@@ -235,6 +434,19 @@ public class TargetImageViewHandler implements Target, View.OnAttachStateChangeL
         }
     }
 
+    /**
+     * Recycle the handler for reuse of the image view (RecyclerView holder recycled).<br>
+     * Explicitly cancel the in-flight image load request so its work stops right away, instead of waiting for the
+     * next bind to replace the uri, and release the used bitmaps so they return to the pool.<br>
+     * The request is in-flight until the primary spec image is delivered, also when the alternative spec image is
+     * already shown.
+     */
+    public void recycle() {
+        cancelRequest();
+        clearUsedBitmap();
+        clearImage();
+    }
+
     /**
      * Clear the currently used bitmap and mark it as not in use.
      */
@@ -254,9 +466,25 @@ public class TargetImageViewHandler implements Target, View.OnAttachStateChangeL
     @Override
     public void onBitmapLoaded(ReusableBitmap bitmap, LoadedFrom from) {
 
+        if (mReusableBitmap != null && mInUse && mReusableBitmap != bitmap &&
+                mReusableBitmap.getSpec() != bitmap.getSpec() &&
+                TextUtils.equals(mReusableBitmap.getUri(), mUrl) &&
+                mImageView.getDrawable() != null) {
+            // alternative spec image is shown, keep it in use to cross-fade from it to the loaded image
+            releaseAltBitmap();
+            mAltBitmap = mReusableBitmap;
+            mReusableBitmap = null;
+            mInUse = false;
+        }
+
         clearUsedBitmap(false);
 
         mLoadState = LoadState.LOADED;
+        // auto-size alternative spec is loaded by its largest size bucket
+        ImageLoadSpec altSpec = mAltSpecKey != null ? FastImageLoader.getSpec(mAltSpecKey) : null;
+        if (altSpec == null || bitmap.getSpec() != altSpec.getBucketSpec(0, 0)) {
+            mPrimaryLoaded = true;
+        }
 
         mInUse = true;
         mReusableBitmap = bitmap;
@@ -264,6 +492,10 @@ public class TargetImageViewHandler implements Target, View.OnAttachStateChangeL
 
         setImage(bitmap, from);
 
+        if (!isAnimating()) {
+            clearPreview();
+        }
+
         FILLogger.operation(mUrl, mSpecKey, from, true, System.currentTimeMillis() - mStartImageLoadTime);
     }
 
@@ -310,6 +542,20 @@ public class TargetImageViewHandler implements Target, View.OnAttachStateChangeL
         onViewHidden();
     }
 
+    /**
+     * On layout of the ImageView execute image load request that is waiting to know the view size.
+     */
+    @Override
+    public void onLayoutChange(View v, int left, int top, int right, int bottom, int oldLeft, int oldTop, int oldRight, int oldBottom) {
+        if (mWaitingForLayout) {
+            mWaitingForLayout = false;
+            if (mLoadState == LoadState.LOADING && !TextUtils.isEmpty(mUrl)) {
+                FILLogger.debug("ImageView laid out, load auto-size image... [{}] [{}x{}]", mUrl, getTargetWidth(), getTargetHeight());
+                FastImageLoader.loadImage(this, mAltSpecKey, mRequestTag);
+            }
+        }
+    }
+
     /**
      * On image view shown verify that the set bitmap is still valid for the image view (not reused).<br>
      * If valid: set in-use on the bitmap.<br>
@@ -335,6 +581,8 @@ public class TargetImageViewHandler implements Target, View.OnAttachStateChangeL
             mInUse = false;
             mReusableBitmap.decrementInUse();
         }
+        releaseAltBitmap();
+        clearPreview();
     }
 
     /**
@@ -343,6 +591,7 @@ public class TargetImageViewHandler implements Target, View.OnAttachStateChangeL
     public void close() {
         clearUsedBitmap();
         mImageView.removeOnAttachStateChangeListener(this);
+        mImageView.removeOnLayoutChangeListener(this);
     }
 
     /**
@@ -350,18 +599,193 @@ public class TargetImageViewHandler implements Target, View.OnAttachStateChangeL
      * Called on loading or failure.
      */
     protected void clearImage() {
+        cancelFadeInView();
+        releaseAltBitmap();
         mImageView.setImageDrawable(null);
     }
 
     /**
-     * Called to set the loaded image bitmap in the handled image view.
+     * Called to set the inline preview bitmap to be drawn as placeholder while the image is loading.
+     */
+    protected void setPreview(ReusableBitmap bitmap) {
+        if (bitmap != null) {
+            mPreviewBitmap = bitmap;
+            mPreviewBitmap.incrementInUse();
+            if (mRounded) {
+                if (mPreviewCircleDrawable == null) {
+                    mPreviewCircleDrawable = new TargetCircleDrawable(bitmap.getBitmap(), null, false);
+                } else {
+                    mPreviewCircleDrawable.setBitmap(bitmap.getBitmap(), null, false);
+                }
+                mPreviewDrawable = mPreviewCircleDrawable;
+            } else {
+                if (mPreviewTargetDrawable == null) {
+                    mPreviewTargetDrawable = new TargetDrawable(bitmap.getBitmap(), null, false);
+                } else {
+                    mPreviewTargetDrawable.setBitmap(bitmap.getBitmap(), null, false);
+                }
+                mPreviewDrawable = mPreviewTargetDrawable;
+            }
+            mImageView.invalidate();
+        }
+    }
+
+    /**
+     * Release the inline preview bitmap so it can be reused.<br>
+     * Called when the image has finished showing, new image is loaded or the view is hidden.
+     */
+    public void clearPreview() {
+        if (mPreviewBitmap != null) {
+            mPreviewBitmap.decrementInUse();
+            mPreviewBitmap = null;
+            mPreviewDrawable = null;
+        }
+    }
+
+    /**
+     * Called to set the loaded image bitmap in the handled image view.<br>
+     * Fade-in the image if loaded from network or if it replaces shown preview, other disk cache hits are faded
+     * only if {@link TargetHelper#fadeFromCache}.<br>
+     * If there is no preview or placeholder to fade from the fade-in is done by animating the image view alpha on
+     * hardware layer so the view is not redrawn every frame, otherwise the drawable fades over the preview/placeholder.<br>
+     * If alternative spec image is shown cross-fade from it to the loaded image, see {@link #setCrossFadeImage}.<br>
+     * The drawable is owned by the handler and rebound to the new bitmap, no allocation on image load.
      */
     protected void setImage(ReusableBitmap bitmap, LoadedFrom from) {
-        boolean showFade = from == LoadedFrom.NETWORK && mImageView.getDrawable() == null;
-        Drawable drawable = mRounded
-                ? new TargetCircleDrawable(bitmap.getBitmap(), from, showFade)
-                : new TargetDrawable(bitmap.getBitmap(), from, showFade);
+        if (mAltBitmap != null) {
+            setCrossFadeImage(bitmap, from);
+            return;
+        }
+
+        boolean showFade = mImageView.getDrawable() == null &&
+                (from == LoadedFrom.NETWORK || (from == LoadedFrom.DISK && (mPreviewBitmap != null || TargetHelper.fadeFromCache)));
+        boolean fadeView = showFade && mPreviewBitmap == null && !mDrawsPlaceholder;
+        showFade = showFade && !fadeView;
+        Drawable drawable;
+        if (mRounded) {
+            if (mCircleDrawable == null) {
+                mCircleDrawable = new TargetCircleDrawable(bitmap.getBitmap(), from, showFade);
+            } else {
+                mCircleDrawable.setBitmap(bitmap.getBitmap(), from, showFade);
+            }
+            drawable = mCircleDrawable;
+        } else {
+            if (mDrawable == null) {
+                mDrawable = new TargetDrawable(bitmap.getBitmap(), from, showFade);
+            } else {
+                mDrawable.setBitmap(bitmap.getBitmap(), from, showFade);
+            }
+            drawable = mDrawable;
+        }
+        if (mImageView.getDrawable() == drawable) {
+            // image view ignores setting the same drawable, reset so it picks up the new bitmap size
+            mImageView.setImageDrawable(null);
+        }
         mImageView.setImageDrawable(drawable);
+
+        if (fadeView) {
+            fadeInView();
+        }
+    }
+
+    /**
+     * Called to set the loaded image bitmap in the handled image view replacing the shown alternative spec image.<br>
+     * The shown drawable becomes the bottom layer of two layers drawable and the loaded image fades in over it, so
+     * no placeholder is shown between the images, the alternative spec image is released when the fade completes.<br>
+     * The image drawables are swapped with the spare drawables so nothing is allocated after the first cross-fade.
+     */
+    protected void setCrossFadeImage(ReusableBitmap bitmap, LoadedFrom from) {
+        Drawable fromDrawable = mImageView.getDrawable();
+        if (fromDrawable == mCrossFadeDrawable) {
+            fromDrawable = mCrossFadeDrawable.getTo();
+        }
+
+        Drawable toDrawable;
+        if (mRounded) {
+            if (mCircleDrawable == fromDrawable) {
+                TargetCircleDrawable spare = mSpareCircleDrawable;
+                mSpareCircleDrawable = mCircleDrawable;
+                mCircleDrawable = spare;
+            }
+            if (mCircleDrawable == null) {
+                mCircleDrawable = new TargetCircleDrawable(bitmap.getBitmap(), from, false);
+            } else {
+                mCircleDrawable.setBitmap(bitmap.getBitmap(), from, false);
+            }
+            toDrawable = mCircleDrawable;
+        } else {
+            if (mDrawable == fromDrawable) {
+                TargetDrawable spare = mSpareDrawable;
+                mSpareDrawable = mDrawable;
+                mDrawable = spare;
+            }
+            if (mDrawable == null) {
+                mDrawable = new TargetDrawable(bitmap.getBitmap(), from, false);
+            } else {
+                mDrawable.setBitmap(bitmap.getBitmap(), from, false);
+            }
+            toDrawable = mDrawable;
+        }
+
+        if (mCrossFadeDrawable == null) {
+            mCrossFadeDrawable = new TargetCrossFadeDrawable(fromDrawable, toDrawable, mReleaseAltBitmap);
+        } else {
+            mCrossFadeDrawable.setLayers(fromDrawable, toDrawable, mReleaseAltBitmap);
+        }
+        mImageView.setImageDrawable(mCrossFadeDrawable);
+    }
+
+    /**
+     * Release the alternative spec image shown before the loaded image so it can be reused.<br>
+     * Called when the cross-fade completes, new image is loaded or the view is hidden.
+     */
+    protected void releaseAltBitmap() {
+        if (mAltBitmap != null) {
+            mAltBitmap.decrementInUse();
+            mAltBitmap = null;
+            if (mCrossFadeDrawable != null) {
+                mCrossFadeDrawable.endFade();
+            }
+        }
+    }
+
+    /**
+     * Fade-in the image view by animating its alpha, using hardware layer during the animation (JellyBean+).<br>
+     * The fading flag is reset when the animation ends so the view alpha and animations are not touched after.
+     */
+    protected void fadeInView() {
+        mFadingView = true;
+        mImageView.setAlpha(0f);
+        ViewPropertyAnimator animator = mImageView.animate()
+                .alpha(1f)
+                .setDuration(TargetHelper.FADE_DURATION);
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+            animator.withLayer().withEndAction(mFadeInViewEnd);
+        } else {
+            animator.setListener(mFadeInViewListener);
+        }
+    }
+
+    /**
+     * Cancel running image view fade-in and restore the view alpha.
+     */
+    protected void cancelFadeInView() {
+        if (mFadingView) {
+            mFadingView = false;
+            mImageView.animate().cancel();
+            mImageView.setAlpha(1f);
+        }
+    }
+
+    /**
+     * Cancel the in-flight image load request of the current url so the request no longer holds this target.<br>
+     * The request is in-flight until the primary spec image is delivered, also when the alternative spec image is
+     * already shown. Must be called before the url is replaced.
+     */
+    protected void cancelRequest() {
+        if (!TextUtils.isEmpty(mUrl) && !mWaitingForLayout && !mPrimaryLoaded) {
+            FastImageLoader.cancelImage(this);
+        }
     }
 
     /**
@@ -371,6 +795,9 @@ public class TargetImageViewHandler implements Target, View.OnAttachStateChangeL
         if (full) {
             mUrl = null;
             mSpecKey = null;
+            mWaitingForLayout = false;
+            releaseAltBitmap();
+            clearPreview();
         }
         mLoadState = LoadState.UNSET;
         if (mReusableBitmap != null) {
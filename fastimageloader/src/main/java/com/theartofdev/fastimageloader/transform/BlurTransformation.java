@@ -0,0 +1,110 @@
+// "Therefore those skilled at the unorthodox
+// are infinite as heaven and earth,
+// inexhaustible as the great rivers.
+// When they come to an end,
+// they begin again,
+// like the days and months;
+// they die and are reborn,
+// like the four seasons."
+//
+// - Sun Tsu,
+// "The Art of War"
+
+package com.theartofdev.fastimageloader.transform;
+
+import android.graphics.Bitmap;
+
+import com.theartofdev.fastimageloader.Transformation;
+
+/**
+ * Blur the image using 3 passes of box blur that approximate gaussian blur.<br>
+ * Executed on the pixels in java so it works on all API levels, the cost is linear in the number of
+ * pixels regardless of the radius.
+ */
+public class BlurTransformation implements Transformation {
+
+    /**
+     * the radius of the blur in pixels
+     */
+    private final int mRadius;
+
+    /**
+     * @param radius the radius of the blur in pixels
+     */
+    public BlurTransformation(int radius) {
+        if (radius < 1)
+            throw new IllegalArgumentException("radius must be >= 1");
+        mRadius = radius;
+    }
+
+    @Override
+    public String getKey() {
+        return "blur" + mRadius;
+    }
+
+    @Override
+    public void transform(Bitmap source, Bitmap target) {
+        int width = source.getWidth();
+        int height = source.getHeight();
+        int[] pixels = new int[width * height];
+        int[] temp = new int[width * height];
+        source.getPixels(pixels, 0, width, 0, 0, width, height);
+
+        for (int i = 0; i < 3; i++) {
+            blurPass(pixels, temp, width, height, 1, width);
+            blurPass(temp, pixels, height, width, width, 1);
+        }
+
+        target.setPixels(pixels, 0, width, 0, 0, width, height);
+    }
+
+    @Override
+    public String toString() {
+        return "BlurTransformation{" +
+                "mRadius=" + mRadius +
+                '}';
+    }
+
+    //region: Private methods
+
+    /**
+     * Single box blur pass over the lines of the image, using running sum for each channel.
+     *
+     * @param in the pixels to blur
+     * @param out the pixels to write the result to
+     * @param length the number of pixels in a line
+     * @param lines the number of lines
+     * @param step the offset between pixels in a line
+     * @param lineStep the offset between lines
+     */
+    private void blurPass(int[] in, int[] out, int length, int lines, int step, int lineStep) {
+        int radius = Math.min(mRadius, length - 1);
+        int window = radius * 2 + 1;
+        for (int line = 0; line < lines; line++) {
+            int start = line * lineStep;
+            int a = 0, r = 0, g = 0, b = 0;
+            for (int i = -radius; i <= radius; i++) {
+                int p = in[start + clamp(i, length) * step];
+                a += p >>> 24;
+                r += (p >> 16) & 0xFF;
+                g += (p >> 8) & 0xFF;
+                b += p & 0xFF;
+            }
+            for (int i = 0; i < length; i++) {
+                out[start + i * step] = (a / window) << 24 | (r / window) << 16 | (g / window) << 8 | (b / window);
+
+                int add = in[start + clamp(i + radius + 1, length) * step];
+                int remove = in[start + clamp(i - radius, length) * step];
+                a += (add >>> 24) - (remove >>> 24);
+                r += ((add >> 16) & 0xFF) - ((remove >> 16) & 0xFF);
+                g += ((add >> 8) & 0xFF) - ((remove >> 8) & 0xFF);
+                b += (add & 0xFF) - (remove & 0xFF);
+            }
+        }
+    }
+
+    private static int clamp(int index, int length) {
+        return index < 0 ? 0 : index >= length ? length - 1 : index;
+    }
+    //endregion
+}
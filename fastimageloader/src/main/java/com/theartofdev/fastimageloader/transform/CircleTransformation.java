@@ -0,0 +1,52 @@
+// "Therefore those skilled at the unorthodox
+// are infinite as heaven and earth,
+// inexhaustible as the great rivers.
+// When they come to an end,
+// they begin again,
+// like the days and months;
+// they die and are reborn,
+// like the four seasons."
+//
+// - Sun Tsu,
+// "The Art of War"
+
+package com.theartofdev.fastimageloader.transform;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapShader;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.PorterDuff;
+import android.graphics.Shader;
+
+import com.theartofdev.fastimageloader.Transformation;
+
+/**
+ * Crop the image into a circle, the area outside the circle is transparent.<br>
+ * Requires pixel config with alpha (ARGB_8888) for the transparent area.
+ */
+public class CircleTransformation implements Transformation {
+
+    @Override
+    public String getKey() {
+        return "circle";
+    }
+
+    @Override
+    public void transform(Bitmap source, Bitmap target) {
+        Canvas canvas = new Canvas(target);
+        canvas.drawColor(Color.TRANSPARENT, PorterDuff.Mode.CLEAR);
+
+        Paint paint = new Paint(Paint.ANTI_ALIAS_FLAG | Paint.FILTER_BITMAP_FLAG);
+        paint.setShader(new BitmapShader(source, Shader.TileMode.CLAMP, Shader.TileMode.CLAMP));
+
+        float radius = Math.min(source.getWidth(), source.getHeight()) / 2f;
+        canvas.drawCircle(source.getWidth() / 2f, source.getHeight() / 2f, radius, paint);
+    }
+
+    @Override
+    public String toString() {
+        return "CircleTransformation";
+    }
+}
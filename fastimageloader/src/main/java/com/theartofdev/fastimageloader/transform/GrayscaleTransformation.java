@@ -0,0 +1,49 @@
+// "Therefore those skilled at the unorthodox
+// are infinite as heaven and earth,
+// inexhaustible as the great rivers.
+// When they come to an end,
+// they begin again,
+// like the days and months;
+// they die and are reborn,
+// like the four seasons."
+//
+// - Sun Tsu,
+// "The Art of War"
+
+package com.theartofdev.fastimageloader.transform;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.ColorMatrix;
+import android.graphics.ColorMatrixColorFilter;
+import android.graphics.Paint;
+
+import com.theartofdev.fastimageloader.Transformation;
+
+/**
+ * Convert the image to grayscale.
+ */
+public class GrayscaleTransformation implements Transformation {
+
+    @Override
+    public String getKey() {
+        return "grayscale";
+    }
+
+    @Override
+    public void transform(Bitmap source, Bitmap target) {
+        ColorMatrix matrix = new ColorMatrix();
+        matrix.setSaturation(0);
+
+        Paint paint = new Paint(Paint.FILTER_BITMAP_FLAG);
+        paint.setColorFilter(new ColorMatrixColorFilter(matrix));
+
+        Canvas canvas = new Canvas(target);
+        canvas.drawBitmap(source, 0, 0, paint);
+    }
+
+    @Override
+    public String toString() {
+        return "GrayscaleTransformation";
+    }
+}
@@ -0,0 +1,66 @@
+// "Therefore those skilled at the unorthodox
+// are infinite as heaven and earth,
+// inexhaustible as the great rivers.
+// When they come to an end,
+// they begin again,
+// like the days and months;
+// they die and are reborn,
+// like the four seasons."
+//
+// - Sun Tsu,
+// "The Art of War"
+
+package com.theartofdev.fastimageloader.transform;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapShader;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.PorterDuff;
+import android.graphics.RectF;
+import android.graphics.Shader;
+
+import com.theartofdev.fastimageloader.Transformation;
+
+/**
+ * Round the corners of the image, the area outside the corners is transparent.<br>
+ * Requires pixel config with alpha (ARGB_8888) for the transparent area.
+ */
+public class RoundedCornersTransformation implements Transformation {
+
+    /**
+     * the radius of the corners in pixels
+     */
+    private final int mRadius;
+
+    /**
+     * @param radius the radius of the corners in pixels
+     */
+    public RoundedCornersTransformation(int radius) {
+        mRadius = radius;
+    }
+
+    @Override
+    public String getKey() {
+        return "rounded" + mRadius;
+    }
+
+    @Override
+    public void transform(Bitmap source, Bitmap target) {
+        Canvas canvas = new Canvas(target);
+        canvas.drawColor(Color.TRANSPARENT, PorterDuff.Mode.CLEAR);
+
+        Paint paint = new Paint(Paint.ANTI_ALIAS_FLAG | Paint.FILTER_BITMAP_FLAG);
+        paint.setShader(new BitmapShader(source, Shader.TileMode.CLAMP, Shader.TileMode.CLAMP));
+
+        canvas.drawRoundRect(new RectF(0, 0, source.getWidth(), source.getHeight()), mRadius, mRadius, paint);
+    }
+
+    @Override
+    public String toString() {
+        return "RoundedCornersTransformation{" +
+                "mRadius=" + mRadius +
+                '}';
+    }
+}
@@ -0,0 +1,31 @@
+// "Therefore those skilled at the unorthodox
+// are infinite as heaven and earth,
+// inexhaustible as the great rivers.
+// When they come to an end,
+// they begin again,
+// like the days and months;
+// they die and are reborn,
+// like the four seasons."
+//
+// - Sun Tsu,
+// "The Art of War"
+
+package com.theartofdev.fastimageloader;
+
+import com.theartofdev.fastimageloader.adapter.IdentityAdapter;
+
+/**
+ * Create {@link ImageLoadSpec} instances for unit tests without {@link FastImageLoader} initialization.
+ */
+public final class TestSpecs {
+
+    private TestSpecs() {
+    }
+
+    /**
+     * Create spec with the given key and dimensions, not registered in {@link FastImageLoader}.
+     */
+    public static ImageLoadSpec create(String key, int width, int height) {
+        return new ImageLoadSpec(key, width, height, ImageLoadSpec.Format.JPEG, null, new IdentityAdapter(), null, null, null, null, 1);
+    }
+}
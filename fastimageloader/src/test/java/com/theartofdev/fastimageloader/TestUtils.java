@@ -0,0 +1,146 @@
+// "Therefore those skilled at the unorthodox
+// are infinite as heaven and earth,
+// inexhaustible as the great rivers.
+// When they come to an end,
+// they begin again,
+// like the days and months;
+// they die and are reborn,
+// like the four seasons."
+//
+// - Sun Tsu,
+// "The Art of War"
+
+package com.theartofdev.fastimageloader;
+
+import org.junit.Assert;
+import org.junit.Assume;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+
+/**
+ * Utilities for unit tests: count allocated bytes of the current thread, create instances of android classes
+ * that can't be constructed on the JVM and stub the loader components.
+ */
+public final class TestUtils {
+
+    /**
+     * the thread management bean, obtained once as getting it allocates
+     */
+    private static final ThreadMXBean mThreadBean = ManagementFactory.getThreadMXBean();
+
+    /**
+     * the number of times to run the action measured for allocations
+     */
+    private static final int ITERATIONS = 1000;
+
+    /**
+     * the max number of rounds to measure the action allocations in
+     */
+    private static final int ROUNDS = 5;
+
+    /**
+     * action that does nothing, to measure the bytes allocated by the measurement itself
+     */
+    private static final Runnable EMPTY_ACTION = new Runnable() {
+        @Override
+        public void run() {
+        }
+    };
+
+    private TestUtils() {
+    }
+
+    /**
+     * Skip the test if the JVM doesn't support counting the bytes allocated by a thread.
+     */
+    public static void assumeAllocationCounting() {
+        Assume.assumeTrue(mThreadBean instanceof com.sun.management.ThreadMXBean);
+        Assume.assumeTrue(((com.sun.management.ThreadMXBean) mThreadBean).isThreadAllocatedMemorySupported() &&
+                ((com.sun.management.ThreadMXBean) mThreadBean).isThreadAllocatedMemoryEnabled());
+    }
+
+    /**
+     * The total number of bytes allocated by the current thread, see {@link #assumeAllocationCounting()}.
+     */
+    public static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) mThreadBean).getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    /**
+     * Assert running the given action doesn't allocate.<br>
+     * The bytes allocated by the current thread while running the action repeatedly, less the bytes allocated by
+     * measuring an empty action, must be zero in at least one of a few measurement rounds: one-time class loading
+     * and JIT warm-up allocate only in the first rounds, while allocation by the action shows in every round.<br>
+     * Skips the test if the JVM doesn't support counting the bytes allocated by a thread.
+     */
+    public static void assertNoAllocation(Runnable action) {
+        assumeAllocationCounting();
+        long allocated = 0;
+        for (int i = 0; i < ROUNDS; i++) {
+            long overhead = measureAllocation(EMPTY_ACTION);
+            allocated = measureAllocation(action) - overhead;
+            if (allocated == 0) {
+                return;
+            }
+        }
+        Assert.assertEquals("allocated bytes in " + ITERATIONS + " runs", 0, allocated);
+    }
+
+    /**
+     * Create instance of the given class without calling its constructor (android.graphics.Bitmap).
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> T allocate(Class<T> type) {
+        try {
+            Field field = Class.forName("sun.misc.Unsafe").getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            Object unsafe = field.get(null);
+            return (T) unsafe.getClass().getMethod("allocateInstance", Class.class).invoke(unsafe, type);
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to allocate instance of " + type, e);
+        }
+    }
+
+    /**
+     * Create instance of the given interface that does nothing and returns default values, the disk cache returns
+     * file by the uri.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> T stub(Class<T> type) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class[]{type}, new InvocationHandler() {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) {
+                if (method.getReturnType() == File.class) {
+                    return new File(String.valueOf(args[0]));
+                } else if (method.getReturnType() == boolean.class) {
+                    return false;
+                } else if (method.getReturnType() == int.class) {
+                    return 0;
+                } else if (method.getReturnType() == long.class) {
+                    return 0L;
+                }
+                return null;
+            }
+        });
+    }
+
+    //region: Private methods
+
+    /**
+     * The bytes allocated by the current thread while running the given action {@link #ITERATIONS} times.
+     */
+    private static long measureAllocation(Runnable action) {
+        long start = allocatedBytes();
+        for (int i = 0; i < ITERATIONS; i++) {
+            action.run();
+        }
+        return allocatedBytes() - start;
+    }
+    //endregion
+}
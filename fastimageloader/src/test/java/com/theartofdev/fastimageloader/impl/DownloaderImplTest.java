@@ -0,0 +1,105 @@
+// "Therefore those skilled at the unorthodox
+// are infinite as heaven and earth,
+// inexhaustible as the great rivers.
+// When they come to an end,
+// they begin again,
+// like the days and months;
+// they die and are reborn,
+// like the four seasons."
+//
+// - Sun Tsu,
+// "The Art of War"
+
+package com.theartofdev.fastimageloader.impl;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class DownloaderImplTest {
+
+    @Test
+    public void imageHeaders() {
+        assertTrue(isImageHeader(0xFF, 0xD8, 0xFF, 0xE0));
+        assertTrue(isImageHeader(0x89, 'P', 'N', 'G', 0x0D, 0x0A, 0x1A, 0x0A));
+        assertTrue(isImageHeader('G', 'I', 'F', '8', '9', 'a'));
+        assertTrue(isImageHeader('R', 'I', 'F', 'F', 0, 0, 0, 0, 'W', 'E', 'B', 'P'));
+        assertTrue(isImageHeader('B', 'M'));
+        assertTrue(isImageHeader(0, 0, 1, 0));
+        assertTrue(isImageHeader(0, 0, 0, 0x18, 'f', 't', 'y', 'p', 'h', 'e', 'i', 'c'));
+    }
+
+    @Test
+    public void notImageHeaders() {
+        assertFalse(isImageHeader('<', '!', 'D', 'O', 'C', 'T', 'Y', 'P', 'E', ' ', 'h', 't'));
+        assertFalse(isImageHeader('{', '"', 'e', 'r', 'r', 'o', 'r', '"', ':', ' ', '1', '}'));
+        assertFalse(isImageHeader('R', 'I', 'F', 'F', 0, 0, 0, 0, 'W', 'A', 'V', 'E'));
+        assertFalse(isImageHeader(0xFF, 0xD8, 0x00));
+    }
+
+    @Test
+    public void shortContentIsNotImage() {
+        byte[] header = bytes(0xFF, 0xD8, 0xFF, 0xE0, 0, 0x10, 'J', 'F', 'I', 'F', 0, 1);
+        assertTrue(DownloaderImpl.isImageHeader(header, DownloaderImpl.HEADER_SIZE));
+        assertFalse(DownloaderImpl.isImageHeader(header, DownloaderImpl.HEADER_SIZE - 1));
+        assertFalse(DownloaderImpl.isImageHeader(header, 3));
+        assertFalse(DownloaderImpl.isImageHeader(header, 0));
+    }
+
+    @Test
+    public void cacheExpiresByMaxAge() {
+        assertExpiresIn("max-age=60", 60 * 1000);
+        assertExpiresIn("public, max-age=86400", 86400 * 1000L);
+        assertExpiresIn(" Max-Age=60 ", 60 * 1000);
+        assertExpiresIn("max-age=0", 0);
+    }
+
+    @Test
+    public void cacheExpiresNowOnNoCache() {
+        assertExpiresIn("no-cache", 0);
+        assertExpiresIn("no-store", 0);
+        assertExpiresIn("max-age=60, no-store", 0);
+        assertExpiresIn("no-cache, max-age=60", 0);
+    }
+
+    @Test
+    public void noCacheExpiresWithoutMaxAge() {
+        assertEquals(0, DownloaderImpl.getCacheExpires(null));
+        assertEquals(0, DownloaderImpl.getCacheExpires(""));
+        assertEquals(0, DownloaderImpl.getCacheExpires("public"));
+        assertEquals(0, DownloaderImpl.getCacheExpires("max-age=abc"));
+    }
+
+    //region: Private methods
+
+    /**
+     * Assert the cache expiration time of the given Cache-Control header is the given duration from now.
+     */
+    private static void assertExpiresIn(String cacheControl, long duration) {
+        long before = System.currentTimeMillis();
+        long expires = DownloaderImpl.getCacheExpires(cacheControl);
+        long after = System.currentTimeMillis();
+        assertTrue(cacheControl, expires >= before + duration && expires <= after + duration);
+    }
+
+    /**
+     * Is the given leading bytes, padded with zeros to full header, are recognized as image header.
+     */
+    private static boolean isImageHeader(int... values) {
+        return DownloaderImpl.isImageHeader(bytes(values), DownloaderImpl.HEADER_SIZE);
+    }
+
+    /**
+     * Create header buffer from the given leading bytes padded with zeros to full header.
+     */
+    private static byte[] bytes(int... values) {
+        byte[] bytes = new byte[Math.max(values.length, DownloaderImpl.HEADER_SIZE)];
+        for (int i = 0; i < values.length; i++) {
+            bytes[i] = (byte) values[i];
+        }
+        return bytes;
+    }
+    //endregion
+}
@@ -0,0 +1,169 @@
+// "Therefore those skilled at the unorthodox
+// are infinite as heaven and earth,
+// inexhaustible as the great rivers.
+// When they come to an end,
+// they begin again,
+// like the days and months;
+// they die and are reborn,
+// like the four seasons."
+//
+// - Sun Tsu,
+// "The Art of War"
+
+package com.theartofdev.fastimageloader.impl;
+
+import com.theartofdev.fastimageloader.ImageLoadSpec;
+import com.theartofdev.fastimageloader.LoadedFrom;
+import com.theartofdev.fastimageloader.ReusableBitmap;
+import com.theartofdev.fastimageloader.Target;
+import com.theartofdev.fastimageloader.TestSpecs;
+
+import org.junit.Test;
+
+import java.io.File;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ImageRequestTest {
+
+    private static final String URI = "http://example.com/image.jpg";
+
+    @Test
+    public void uriUniqueKeyIsFnv1aOfUriAndSpecKey() {
+        // reference vectors of 64-bit FNV-1a
+        assertEquals(0xcbf29ce484222325L, fnv1a(""));
+        assertEquals(0xaf63dc4c8601ec8cL, fnv1a("a"));
+        assertEquals(0x85944171f73967e8L, fnv1a("foobar"));
+
+        ImageLoadSpec spec = TestSpecs.create("spec", 100, 100);
+        String uri = "http://example.com/image.jpg";
+        assertEquals(fnv1a(uri + "$spec"), ImageRequest.getUriUniqueKey(spec, uri));
+    }
+
+    @Test
+    public void uriUniqueKeyBySpec() {
+        ImageLoadSpec spec = TestSpecs.create("spec", 100, 100);
+        ImageLoadSpec otherSpec = TestSpecs.create("other", 100, 100);
+        String uri = "http://example.com/image.jpg";
+
+        assertEquals(ImageRequest.getUriUniqueKey(spec, uri), ImageRequest.getUriUniqueKey(spec, "http://example.com/image.jpg"));
+        assertNotEquals(ImageRequest.getUriUniqueKey(spec, uri), ImageRequest.getUriUniqueKey(otherSpec, uri));
+        assertNotEquals(ImageRequest.getUriUniqueKey(spec, uri), ImageRequest.getUriUniqueKey(spec, uri + "?"));
+    }
+
+    @Test
+    public void prefetchUpgradedByTargetUntilDownloadStarted() {
+        ImageRequest request = new ImageRequest(URI, TestSpecs.create("spec", 100, 100), new File("image"), null);
+        assertTrue(request.isPrefetch());
+        assertTrue(request.isDiskPrefetch());
+        assertTrue(request.isValid());
+
+        // target joined before download started, the download can be upgraded from prefetch priority
+        assertTrue(request.addTargetAndCheck(new TestTarget()));
+        assertFalse(request.isPrefetch());
+        assertFalse(request.isDiskPrefetch());
+
+        assertTrue(request.startDownload());
+        assertFalse(request.startDownload());
+        assertFalse(request.addTargetAndCheck(new TestTarget()));
+
+        request.resetDownload();
+        assertTrue(request.addTargetAndCheck(new TestTarget()));
+    }
+
+    @Test
+    public void prefetchMemoryIsNotDiskPrefetch() {
+        ImageRequest request = new ImageRequest(URI, TestSpecs.create("spec", 100, 100), new File("image"), null);
+        request.setPrefetchMemory(true);
+        assertTrue(request.isPrefetch());
+        assertFalse(request.isDiskPrefetch());
+    }
+
+    @Test
+    public void targetRequestInvalidWhenLastTargetRemoved() {
+        Target target = new TestTarget();
+        Target otherTarget = new TestTarget();
+        ImageRequest request = new ImageRequest(target, URI, TestSpecs.create("spec", 100, 100), new File("image"), null);
+        assertFalse(request.isPrefetch());
+        assertTrue(request.isValid());
+
+        assertFalse(request.addTargetAndCheck(otherTarget));
+        assertFalse(request.addTargetAndCheck(otherTarget));
+        assertEquals(2, request.getTargets().size());
+
+        assertFalse(request.removeTargetAndCheck(target));
+        assertTrue(request.isValid());
+        assertTrue(request.removeTargetAndCheck(otherTarget));
+        assertFalse(request.isValid());
+    }
+
+    @Test
+    public void prefetchRequestValidWithoutTargets() {
+        Target target = new TestTarget();
+        ImageRequest request = new ImageRequest(URI, TestSpecs.create("spec", 100, 100), new File("image"), null);
+        request.addTargetAndCheck(target);
+        assertFalse(request.removeTargetAndCheck(target));
+        assertTrue(request.isValid());
+        assertTrue(request.isPrefetch());
+    }
+
+    @Test
+    public void pausedAndCanceledRequestInvalid() {
+        ImageRequest request = new ImageRequest(new TestTarget(), URI, TestSpecs.create("spec", 100, 100), new File("image"), null);
+        request.setPaused(true);
+        assertFalse(request.isValid());
+        request.setPaused(false);
+        assertTrue(request.isValid());
+
+        request.setPaused(true);
+        request.cancel();
+        assertFalse(request.isPaused());
+        assertTrue(request.isCanceled());
+        assertFalse(request.isValid());
+    }
+
+    //region: Private methods
+
+    /**
+     * Reference 64-bit FNV-1a of the given ASCII string bytes.
+     */
+    private static long fnv1a(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : value.getBytes()) {
+            hash = (hash ^ (b & 0xFF)) * 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    /**
+     * Target that ignores all the events, compared by identity.
+     */
+    private static final class TestTarget implements Target {
+
+        @Override
+        public String getUri() {
+            return URI;
+        }
+
+        @Override
+        public String getSpecKey() {
+            return "spec";
+        }
+
+        @Override
+        public void onBitmapDownloading(long downloaded, long contentLength) {
+        }
+
+        @Override
+        public void onBitmapLoaded(ReusableBitmap bitmap, LoadedFrom from) {
+        }
+
+        @Override
+        public void onBitmapFailed() {
+        }
+    }
+    //endregion
+}
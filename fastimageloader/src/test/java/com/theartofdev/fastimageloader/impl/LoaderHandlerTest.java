@@ -0,0 +1,146 @@
+// "Therefore those skilled at the unorthodox
+// are infinite as heaven and earth,
+// inexhaustible as the great rivers.
+// When they come to an end,
+// they begin again,
+// like the days and months;
+// they die and are reborn,
+// like the four seasons."
+//
+// - Sun Tsu,
+// "The Art of War"
+
+package com.theartofdev.fastimageloader.impl;
+
+import android.app.Application;
+import android.graphics.Bitmap;
+
+import com.theartofdev.fastimageloader.Decoder;
+import com.theartofdev.fastimageloader.DiskCache;
+import com.theartofdev.fastimageloader.Downloader;
+import com.theartofdev.fastimageloader.ImageLoadSpec;
+import com.theartofdev.fastimageloader.LoadedFrom;
+import com.theartofdev.fastimageloader.ReusableBitmap;
+import com.theartofdev.fastimageloader.Scheduler;
+import com.theartofdev.fastimageloader.Target;
+import com.theartofdev.fastimageloader.TestSpecs;
+import com.theartofdev.fastimageloader.TestUtils;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * The dispatcher thread and main thread handlers are stubs on the JVM so only the work done by the caller thread is
+ * executed.
+ */
+public class LoaderHandlerTest {
+
+    private static final String URI = "http://example.com/image.jpg";
+
+    private final ImageLoadSpec mSpec = TestSpecs.create("spec", 100, 100);
+
+    private MemoryPoolImpl mMemoryPool;
+
+    private LoaderHandler mLoaderHandler;
+
+    private TestTarget mTarget;
+
+    @Before
+    public void setUp() {
+        mMemoryPool = new MemoryPoolImpl();
+        mLoaderHandler = new LoaderHandler(new Application(), mMemoryPool, TestUtils.stub(DiskCache.class),
+                TestUtils.stub(Downloader.class), TestUtils.stub(Decoder.class), 0, 0, null, null, null, TestUtils.stub(Scheduler.class));
+        mTarget = new TestTarget();
+    }
+
+    @Test
+    public void memoryCacheHitDoesNotAllocate() {
+        ReusableBitmap bitmap = new ReusableBitmap(TestUtils.allocate(Bitmap.class), mSpec);
+        bitmap.setUrl(URI);
+        mMemoryPool.set(bitmap);
+
+        TestUtils.assertNoAllocation(new Runnable() {
+            @Override
+            public void run() {
+                mLoaderHandler.loadImage(mTarget, mSpec, null, null);
+            }
+        });
+        assertEquals(LoadedFrom.MEMORY, mTarget.mLoadedFrom);
+    }
+
+    @Test
+    public void targetRebindToEmptyUriInvalidatesPreviousRequest() {
+        mLoaderHandler.dispatchLoadImage(mTarget, URI, mSpec, null, null, 0);
+        ImageRequest request = mLoaderHandler.getTargetRequest(mTarget);
+        assertNotNull(request);
+        assertTrue(request.isValid());
+
+        // the target handler cancels the request of its current uri before it is replaced with empty uri
+        mLoaderHandler.dispatchCancelTarget(mTarget, mTarget.getUri());
+        mTarget.mUri = "";
+
+        assertFalse(request.isValid());
+        assertTrue(request.isCanceled());
+        assertNull(mLoaderHandler.getTargetRequest(mTarget));
+        assertEquals(0, mLoaderHandler.getMetrics().getLoadingRequests());
+    }
+
+    @Test
+    public void targetRebindKeepsRequestNeededByOtherTarget() {
+        TestTarget otherTarget = new TestTarget();
+        mLoaderHandler.dispatchLoadImage(mTarget, URI, mSpec, null, null, 0);
+        mLoaderHandler.dispatchLoadImage(otherTarget, URI, mSpec, null, null, 0);
+        ImageRequest request = mLoaderHandler.getTargetRequest(mTarget);
+        assertSame(request, mLoaderHandler.getTargetRequest(otherTarget));
+
+        mLoaderHandler.dispatchCancelTarget(mTarget, mTarget.getUri());
+        mTarget.mUri = "";
+
+        assertTrue(request.isValid());
+        assertNull(mLoaderHandler.getTargetRequest(mTarget));
+        assertEquals(1, request.getTargets().size());
+    }
+
+    //region: Private methods
+
+    /**
+     * Target of the test image, records the last loaded event.
+     */
+    private static final class TestTarget implements Target {
+
+        private String mUri = URI;
+
+        private LoadedFrom mLoadedFrom;
+
+        @Override
+        public String getUri() {
+            return mUri;
+        }
+
+        @Override
+        public String getSpecKey() {
+            return "spec";
+        }
+
+        @Override
+        public void onBitmapDownloading(long downloaded, long contentLength) {
+        }
+
+        @Override
+        public void onBitmapLoaded(ReusableBitmap bitmap, LoadedFrom from) {
+            mLoadedFrom = from;
+        }
+
+        @Override
+        public void onBitmapFailed() {
+        }
+    }
+    //endregion
+}
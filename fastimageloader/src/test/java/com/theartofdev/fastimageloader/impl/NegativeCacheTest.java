@@ -0,0 +1,106 @@
+// "Therefore those skilled at the unorthodox
+// are infinite as heaven and earth,
+// inexhaustible as the great rivers.
+// When they come to an end,
+// they begin again,
+// like the days and months;
+// they die and are reborn,
+// like the four seasons."
+//
+// - Sun Tsu,
+// "The Art of War"
+
+package com.theartofdev.fastimageloader.impl;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class NegativeCacheTest {
+
+    @Test
+    public void expiresByFailureCause() {
+        NegativeCache cache = new NegativeCache(10);
+        cache.add("notFound", 404, 0);
+        cache.add("gone", 410, 0);
+        cache.add("decode", NegativeCache.DECODE_ERROR, 0);
+        cache.add("forbidden", 403, 0);
+        cache.add("invalid", NegativeCache.INVALID_CONTENT, 0);
+        cache.add("server", 503, 0);
+        cache.add("timeout", 408, 0);
+        cache.add("throttled", 429, 0);
+        cache.add("network", 0, 0);
+
+        assertExpires(cache, "notFound", NegativeCache.NOT_FOUND_TTL);
+        assertExpires(cache, "gone", NegativeCache.NOT_FOUND_TTL);
+        assertExpires(cache, "decode", NegativeCache.NOT_FOUND_TTL);
+        assertExpires(cache, "forbidden", NegativeCache.CLIENT_ERROR_TTL);
+        assertExpires(cache, "invalid", NegativeCache.CLIENT_ERROR_TTL);
+        assertExpires(cache, "server", NegativeCache.TRANSIENT_ERROR_TTL);
+        assertExpires(cache, "timeout", NegativeCache.TRANSIENT_ERROR_TTL);
+        assertExpires(cache, "throttled", NegativeCache.TRANSIENT_ERROR_TTL);
+        assertExpires(cache, "network", NegativeCache.TRANSIENT_ERROR_TTL);
+    }
+
+    @Test
+    public void expiredFailureIsRemoved() {
+        NegativeCache cache = new NegativeCache(10);
+        cache.add("uri", 503, 1000);
+        assertTrue(cache.isFailed("uri", 1000));
+        assertFalse(cache.isFailed("uri", 1000 + NegativeCache.TRANSIENT_ERROR_TTL));
+        // removed on expiry, not failed even by earlier time
+        assertFalse(cache.isFailed("uri", 1000));
+    }
+
+    @Test
+    public void addAgainRenewsFailure() {
+        NegativeCache cache = new NegativeCache(10);
+        cache.add("uri", 503, 0);
+        cache.add("uri", 404, 5000);
+        assertTrue(cache.isFailed("uri", NegativeCache.TRANSIENT_ERROR_TTL));
+        assertTrue(cache.isFailed("uri", 5000 + NegativeCache.NOT_FOUND_TTL - 1));
+        assertFalse(cache.isFailed("uri", 5000 + NegativeCache.NOT_FOUND_TTL));
+    }
+
+    @Test
+    public void evictsOldestOverCapacity() {
+        NegativeCache cache = new NegativeCache(3);
+        cache.add("a", 404, 0);
+        cache.add("b", 404, 0);
+        cache.add("c", 404, 0);
+        // re-adding moves "a" to be the newest
+        cache.add("a", 404, 0);
+        cache.add("d", 404, 0);
+
+        assertTrue(cache.isFailed("a", 1));
+        assertFalse(cache.isFailed("b", 1));
+        assertTrue(cache.isFailed("c", 1));
+        assertTrue(cache.isFailed("d", 1));
+
+        cache.add("e", 404, 0);
+        assertFalse(cache.isFailed("c", 1));
+        assertTrue(cache.isFailed("a", 1));
+        assertTrue(cache.isFailed("e", 1));
+    }
+
+    @Test
+    public void clear() {
+        NegativeCache cache = new NegativeCache(10);
+        cache.add("uri", 404, 0);
+        cache.clear();
+        assertFalse(cache.isFailed("uri", 1));
+        assertFalse(cache.isFailed("other"));
+    }
+
+    //region: Private methods
+
+    /**
+     * Assert the failure of the given URI added at time 0 is failed until the given duration passes.
+     */
+    private static void assertExpires(NegativeCache cache, String uri, long ttl) {
+        assertTrue(uri, cache.isFailed(uri, ttl - 1));
+        assertFalse(uri, cache.isFailed(uri, ttl));
+    }
+    //endregion
+}
@@ -0,0 +1,163 @@
+// "Therefore those skilled at the unorthodox
+// are infinite as heaven and earth,
+// inexhaustible as the great rivers.
+// When they come to an end,
+// they begin again,
+// like the days and months;
+// they die and are reborn,
+// like the four seasons."
+//
+// - Sun Tsu,
+// "The Art of War"
+
+package com.theartofdev.fastimageloader.impl;
+
+import android.graphics.Bitmap;
+
+import com.theartofdev.fastimageloader.Decoder;
+import com.theartofdev.fastimageloader.DiskCache;
+import com.theartofdev.fastimageloader.Downloader;
+import com.theartofdev.fastimageloader.ImageLoadSpec;
+import com.theartofdev.fastimageloader.Interceptor;
+import com.theartofdev.fastimageloader.LoadedFrom;
+import com.theartofdev.fastimageloader.MemoryPool;
+import com.theartofdev.fastimageloader.ReusableBitmap;
+import com.theartofdev.fastimageloader.Target;
+import com.theartofdev.fastimageloader.TestSpecs;
+import com.theartofdev.fastimageloader.TestUtils;
+import com.theartofdev.fastimageloader.impl.util.FILMetrics;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class NetworkInterceptorTest {
+
+    private static final String URI = "http://example.com/image.jpg";
+
+    private final ImageLoadSpec mSpec = TestSpecs.create("network", 100, 100);
+
+    private final ImageLoadSpec mAltSpec = TestSpecs.create("network-alt", 50, 50);
+
+    private NegativeCache mNegativeCache;
+
+    private ImageRequest mRequest;
+
+    private TestChain mChain;
+
+    @Before
+    public void setUp() {
+        FILMetrics.reset();
+        mNegativeCache = new NegativeCache(16);
+        mRequest = new ImageRequest(TestUtils.stub(Target.class), URI, mSpec, new File("image"), null);
+        mChain = new TestChain(mRequest);
+    }
+
+    @Test
+    public void downloadFailedWithAltImageIsNetworkFailure() {
+        // alternative spec image was loaded from disk cache before the download
+        mRequest.setBitmap(new ReusableBitmap(TestUtils.allocate(Bitmap.class), mAltSpec));
+        mRequest.setResponseCode(404);
+
+        intercept(false, false);
+
+        assertEquals(LoadedFrom.NETWORK, mChain.mCompleted);
+        assertTrue(mNegativeCache.isFailed(mRequest.getEnhancedUri()));
+        assertEquals(1, FILMetrics.snapshotSpecs().get(mSpec.getKey()).getNetworkFailures());
+        assertEquals(0, FILMetrics.snapshotSpecs().get(mSpec.getKey()).getNetworkLoads());
+    }
+
+    @Test
+    public void downloadedIsNetworkLoad() {
+        mRequest.setBitmap(new ReusableBitmap(TestUtils.allocate(Bitmap.class), mAltSpec));
+        final ReusableBitmap bitmap = new ReusableBitmap(TestUtils.allocate(Bitmap.class), mSpec);
+        Decoder decoder = new Decoder() {
+            @Override
+            public void decode(MemoryPool memoryPool, ImageRequest imageRequest, File file, ImageLoadSpec spec) {
+                imageRequest.setBitmap(bitmap);
+            }
+
+            @Override
+            public ReusableBitmap decodePreview(MemoryPool memoryPool, String preview, ImageLoadSpec spec) {
+                return null;
+            }
+        };
+
+        intercept(decoder, true, false);
+
+        assertEquals(LoadedFrom.NETWORK, mChain.mCompleted);
+        assertFalse(mNegativeCache.isFailed(mRequest.getEnhancedUri()));
+        assertEquals(1, FILMetrics.snapshotSpecs().get(mSpec.getKey()).getNetworkLoads());
+        assertEquals(0, FILMetrics.snapshotSpecs().get(mSpec.getKey()).getNetworkFailures());
+    }
+
+    //region: Private methods
+
+    /**
+     * Execute the network interceptor on the test request with downloader reporting the given result.
+     */
+    private void intercept(boolean downloaded, boolean canceled) {
+        intercept(TestUtils.stub(Decoder.class), downloaded, canceled);
+    }
+
+    /**
+     * Execute the network interceptor on the test request with downloader reporting the given result.
+     */
+    private void intercept(Decoder decoder, final boolean downloaded, final boolean canceled) {
+        Downloader downloader = new Downloader() {
+            @Override
+            public void downloadAsync(ImageRequest imageRequest, boolean prefetch, Callback callback) {
+                callback.loadImageDownloaderCallback(imageRequest, downloaded, canceled);
+            }
+        };
+        new NetworkInterceptor(downloader, TestUtils.stub(DiskCache.class), decoder, TestUtils.stub(MemoryPool.class), mNegativeCache)
+                .intercept(mChain);
+    }
+
+    /**
+     * Chain of the test request, records how the request was finished.
+     */
+    private static final class TestChain implements Interceptor.Chain {
+
+        private final ImageRequest mRequest;
+
+        private LoadedFrom mCompleted;
+
+        private TestChain(ImageRequest request) {
+            mRequest = request;
+        }
+
+        @Override
+        public ImageRequest getRequest() {
+            return mRequest;
+        }
+
+        @Override
+        public ImageLoadSpec getAltSpec() {
+            return null;
+        }
+
+        @Override
+        public void proceed() {
+        }
+
+        @Override
+        public void deliver(LoadedFrom from) {
+        }
+
+        @Override
+        public void complete(LoadedFrom from) {
+            mCompleted = from;
+        }
+
+        @Override
+        public void canceled() {
+        }
+    }
+    //endregion
+}
@@ -0,0 +1,94 @@
+// "Therefore those skilled at the unorthodox
+// are infinite as heaven and earth,
+// inexhaustible as the great rivers.
+// When they come to an end,
+// they begin again,
+// like the days and months;
+// they die and are reborn,
+// like the four seasons."
+//
+// - Sun Tsu,
+// "The Art of War"
+
+package com.theartofdev.fastimageloader.impl.util;
+
+import com.theartofdev.fastimageloader.MetricsSnapshot;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void empty() {
+        MetricsSnapshot.Latency latency = new LatencyHistogram().snapshot();
+        assertEquals(0, latency.getCount());
+        assertEquals(0, latency.getMean());
+        assertEquals(0, latency.getP50());
+        assertEquals(0, latency.getP90());
+        assertEquals(0, latency.getP99());
+        assertEquals(0, latency.getMax());
+    }
+
+    @Test
+    public void percentilesResolveToBucketUpperBound() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        // 90 latencies of 100us (bucket [64, 128)), 9 of 1000us (bucket [512, 1024)), 1 of 5000us (bucket [4096, 8192))
+        for (int i = 0; i < 90; i++) {
+            histogram.record(100 * 1000);
+        }
+        for (int i = 0; i < 9; i++) {
+            histogram.record(1000 * 1000);
+        }
+        histogram.record(5000 * 1000);
+
+        MetricsSnapshot.Latency latency = histogram.snapshot();
+        assertEquals(100, latency.getCount());
+        assertEquals((90 * 100 + 9 * 1000 + 5000) / 100, latency.getMean());
+        assertEquals(128, latency.getP50());
+        assertEquals(128, latency.getP90());
+        assertEquals(1024, latency.getP99());
+        assertEquals(8192, latency.getMax());
+    }
+
+    @Test
+    public void subMicrosecondAndNegativeLatencies() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(999);
+        histogram.record(-5000);
+
+        MetricsSnapshot.Latency latency = histogram.snapshot();
+        assertEquals(2, latency.getCount());
+        assertEquals(0, latency.getMean());
+        assertEquals(1, latency.getMax());
+    }
+
+    @Test
+    public void hugeLatencyInLastBucket() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(Long.MAX_VALUE);
+
+        MetricsSnapshot.Latency latency = histogram.snapshot();
+        assertEquals(1, latency.getCount());
+        assertEquals(1L << 30, latency.getMax());
+    }
+
+    @Test
+    public void recordSinceAndReset() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.recordSince(System.nanoTime() - 2000 * 1000);
+
+        MetricsSnapshot.Latency latency = histogram.snapshot();
+        assertEquals(1, latency.getCount());
+        assertTrue(latency.getMean() >= 2000);
+        assertTrue(latency.getMax() >= 2048);
+
+        histogram.reset();
+        latency = histogram.snapshot();
+        assertEquals(0, latency.getCount());
+        assertEquals(0, latency.getMean());
+        assertEquals(0, latency.getMax());
+    }
+}
@@ -0,0 +1,200 @@
+// "Therefore those skilled at the unorthodox
+// are infinite as heaven and earth,
+// inexhaustible as the great rivers.
+// When they come to an end,
+// they begin again,
+// like the days and months;
+// they die and are reborn,
+// like the four seasons."
+//
+// - Sun Tsu,
+// "The Art of War"
+
+package com.theartofdev.fastimageloader.impl.util;
+
+import com.theartofdev.fastimageloader.ImageLoadSpec;
+import com.theartofdev.fastimageloader.TestSpecs;
+import com.theartofdev.fastimageloader.TestUtils;
+import com.theartofdev.fastimageloader.impl.ImageRequest;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class LongHashMapTest {
+
+    @Test
+    public void putGetRemove() {
+        LongHashMap<String> map = new LongHashMap<>(4);
+        map.put(1, "a");
+        map.put(2, "b");
+        map.put(-3, "c");
+
+        assertEquals(3, map.size());
+        assertEquals("a", map.get(1));
+        assertEquals("b", map.get(2));
+        assertEquals("c", map.get(-3));
+        assertNull(map.get(4));
+
+        map.put(2, "bb");
+        assertEquals(3, map.size());
+        assertEquals("bb", map.get(2));
+
+        assertEquals("a", map.remove(1));
+        assertNull(map.remove(1));
+        assertNull(map.get(1));
+        assertEquals(2, map.size());
+        assertEquals("bb", map.get(2));
+        assertEquals("c", map.get(-3));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void putNullValue() {
+        new LongHashMap<String>(4).put(1, null);
+    }
+
+    @Test
+    public void removeShiftsBackAcrossWraparound() {
+        LongHashMap<String> map = new LongHashMap<>(4);
+        int mask = map.capacity() - 1;
+
+        // three keys with the last slot as home wrap to the start of the table, the fourth is displaced after them
+        long[] lastSlotKeys = findKeys(mask, mask, 3);
+        long firstSlotKey = findKeys(0, mask, 1)[0];
+        for (long key : lastSlotKeys) {
+            map.put(key, String.valueOf(key));
+        }
+        map.put(firstSlotKey, String.valueOf(firstSlotKey));
+        assertEquals(8, map.capacity());
+
+        // removing the entry in the last slot must shift the wrapped entries back or their lookup breaks
+        assertEquals(String.valueOf(lastSlotKeys[0]), map.remove(lastSlotKeys[0]));
+        assertNull(map.get(lastSlotKeys[0]));
+        assertEquals(String.valueOf(lastSlotKeys[1]), map.get(lastSlotKeys[1]));
+        assertEquals(String.valueOf(lastSlotKeys[2]), map.get(lastSlotKeys[2]));
+        assertEquals(String.valueOf(firstSlotKey), map.get(firstSlotKey));
+
+        assertEquals(String.valueOf(lastSlotKeys[2]), map.remove(lastSlotKeys[2]));
+        assertEquals(String.valueOf(lastSlotKeys[1]), map.get(lastSlotKeys[1]));
+        assertEquals(String.valueOf(firstSlotKey), map.get(firstSlotKey));
+
+        assertEquals(String.valueOf(lastSlotKeys[1]), map.remove(lastSlotKeys[1]));
+        assertEquals(String.valueOf(firstSlotKey), map.get(firstSlotKey));
+        assertEquals(1, map.size());
+
+        // the freed slots are reusable
+        for (long key : lastSlotKeys) {
+            map.put(key, String.valueOf(key));
+        }
+        for (long key : lastSlotKeys) {
+            assertEquals(String.valueOf(key), map.get(key));
+        }
+        assertEquals(4, map.size());
+    }
+
+    @Test
+    public void grow() {
+        LongHashMap<Long> map = new LongHashMap<>(4);
+        int capacity = map.capacity();
+        for (long i = 0; i < 1000; i++) {
+            map.put(i * 31, i);
+        }
+        assertEquals(1000, map.size());
+        assertTrue(map.capacity() > capacity);
+        assertTrue(map.size() * 2 <= map.capacity());
+        for (long i = 0; i < 1000; i++) {
+            assertEquals(Long.valueOf(i), map.get(i * 31));
+        }
+
+        for (long i = 0; i < 1000; i += 2) {
+            assertEquals(Long.valueOf(i), map.remove(i * 31));
+        }
+        assertEquals(500, map.size());
+        for (long i = 0; i < 1000; i++) {
+            if (i % 2 == 0) {
+                assertNull(map.get(i * 31));
+            } else {
+                assertEquals(Long.valueOf(i), map.get(i * 31));
+            }
+        }
+
+        int count = 0;
+        for (int i = 0; i < map.capacity(); i++) {
+            if (map.valueAt(i) != null) {
+                count++;
+            }
+        }
+        assertEquals(500, count);
+    }
+
+    @Test
+    public void requestKeys() {
+        ImageLoadSpec spec = TestSpecs.create("spec", 100, 100);
+        ImageLoadSpec otherSpec = TestSpecs.create("other", 100, 100);
+
+        LongHashMap<String> map = new LongHashMap<>(32);
+        for (int i = 0; i < 500; i++) {
+            String uri = "http://example.com/image/" + i + ".jpg";
+            map.put(ImageRequest.getUriUniqueKey(spec, uri), uri);
+        }
+        assertEquals(500, map.size());
+        for (int i = 0; i < 500; i++) {
+            String uri = "http://example.com/image/" + i + ".jpg";
+            assertEquals(uri, map.get(ImageRequest.getUriUniqueKey(spec, uri)));
+            assertNull(map.get(ImageRequest.getUriUniqueKey(otherSpec, uri)));
+        }
+    }
+
+    @Test
+    public void getDoesNotAllocate() {
+        final ImageLoadSpec spec = TestSpecs.create("spec", 100, 100);
+        final String[] uris = new String[64];
+        final long[] keys = new long[uris.length];
+        final LongHashMap<String> map = new LongHashMap<>(32);
+        for (int i = 0; i < uris.length; i++) {
+            uris[i] = "http://example.com/image/" + i + ".jpg";
+            keys[i] = ImageRequest.getUriUniqueKey(spec, uris[i]);
+            map.put(keys[i], uris[i]);
+        }
+
+        assertEquals(uris.length, lookup(map, spec, uris, keys));
+        TestUtils.assertNoAllocation(new Runnable() {
+            @Override
+            public void run() {
+                lookup(map, spec, uris, keys);
+            }
+        });
+    }
+
+    //region: Private methods
+
+    /**
+     * Lookup each URI by its request key and the request key computed from the URI, return the number found.
+     */
+    private static int lookup(LongHashMap<String> map, ImageLoadSpec spec, String[] uris, long[] keys) {
+        int found = 0;
+        for (int i = 0; i < uris.length; i++) {
+            if (map.get(keys[i]) == uris[i] && map.get(ImageRequest.getUriUniqueKey(spec, uris[i])) == uris[i]) {
+                found++;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Find the given number of keys that their home slot in map of the given mask is the given slot.
+     */
+    private static long[] findKeys(int slot, int mask, int count) {
+        long[] keys = new long[count];
+        int found = 0;
+        for (long key = 1; found < count; key++) {
+            if (LongHashMap.slot(key, mask) == slot) {
+                keys[found++] = key;
+            }
+        }
+        return keys;
+    }
+    //endregion
+}
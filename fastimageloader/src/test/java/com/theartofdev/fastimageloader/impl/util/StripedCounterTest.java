@@ -0,0 +1,70 @@
+// "Therefore those skilled at the unorthodox
+// are infinite as heaven and earth,
+// inexhaustible as the great rivers.
+// When they come to an end,
+// they begin again,
+// like the days and months;
+// they die and are reborn,
+// like the four seasons."
+//
+// - Sun Tsu,
+// "The Art of War"
+
+package com.theartofdev.fastimageloader.impl.util;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.Assert.assertEquals;
+
+public class StripedCounterTest {
+
+    @Test
+    public void incrementAddReset() {
+        StripedCounter counter = new StripedCounter();
+        assertEquals(0, counter.sum());
+
+        counter.increment();
+        counter.increment();
+        counter.add(40);
+        assertEquals(42, counter.sum());
+        assertEquals("42", counter.toString());
+
+        counter.add(-2);
+        assertEquals(40, counter.sum());
+
+        counter.reset();
+        assertEquals(0, counter.sum());
+    }
+
+    @Test
+    public void concurrentUpdates() throws InterruptedException {
+        final StripedCounter counter = new StripedCounter();
+        final int threads = 16;
+        final int updates = 10000;
+        final CountDownLatch start = new CountDownLatch(1);
+        Thread[] workers = new Thread[threads];
+        for (int i = 0; i < threads; i++) {
+            workers[i] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                    } catch (InterruptedException ignored) {
+                    }
+                    for (int j = 0; j < updates; j++) {
+                        counter.increment();
+                        counter.add(2);
+                    }
+                }
+            });
+            workers[i].start();
+        }
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        assertEquals(threads * updates * 3L, counter.sum());
+    }
+}
@@ -0,0 +1,112 @@
+// "Therefore those skilled at the unorthodox
+// are infinite as heaven and earth,
+// inexhaustible as the great rivers.
+// When they come to an end,
+// they begin again,
+// like the days and months;
+// they die and are reborn,
+// like the four seasons."
+//
+// - Sun Tsu,
+// "The Art of War"
+
+package com.theartofdev.fastimageloader.target;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.os.SystemClock;
+
+import com.theartofdev.fastimageloader.LoadedFrom;
+import com.theartofdev.fastimageloader.TestUtils;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class TargetCrossFadeDrawableTest {
+
+    private TargetDrawable mFrom;
+
+    private TargetDrawable mTo;
+
+    private int mFadeEndCount;
+
+    private final Runnable mOnFadeEnd = new Runnable() {
+        @Override
+        public void run() {
+            mFadeEndCount++;
+        }
+    };
+
+    @Before
+    public void setUp() {
+        mFrom = new TargetDrawable(TestUtils.allocate(Bitmap.class), LoadedFrom.MEMORY, false);
+        mTo = new TargetDrawable(TestUtils.allocate(Bitmap.class), LoadedFrom.NETWORK, false);
+        mFadeEndCount = 0;
+    }
+
+    @Test
+    public void fadeEndCallbackOnceWhenFadeCompletes() {
+        TargetCrossFadeDrawable drawable = new TargetCrossFadeDrawable(mFrom, mTo, mOnFadeEnd);
+        assertTrue(drawable.isFading());
+        assertSame(mTo, drawable.getTo());
+
+        drawable.mStartTimeMillis = SystemClock.uptimeMillis();
+        drawable.draw(new Canvas());
+        assertTrue(drawable.isFading());
+        assertEquals(0, mFadeEndCount);
+
+        drawable.mStartTimeMillis = SystemClock.uptimeMillis() - 2 * TargetHelper.FADE_DURATION;
+        drawable.draw(new Canvas());
+        assertFalse(drawable.isFading());
+        assertEquals(1, mFadeEndCount);
+
+        drawable.draw(new Canvas());
+        assertEquals(1, mFadeEndCount);
+    }
+
+    @Test
+    public void endFadeDoesNotCallFadeEndCallback() {
+        TargetCrossFadeDrawable drawable = new TargetCrossFadeDrawable(mFrom, mTo, mOnFadeEnd);
+        drawable.endFade();
+        assertFalse(drawable.isFading());
+
+        drawable.mStartTimeMillis = SystemClock.uptimeMillis() - 2 * TargetHelper.FADE_DURATION;
+        drawable.draw(new Canvas());
+        assertEquals(0, mFadeEndCount);
+    }
+
+    @Test
+    public void rebindDoesNotAllocate() {
+        final Canvas canvas = new Canvas();
+        final TargetCrossFadeDrawable drawable = new TargetCrossFadeDrawable(mFrom, mTo, mOnFadeEnd);
+        TestUtils.assertNoAllocation(new Runnable() {
+            @Override
+            public void run() {
+                rebindAndComplete(drawable, canvas);
+            }
+        });
+        assertTrue(mFadeEndCount > 0);
+        assertFalse(drawable.isFading());
+    }
+
+    //region: Private methods
+
+    /**
+     * Cross-fade between the layers swapped, like the handler swaps its image drawables, and complete the fade.
+     */
+    private void rebindAndComplete(TargetCrossFadeDrawable drawable, Canvas canvas) {
+        TargetDrawable from = mFrom;
+        mFrom = mTo;
+        mTo = from;
+        drawable.setLayers(mFrom, mTo, mOnFadeEnd);
+        drawable.draw(canvas);
+        drawable.mStartTimeMillis = SystemClock.uptimeMillis() - 2 * TargetHelper.FADE_DURATION;
+        drawable.draw(canvas);
+    }
+    //endregion
+}
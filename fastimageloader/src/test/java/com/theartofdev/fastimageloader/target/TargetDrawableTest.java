@@ -0,0 +1,98 @@
+// "Therefore those skilled at the unorthodox
+// are infinite as heaven and earth,
+// inexhaustible as the great rivers.
+// When they come to an end,
+// they begin again,
+// like the days and months;
+// they die and are reborn,
+// like the four seasons."
+//
+// - Sun Tsu,
+// "The Art of War"
+
+package com.theartofdev.fastimageloader.target;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+
+import com.theartofdev.fastimageloader.LoadedFrom;
+import com.theartofdev.fastimageloader.TestUtils;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Rebinding the handler-owned target drawables to the next image must not allocate.<br>
+ * Android graphics classes are stubs on the JVM so only the drawables own work is measured.
+ */
+public class TargetDrawableTest {
+
+    @Test
+    public void rebind() {
+        Bitmap bitmap = TestUtils.allocate(Bitmap.class);
+        Bitmap otherBitmap = TestUtils.allocate(Bitmap.class);
+
+        TargetDrawable drawable = new TargetDrawable(bitmap, LoadedFrom.NETWORK, true);
+        assertSame(bitmap, drawable.getBitmap());
+
+        drawable.setBitmap(otherBitmap, LoadedFrom.DISK, false);
+        assertSame(otherBitmap, drawable.getBitmap());
+        assertFalse(drawable.isAnimating());
+    }
+
+    @Test
+    public void rebindDoesNotAllocate() {
+        final Bitmap[] bitmaps = {TestUtils.allocate(Bitmap.class), TestUtils.allocate(Bitmap.class), TestUtils.allocate(Bitmap.class)};
+        final Canvas canvas = new Canvas();
+        final TargetDrawable drawable = new TargetDrawable(bitmaps[0], LoadedFrom.NETWORK, true);
+        TestUtils.assertNoAllocation(new Runnable() {
+            @Override
+            public void run() {
+                bindAndDraw(drawable, bitmaps, canvas);
+            }
+        });
+    }
+
+    @Test
+    public void circleRebindSameBitmapDoesNotAllocate() {
+        // pooled bitmaps are reused between images so the same bitmap object is bound again with other image
+        final Bitmap bitmap = TestUtils.allocate(Bitmap.class);
+        final TargetCircleDrawable drawable = new TargetCircleDrawable(bitmap, LoadedFrom.NETWORK, true);
+        TestUtils.assertNoAllocation(new Runnable() {
+            @Override
+            public void run() {
+                drawable.setBitmap(bitmap, LoadedFrom.DISK, true);
+                drawable.setBitmap(bitmap, LoadedFrom.MEMORY, false);
+            }
+        });
+        assertSame(bitmap, drawable.mShaderBitmap);
+    }
+
+    @Test
+    public void circleRebindOtherBitmapRecreatesShader() {
+        Bitmap bitmap = TestUtils.allocate(Bitmap.class);
+        Bitmap otherBitmap = TestUtils.allocate(Bitmap.class);
+        TargetCircleDrawable drawable = new TargetCircleDrawable(bitmap, LoadedFrom.NETWORK, true);
+        assertSame(bitmap, drawable.mShaderBitmap);
+
+        drawable.setBitmap(otherBitmap, LoadedFrom.NETWORK, true);
+        assertSame(otherBitmap, drawable.mShaderBitmap);
+    }
+
+    //region: Private methods
+
+    /**
+     * Bind each of the given bitmaps to the drawable and draw it, like a list item view rebound while scrolling.
+     */
+    private static void bindAndDraw(TargetDrawable drawable, Bitmap[] bitmaps, Canvas canvas) {
+        for (Bitmap bitmap : bitmaps) {
+            drawable.setBitmap(bitmap, LoadedFrom.DISK, true);
+            drawable.draw(canvas);
+            drawable.setBitmap(bitmap, LoadedFrom.MEMORY, false);
+            drawable.draw(canvas);
+        }
+    }
+    //endregion
+}